@@ -0,0 +1,129 @@
+package com.example.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes event payloads as varints: a product event is its id followed by the zigzag-encoded quantity,
+ * an inventory event is the zigzag-encoded quantity alone. A batch of inventory changes is a count followed by
+ * length-prefixed UTF-8 SKU codes and quantities, since its record key names only the first SKU it carries.
+ * Otherwise SKU code and event type travel in the record key and headers, so decoding needs both alongside the
+ * payload. Readers ignore trailing bytes, so fields appended at the end do not need a new
+ * {@link EventHeaders#CURRENT_VERSION}.
+ */
+public final class EventCodec {
+
+    private static final int MAX_VARINT_LONG = 10;
+    private static final int MAX_VARINT_INT = 5;
+
+    private EventCodec() {
+    }
+
+    public static byte[] encode(ProductEvent event) {
+        byte[] buffer = new byte[MAX_VARINT_LONG + MAX_VARINT_INT];
+        int length = writeVarLong(buffer, 0, event.productId());
+        length = writeVarLong(buffer, length, zigzag(event.quantity()));
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public static byte[] encode(InventoryEvent event) {
+        byte[] buffer = new byte[MAX_VARINT_INT];
+        int length = writeVarLong(buffer, 0, zigzag(event.quantity()));
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public static byte[] encode(InventoryBatchEvent event) {
+        byte[] buffer = new byte[event.encodedSizeBound()];
+        int length = writeVarLong(buffer, 0, event.changes().size());
+        for (InventoryEvent change : event.changes()) {
+            byte[] sku = change.skuCode().getBytes(StandardCharsets.UTF_8);
+            length = writeVarLong(buffer, length, sku.length);
+            System.arraycopy(sku, 0, buffer, length, sku.length);
+            length += sku.length;
+            length = writeVarLong(buffer, length, zigzag(change.quantity()));
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    public static ProductEvent decodeProduct(EventType type, String skuCode, byte[] payload) {
+        Reader reader = new Reader(payload);
+        long productId = reader.readVarLong();
+        int quantity = unzigzag(reader.readVarLong());
+        return new ProductEvent(type, skuCode, productId, quantity);
+    }
+
+    public static InventoryEvent decodeInventory(EventType type, String skuCode, byte[] payload) {
+        Reader reader = new Reader(payload);
+        int quantity = unzigzag(reader.readVarLong());
+        return new InventoryEvent(type, skuCode, quantity);
+    }
+
+    public static InventoryBatchEvent decodeInventoryBatch(byte[] payload) {
+        Reader reader = new Reader(payload);
+        int count = (int) reader.readVarLong();
+        List<InventoryEvent> changes = new ArrayList<>(Math.min(count, payload.length));
+        for (int i = 0; i < count; i++) {
+            String skuCode = reader.readString();
+            changes.add(InventoryEvent.updated(skuCode, unzigzag(reader.readVarLong())));
+        }
+        return new InventoryBatchEvent(changes);
+    }
+
+    private static int writeVarLong(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private static int unzigzag(long value) {
+        int bits = (int) value;
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+
+    private static final class Reader {
+
+        private final byte[] payload;
+        private int position;
+
+        Reader(byte[] payload) {
+            if (payload == null) {
+                throw new IllegalArgumentException("Event payload is missing");
+            }
+            this.payload = payload;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position >= payload.length) {
+                    throw new IllegalArgumentException("Event payload is truncated");
+                }
+                byte b = payload[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Varint is too long");
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length > payload.length - position) {
+                throw new IllegalArgumentException("Event payload is truncated");
+            }
+            String value = new String(payload, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
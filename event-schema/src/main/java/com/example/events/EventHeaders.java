@@ -0,0 +1,38 @@
+package com.example.events;
+
+/**
+ * Header names and values shared by every producer and consumer of the event topics. Both headers hold a
+ * single byte; records are keyed by SKU code, which is why the payloads do not repeat it.
+ */
+public final class EventHeaders {
+
+    public static final String SCHEMA_VERSION = "schema-version";
+    public static final String EVENT_TYPE = "event-type";
+
+    // Bump on any incompatible payload change; consumers skip versions they do not know.
+    public static final byte CURRENT_VERSION = 1;
+
+    private static final byte[] CURRENT_VERSION_VALUE = {CURRENT_VERSION};
+
+    private EventHeaders() {
+    }
+
+    public static byte[] schemaVersion() {
+        return CURRENT_VERSION_VALUE.clone();
+    }
+
+    public static byte[] eventType(EventType type) {
+        return new byte[]{type.code()};
+    }
+
+    public static boolean isSupportedVersion(byte[] value) {
+        return value != null && value.length == 1 && value[0] == CURRENT_VERSION;
+    }
+
+    public static EventType readEventType(byte[] value) {
+        if (value == null || value.length != 1) {
+            throw new IllegalArgumentException("Malformed " + EVENT_TYPE + " header");
+        }
+        return EventType.fromCode(value[0]);
+    }
+}
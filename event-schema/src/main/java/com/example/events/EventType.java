@@ -0,0 +1,35 @@
+package com.example.events;
+
+/**
+ * Kind of event, carried in the {@link EventHeaders#EVENT_TYPE} header so consumers can skip records
+ * they do not handle without decoding the payload.
+ */
+public enum EventType {
+
+    PRODUCT_CREATED((byte) 1),
+    PRODUCT_UPDATED((byte) 2),
+    PRODUCT_DELETED((byte) 3),
+    INVENTORY_UPDATED((byte) 10),
+    INVENTORY_LOW_STOCK((byte) 11),
+    INVENTORY_OUT_OF_STOCK((byte) 12),
+    INVENTORY_BATCH_UPDATED((byte) 13);
+
+    private final byte code;
+
+    EventType(byte code) {
+        this.code = code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public static EventType fromCode(byte code) {
+        for (EventType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown event type code: " + code);
+    }
+}
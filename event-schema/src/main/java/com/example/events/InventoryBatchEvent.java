@@ -0,0 +1,20 @@
+package com.example.events;
+
+import java.util.List;
+
+/**
+ * Payload of an {@link EventType#INVENTORY_BATCH_UPDATED} record: the new quantities of many SKUs at once, sent
+ * by bulk operations instead of one record per SKU. A record only carries SKUs that share a partition and is keyed
+ * by the first of them, so the key says where it goes, not which SKUs it holds; those are read from the payload.
+ */
+public record InventoryBatchEvent(List<InventoryEvent> changes) {
+
+    // Worst case per change: UTF-8 SKU (at most 3 bytes per char), its length varint and the quantity varint.
+    int encodedSizeBound() {
+        int bound = 5;
+        for (InventoryEvent change : changes) {
+            bound += change.skuCode().length() * 3 + 10;
+        }
+        return bound;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.events;
+
+/**
+ * Payload of an inventory-events record: the quantity left for the SKU after the change.
+ */
+public record InventoryEvent(EventType type, String skuCode, int quantity) {
+
+    public static InventoryEvent updated(String skuCode, int quantity) {
+        return new InventoryEvent(EventType.INVENTORY_UPDATED, skuCode, quantity);
+    }
+
+    public static InventoryEvent lowStock(String skuCode, int quantity) {
+        return new InventoryEvent(EventType.INVENTORY_LOW_STOCK, skuCode, quantity);
+    }
+
+    public static InventoryEvent outOfStock(String skuCode) {
+        return new InventoryEvent(EventType.INVENTORY_OUT_OF_STOCK, skuCode, 0);
+    }
+}
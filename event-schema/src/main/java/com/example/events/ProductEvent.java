@@ -0,0 +1,19 @@
+package com.example.events;
+
+/**
+ * Payload of a product-events record. {@code quantity} is only meaningful for {@link EventType#PRODUCT_CREATED}.
+ */
+public record ProductEvent(EventType type, String skuCode, long productId, int quantity) {
+
+    public static ProductEvent created(String skuCode, long productId, int quantity) {
+        return new ProductEvent(EventType.PRODUCT_CREATED, skuCode, productId, quantity);
+    }
+
+    public static ProductEvent updated(String skuCode, long productId) {
+        return new ProductEvent(EventType.PRODUCT_UPDATED, skuCode, productId, 0);
+    }
+
+    public static ProductEvent deleted(String skuCode, long productId) {
+        return new ProductEvent(EventType.PRODUCT_DELETED, skuCode, productId, 0);
+    }
+}
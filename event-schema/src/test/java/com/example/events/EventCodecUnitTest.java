@@ -0,0 +1,81 @@
+package com.example.events;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventCodecUnitTest {
+
+    @Test
+    void productEvent_ShouldRoundTrip() {
+        // Arrange
+        ProductEvent event = ProductEvent.created("TEST-SKU", 1_234_567_890_123L, 42);
+
+        // Act
+        ProductEvent decoded = EventCodec.decodeProduct(event.type(), "TEST-SKU", EventCodec.encode(event));
+
+        // Assert
+        assertEquals(event, decoded);
+    }
+
+    @Test
+    void inventoryEvent_ShouldRoundTripNegativeAndExtremeQuantities() {
+        for (int quantity : new int[]{0, 1, -1, 63, 64, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            // Arrange
+            InventoryEvent event = InventoryEvent.updated("TEST-SKU", quantity);
+
+            // Act
+            InventoryEvent decoded = EventCodec.decodeInventory(event.type(), "TEST-SKU", EventCodec.encode(event));
+
+            // Assert
+            assertEquals(event, decoded);
+        }
+    }
+
+    @Test
+    void inventoryBatchEvent_ShouldRoundTrip() {
+        // Arrange
+        InventoryBatchEvent event = new InventoryBatchEvent(List.of(
+                InventoryEvent.updated("TEST-SKU", 10),
+                InventoryEvent.updated("ÜNICODE-SKU", 0),
+                InventoryEvent.updated("", 70_000)));
+
+        // Act
+        InventoryBatchEvent decoded = EventCodec.decodeInventoryBatch(EventCodec.encode(event));
+
+        // Assert
+        assertEquals(event, decoded);
+    }
+
+    @Test
+    void encode_ShouldUseOneBytePerSmallField() {
+        // Act
+        byte[] payload = EventCodec.encode(ProductEvent.created("TEST-SKU", 5L, 10));
+
+        // Assert
+        assertEquals(2, payload.length);
+    }
+
+    @Test
+    void decode_ShouldRejectTruncatedPayload() {
+        // Arrange
+        byte[] payload = EventCodec.encode(ProductEvent.created("TEST-SKU", 1_000_000L, 10));
+        byte[] truncated = {payload[0]};
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> EventCodec.decodeProduct(EventType.PRODUCT_CREATED, "TEST-SKU", truncated));
+    }
+
+    @Test
+    void headers_ShouldRoundTripTypeAndRejectUnknownVersion() {
+        // Act & Assert
+        assertEquals(EventType.INVENTORY_LOW_STOCK,
+                EventHeaders.readEventType(EventHeaders.eventType(EventType.INVENTORY_LOW_STOCK)));
+        assertTrue(EventHeaders.isSupportedVersion(EventHeaders.schemaVersion()));
+        assertFalse(EventHeaders.isSupportedVersion(new byte[]{(byte) (EventHeaders.CURRENT_VERSION + 1)}));
+        assertFalse(EventHeaders.isSupportedVersion(null));
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.events.benchmark;
+
+import com.example.events.EventCodec;
+import com.example.events.EventType;
+import com.example.events.InventoryEvent;
+import com.example.events.ProductEvent;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary payloads with the string messages they replaced, both for encode/decode cost and for
+ * bytes on the wire (printed by {@link #main}). The string variants include the UTF-8 conversion the
+ * StringSerializer used to do. Not part of the test run; start it from the IDE, or run
+ * {@code org.openjdk.jmh.Main EventCodecBenchmark} with the test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    private static final String SKU = "IPHONE-15-PRO-256";
+
+    private final ProductEvent productEvent = ProductEvent.created(SKU, 1_048_576L, 250);
+    private final InventoryEvent inventoryEvent = InventoryEvent.updated(SKU, 1_337);
+
+    private final byte[] productBinary = EventCodec.encode(productEvent);
+    private final byte[] inventoryBinary = EventCodec.encode(inventoryEvent);
+    private final byte[] productString = legacyProduct(productEvent);
+    private final byte[] inventoryString = legacyInventory(inventoryEvent);
+
+    @Benchmark
+    public byte[] productEncodeBinary() {
+        return EventCodec.encode(productEvent);
+    }
+
+    @Benchmark
+    public byte[] productEncodeString() {
+        return legacyProduct(productEvent);
+    }
+
+    @Benchmark
+    public ProductEvent productDecodeBinary() {
+        return EventCodec.decodeProduct(EventType.PRODUCT_CREATED, SKU, productBinary);
+    }
+
+    @Benchmark
+    public ProductEvent productDecodeString() {
+        String[] parts = new String(productString, StandardCharsets.UTF_8).split(":");
+        return ProductEvent.created(parts[1], 0L, Integer.parseInt(parts[2]));
+    }
+
+    @Benchmark
+    public byte[] inventoryEncodeBinary() {
+        return EventCodec.encode(inventoryEvent);
+    }
+
+    @Benchmark
+    public byte[] inventoryEncodeString() {
+        return legacyInventory(inventoryEvent);
+    }
+
+    @Benchmark
+    public InventoryEvent inventoryDecodeBinary() {
+        return EventCodec.decodeInventory(EventType.INVENTORY_UPDATED, SKU, inventoryBinary);
+    }
+
+    @Benchmark
+    public InventoryEvent inventoryDecodeString() {
+        String message = new String(inventoryString, StandardCharsets.UTF_8);
+        int separator = message.lastIndexOf(" - Quantity: ");
+        return InventoryEvent.updated(message.substring("Inventory updated: ".length(), separator),
+                Integer.parseInt(message.substring(separator + " - Quantity: ".length()).trim()));
+    }
+
+    private static byte[] legacyProduct(ProductEvent event) {
+        return ("CREATED:" + event.skuCode() + ":" + event.quantity()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] legacyInventory(InventoryEvent event) {
+        return ("Inventory updated: " + event.skuCode() + " - Quantity: " + event.quantity())
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        EventCodecBenchmark sizes = new EventCodecBenchmark();
+        int key = SKU.getBytes(StandardCharsets.UTF_8).length;
+        // Binary records also carry the SKU key and two one-byte headers (names included) on the wire.
+        int headers = "schema-version".length() + "event-type".length() + 2;
+        System.out.printf("product-events:   string %d bytes, binary %d bytes (+%d key, +%d headers)%n",
+                sizes.productString.length, sizes.productBinary.length, key, headers);
+        System.out.printf("inventory-events: string %d bytes, binary %d bytes (+%d key, +%d headers)%n",
+                sizes.inventoryString.length, sizes.inventoryBinary.length, key, headers);
+
+        Options options = new OptionsBuilder()
+                .include(EventCodecBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
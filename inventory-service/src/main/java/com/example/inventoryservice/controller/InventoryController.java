@@ -1,24 +1,41 @@
 package com.example.inventoryservice.controller;
 
+import com.example.inventoryservice.dto.InventoryImportResult;
 import com.example.inventoryservice.dto.InventoryRequest;
 import com.example.inventoryservice.dto.InventoryResponse;
-import com.example.inventoryservice.repository.InventoryRepository;
+import com.example.inventoryservice.dto.InventoryUpsertResult;
+import com.example.inventoryservice.dto.LocationStockRequest;
+import com.example.inventoryservice.dto.LocationStockResponse;
+import com.example.inventoryservice.dto.StockAvailability;
+import com.example.inventoryservice.service.InventoryImportService;
 import com.example.inventoryservice.service.InventoryService;
+import com.example.inventoryservice.service.StockStream;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/inventory")
 public class InventoryController {
 
-    private final InventoryRepository inventoryRepository;
     private final InventoryService inventoryService;
+    private final InventoryImportService inventoryImportService;
+    private final StockStream stockStream;
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(InventoryController.class);
 
-    public InventoryController(InventoryRepository inventoryRepository, InventoryService inventoryService) {
-        this.inventoryRepository = inventoryRepository;
+    public InventoryController(InventoryService inventoryService, InventoryImportService inventoryImportService,
+                               StockStream stockStream) {
         this.inventoryService = inventoryService;
+        this.inventoryImportService = inventoryImportService;
+        this.stockStream = stockStream;
     }
 
     @GetMapping
@@ -27,29 +44,110 @@ public class InventoryController {
         return inventoryService.isInStock(skuCode, quantity);
     }
 
+    /**
+     * Bulk variant of {@link #isInStock(String, Integer)}: one line per (skuCode, quantity), answered in request order.
+     */
+    @PostMapping("/availability")
+    public ResponseEntity<List<StockAvailability>> checkAvailability(@RequestBody List<InventoryRequest> lines) {
+        return ResponseEntity.ok(inventoryService.checkAvailability(lines));
+    }
+
     @PostMapping("/updateQuantity")
     public ResponseEntity<InventoryResponse> upsertInventory(@RequestBody InventoryRequest request) {
+        InventoryUpsertResult result = inventoryService.upsertInventory(request);
 
-        boolean alreadyExists = inventoryRepository.findBySkuCode(request.skuCode()).isPresent();
-
-        InventoryResponse response = inventoryService.upsertInventory(request);
-
-        if (!alreadyExists) {
+        if (result.created()) {
             log.info("Created new inventory entry for SKU: {}", request.skuCode());
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result.inventory());
         } else {
             log.info("Updated existing inventory for SKU: {}", request.skuCode());
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(result.inventory());
         }
     }
 
+    /**
+     * Adds stock at one location, for {@code inventory.locations.enabled}; the SKU's total grows by the same amount.
+     */
+    @PostMapping("/locations/updateQuantity")
+    public ResponseEntity<InventoryResponse> upsertLocationInventory(@RequestBody LocationStockRequest request) {
+        return ResponseEntity.ok(inventoryService.upsertLocationInventory(request));
+    }
+
+    @GetMapping("/locations")
+    public ResponseEntity<List<LocationStockResponse>> getInventoryLocations(@RequestParam String skuCode) {
+        return ResponseEntity.ok(inventoryService.getInventoryLocations(skuCode));
+    }
+
     @GetMapping("/skuCode")
     public ResponseEntity<InventoryResponse> getInventoryBySkuCode(@RequestParam String skuCode) {
         return ResponseEntity.ok(inventoryService.getInventoryBySkuCode(skuCode));
     }
 
+    /**
+     * Bulk variant of {@link #getInventoryBySkuCode(String)}. Unknown SKUs are simply absent from the result.
+     */
+    @PostMapping("/skuCodes")
+    public ResponseEntity<List<InventoryResponse>> getInventoryBySkuCodes(@RequestBody List<String> skuCodes) {
+        return ResponseEntity.ok(inventoryService.getInventoryBySkuCodes(skuCodes));
+    }
+
+    /**
+     * Server-Sent Events stream of {@code stock} events ({@code {"skuCode", "quantity"}}) for the given SKUs: their
+     * current levels first, then every change. Replaces polling {@link #getInventoryBySkuCode(String)}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStockLevels(@RequestParam List<String> skuCode) {
+        return stockStream.subscribe(skuCode);
+    }
+
     @PostMapping("/decrease")
     public ResponseEntity<InventoryResponse> decreaseInventory(@RequestBody InventoryRequest request) {
         return ResponseEntity.ok(inventoryService.decreaseInventory(request));
     }
+
+    /**
+     * Atomically takes the requested quantity if it is available. Responds 409 when stock is short
+     * and 404 for unknown SKUs, so callers need no separate availability check.
+     */
+    @PostMapping("/reserve")
+    public ResponseEntity<InventoryResponse> reserveInventory(@RequestBody InventoryRequest request) {
+        return ResponseEntity.ok(inventoryService.reserveInventory(request));
+    }
+
+    /**
+     * All-or-nothing reservation of several lines in one transaction: either every line is taken,
+     * or nothing is and the first failing line decides between 409 and 404.
+     */
+    @PostMapping("/reserve/batch")
+    public ResponseEntity<List<InventoryResponse>> reserveInventoryBatch(@RequestBody List<InventoryRequest> requests) {
+        return ResponseEntity.ok(inventoryService.reserveInventoryBatch(requests));
+    }
+
+    /**
+     * Sets stock counts in bulk from a {@code text/csv} ({@code skuCode,quantity}) or {@code application/x-ndjson}
+     * body, streamed in chunks. A malformed row answers 400; chunks before it stay applied.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<InventoryImportResult> importInventory(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                                 InputStream body) throws IOException {
+        InventoryImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? InventoryImportService.Format.CSV
+                : InventoryImportService.Format.NDJSON;
+        return ResponseEntity.ok(inventoryImportService.importInventory(body, format));
+    }
+
+    /**
+     * Sets the quantity at or below which a low-stock alert is sent. Alerts fire once per crossing, not per decrement.
+     */
+    @PutMapping("/lowStockThreshold")
+    public ResponseEntity<Void> updateLowStockThreshold(@RequestParam String skuCode, @RequestParam Integer threshold) {
+        inventoryService.updateLowStockThreshold(skuCode, threshold);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleIllegalArgument(IllegalArgumentException e) {
+        return e.getMessage();
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.inventoryservice.controller;
+
+import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.ReservationResponse;
+import com.example.inventoryservice.service.ReservationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory/reservations")
+public class ReservationController {
+
+    private final ReservationService reservationService;
+
+    public ReservationController(ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    /**
+     * Holds stock until the reservation is confirmed or released, or its TTL runs out.
+     * Responds 409 when stock is short and 404 for unknown SKUs.
+     */
+    @PostMapping
+    public ResponseEntity<ReservationResponse> reserve(@RequestBody InventoryRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.reserve(request));
+    }
+
+    /** One reservation per SKU for a whole cart, all or none; a short or unknown line answers as above. */
+    @PostMapping("/batch")
+    public ResponseEntity<List<ReservationResponse>> reserveAll(@RequestBody List<InventoryRequest> requests) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservationService.reserveAll(requests));
+    }
+
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<ReservationResponse> confirm(@PathVariable Long id) {
+        return ResponseEntity.ok(reservationService.confirm(id));
+    }
+
+    @PostMapping("/{id}/release")
+    public ResponseEntity<ReservationResponse> release(@PathVariable Long id) {
+        return ResponseEntity.ok(reservationService.release(id));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleIllegalArgument(IllegalArgumentException e) {
+        return e.getMessage();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.inventoryservice.dto;
+
+public record InventoryImportResult(
+        long rows,
+        long changed,
+        int chunks,
+        long elapsedMs,
+        long rowsPerSecond
+) {}
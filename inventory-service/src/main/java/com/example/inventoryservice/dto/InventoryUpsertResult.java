@@ -0,0 +1,7 @@
+package com.example.inventoryservice.dto;
+
+public record InventoryUpsertResult(
+        InventoryResponse inventory,
+        boolean created
+) {
+}
@@ -0,0 +1,7 @@
+package com.example.inventoryservice.dto;
+
+public record LocationStockRequest(
+        String skuCode,
+        String locationCode,
+        Integer quantity
+) {}
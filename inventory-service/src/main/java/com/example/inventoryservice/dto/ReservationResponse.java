@@ -0,0 +1,13 @@
+package com.example.inventoryservice.dto;
+
+import com.example.inventoryservice.model.ReservationStatus;
+
+import java.time.Instant;
+
+public record ReservationResponse(
+        Long reservationId,
+        String skuCode,
+        Integer quantity,
+        ReservationStatus status,
+        Instant expiresAt
+) {}
@@ -0,0 +1,7 @@
+package com.example.inventoryservice.dto;
+
+public record StockAvailability(
+        String skuCode,
+        Integer quantity,
+        boolean inStock
+) {}
@@ -0,0 +1,6 @@
+package com.example.inventoryservice.dto;
+
+public record StockLevel(
+        String skuCode,
+        Integer quantity
+) {}
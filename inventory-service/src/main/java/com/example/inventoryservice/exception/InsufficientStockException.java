@@ -1,5 +1,9 @@
 package com.example.inventoryservice.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
 public class InsufficientStockException extends RuntimeException {
     public InsufficientStockException(String message) {
         super(message);
@@ -1,7 +1,20 @@
 package com.example.inventoryservice.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
 public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(String message) {
         super(message);
     }
+
+    private ResourceNotFoundException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+
+    // For lookups where a miss is an expected answer, not a bug; skips filling in the stack trace.
+    public static ResourceNotFoundException expected(String message) {
+        return new ResourceNotFoundException(message, false);
+    }
 }
@@ -0,0 +1,12 @@
+package com.example.inventoryservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// The request needs a different inventory.ledger / inventory.locations setting than this deployment runs with.
+@ResponseStatus(HttpStatus.CONFLICT)
+public class StockModeConflictException extends RuntimeException {
+    public StockModeConflictException(String message) {
+        super(message);
+    }
+}
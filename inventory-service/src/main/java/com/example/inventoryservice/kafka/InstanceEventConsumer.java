@@ -0,0 +1,97 @@
+package com.example.inventoryservice.kafka;
+
+import com.example.events.EventCodec;
+import com.example.events.EventType;
+import com.example.events.InventoryEvent;
+import com.example.inventoryservice.service.KnownSkuFilter;
+import com.example.inventoryservice.service.StockStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds this instance's known-SKU filter and stock streams, so every instance needs its own group. The group starts
+ * at the end of each partition, and that end is where live events begin. The filter is built by a scan that runs
+ * after this bean is created and may finish before or after the partitions are assigned, so on first assignment the
+ * listener also seeks back to {@code inventory.instance-events.rewind-ms} before this bean was created. Records
+ * before the live start only feed the filter; the streams' snapshots are read later and already hold them.
+ */
+@Component
+public class InstanceEventConsumer implements ConsumerSeekAware {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceEventConsumer.class);
+
+    private final KnownSkuFilter knownSkuFilter;
+    private final StockStream stockStream;
+    // Taken before the filter's scan; the rewind also covers producers whose clocks run behind this one.
+    private final long rewindTo;
+    private final Map<TopicPartition, Long> liveFrom = new ConcurrentHashMap<>();
+
+    public InstanceEventConsumer(KnownSkuFilter knownSkuFilter, StockStream stockStream,
+                                 @Value("${inventory.instance-events.rewind-ms:60000}") long rewindMs) {
+        this.knownSkuFilter = knownSkuFilter;
+        this.stockStream = stockStream;
+        this.rewindTo = System.currentTimeMillis() - rewindMs;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        List<TopicPartition> rewound = new ArrayList<>();
+        assignments.forEach((partition, position) -> {
+            if (liveFrom.putIfAbsent(partition, position) == null) {
+                rewound.add(partition);
+            }
+        });
+        if (!rewound.isEmpty()) {
+            callback.seekToTimestamp(rewound, rewindTo);
+            log.info("Rewound {} partitions for the known-SKU filter", rewound.size());
+        }
+    }
+
+    @KafkaListener(topics = {"product-events", "inventory-events"},
+            groupId = "inventory-instance-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest", batch = "true")
+    public void consume(List<ConsumerRecord<String, byte[]>> records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            EventType type = EventRecords.readableType(record);
+            if (type == null) {
+                continue;
+            }
+            boolean live = record.offset() >= liveFrom.getOrDefault(
+                    new TopicPartition(record.topic(), record.partition()), 0L);
+            try {
+                switch (type) {
+                    case PRODUCT_CREATED -> knownSkuFilter.add(record.key());
+                    case INVENTORY_UPDATED -> {
+                        knownSkuFilter.add(record.key());
+                        if (live) {
+                            InventoryEvent event = EventCodec.decodeInventory(type, record.key(), record.value());
+                            stockStream.publish(event.skuCode(), event.quantity());
+                        }
+                    }
+                    case INVENTORY_BATCH_UPDATED -> {
+                        for (InventoryEvent change : EventCodec.decodeInventoryBatch(record.value()).changes()) {
+                            knownSkuFilter.add(change.skuCode());
+                            if (live) {
+                                stockStream.publish(change.skuCode(), change.quantity());
+                            }
+                        }
+                    }
+                    default -> { }
+                }
+            } catch (IllegalArgumentException e) {
+                log.warn("Unreadable {} event for {}: {}", type, record.key(), e.getMessage());
+            }
+        }
+    }
+}
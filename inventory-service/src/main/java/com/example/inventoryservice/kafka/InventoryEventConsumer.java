@@ -1,15 +1,25 @@
 package com.example.inventoryservice.kafka;
 
+import com.example.events.EventCodec;
+import com.example.events.EventType;
+import com.example.events.ProductEvent;
 import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.InventoryResponse;
 import com.example.inventoryservice.service.InventoryService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 public class InventoryEventConsumer {
 
+    private static final String PRODUCT_EVENTS = "product-events";
+
     private final InventoryService inventoryService;
     private static final Logger log = LoggerFactory.getLogger(InventoryEventConsumer.class);
 
@@ -18,25 +28,35 @@ public class InventoryEventConsumer {
     }
 
     @KafkaListener(topics = "inventory-events", groupId = "inventory-group")
-    public void consume(String message) {
-        log.info("Received inventory event: {}", message);
+    public void consume(ConsumerRecord<String, byte[]> record) {
+        log.info("Received inventory event {} for {}", EventRecords.readableType(record), record.key());
     }
 
-    @KafkaListener(topics = "product-events", groupId = "inventory-group")
-    public void consumeProductEvents(String message) {
-        log.info("Получено событие от Product Service: {}", message);
-
-        try {
-            if (message.startsWith("CREATED:")) {
-                String[] parts = message.split(":");
-                String skuCode = parts[1];
-                Integer quantity = Integer.parseInt(parts[2]);
-
-                inventoryService.upsertInventory(new InventoryRequest(skuCode, quantity));
-                log.info("Инвентарь для {} успешно инициализирован (кол-во: {})", skuCode, quantity);
+    // Batches are applied in one transaction; the offsets are committed only after the listener returns, i.e.
+    // after the DB commit. A failed upsert is rethrown so the container redelivers the whole batch, and records
+    // the database already holds are skipped by their offset.
+    @KafkaListener(topics = PRODUCT_EVENTS, groupId = "inventory-group", batch = "true",
+            concurrency = "${inventory.product-events.concurrency}",
+            properties = "max.poll.records=${inventory.product-events.max-poll-records}")
+    public void consumeProductEvents(List<ConsumerRecord<String, byte[]>> records) {
+        List<InventoryService.EventLine> created = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (EventRecords.readableType(record) != EventType.PRODUCT_CREATED) {
+                continue;
             }
-        } catch (Exception e) {
-            log.error("Ошибка при обработке события Kafka: {}", e.getMessage());
+            try {
+                ProductEvent event = EventCodec.decodeProduct(EventType.PRODUCT_CREATED, record.key(), record.value());
+                created.add(new InventoryService.EventLine(record.partition(), record.offset(),
+                        new InventoryRequest(event.skuCode(), event.quantity())));
+            } catch (IllegalArgumentException e) {
+                log.error("Ошибка при обработке события Kafka для {}: {}", record.key(), e.getMessage());
+            }
+        }
+        if (created.isEmpty()) {
+            return;
         }
+
+        List<InventoryResponse> upserted = inventoryService.upsertInventoryBatch(PRODUCT_EVENTS, created);
+        log.info("Инвентарь инициализирован для {} SKU из {} событий Product Service", upserted.size(), records.size());
     }
 }
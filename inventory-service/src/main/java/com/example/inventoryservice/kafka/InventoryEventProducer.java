@@ -1,27 +1,80 @@
 package com.example.inventoryservice.kafka;
 
+import com.example.events.EventCodec;
+import com.example.events.EventHeaders;
+import com.example.events.EventType;
+import com.example.events.InventoryBatchEvent;
+import com.example.events.InventoryEvent;
+import com.example.inventoryservice.dto.InventoryResponse;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.utils.Utils;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class InventoryEventProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private static final String TOPIC = "inventory-events";
+    static final int BATCH_EVENT_CHANGES = 2000;
 
-    public InventoryEventProducer(KafkaTemplate<String, String> kafkaTemplate) {
+    public InventoryEventProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
 
     public void sendInventoryUpdatedEvent(String skuCode, int quantity) {
-        kafkaTemplate.send(TOPIC, "Inventory updated: " + skuCode + " - Quantity: " + quantity);
+        send(InventoryEvent.updated(skuCode, quantity));
     }
 
     public void sendInventoryLowStockEvent(String skuCode, int quantity) {
-        kafkaTemplate.send(TOPIC, "Low stock alert: " + skuCode + " - Quantity: " + quantity);
+        send(InventoryEvent.lowStock(skuCode, quantity));
     }
 
     public void sendInventoryOutOfStockEvent(String skuCode) {
-        kafkaTemplate.send(TOPIC, "Out of stock: " + skuCode);
+        send(InventoryEvent.outOfStock(skuCode));
+    }
+
+    // Bulk changes are split by the partition each SKU's own keyed events go to, so a batch record is ordered with
+    // the other changes of every SKU it carries. Each partition's share travels in records of at most
+    // BATCH_EVENT_CHANGES SKUs, well under the 1 MB default record size limit for ordinary SKU codes.
+    public void sendInventoryBatchUpdatedEvent(List<InventoryResponse> changes) {
+        int partitions = kafkaTemplate.partitionsFor(TOPIC).size();
+        Map<Integer, List<InventoryEvent>> byPartition = new HashMap<>();
+        for (InventoryResponse change : changes) {
+            byPartition.computeIfAbsent(partitionOf(change.skuCode(), partitions), partition -> new ArrayList<>())
+                    .add(InventoryEvent.updated(change.skuCode(), change.quantity()));
+        }
+        byPartition.forEach((partition, events) -> {
+            for (int from = 0; from < events.size(); from += BATCH_EVENT_CHANGES) {
+                List<InventoryEvent> batch = events.subList(from, Math.min(from + BATCH_EVENT_CHANGES, events.size()));
+                kafkaTemplate.send(new ProducerRecord<>(TOPIC, partition, batch.get(0).skuCode(),
+                        EventCodec.encode(new InventoryBatchEvent(batch)), headers(EventType.INVENTORY_BATCH_UPDATED)));
+            }
+        });
+    }
+
+    // The default partitioner's choice for a String key.
+    static int partitionOf(String skuCode, int partitions) {
+        return Utils.toPositive(Utils.murmur2(skuCode.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    // Keyed by SKU so all changes of one SKU stay on one partition and are consumed in order.
+    private void send(InventoryEvent event) {
+        kafkaTemplate.send(new ProducerRecord<>(TOPIC, null, event.skuCode(), EventCodec.encode(event),
+                headers(event.type())));
+    }
+
+    private static List<Header> headers(EventType type) {
+        return List.of(
+                new RecordHeader(EventHeaders.SCHEMA_VERSION, EventHeaders.schemaVersion()),
+                new RecordHeader(EventHeaders.EVENT_TYPE, EventHeaders.eventType(type)));
     }
 }
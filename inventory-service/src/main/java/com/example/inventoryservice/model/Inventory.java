@@ -5,6 +5,9 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "inventory")
 public class Inventory {
+    // Matches the column default in V4__inventory_low_stock_threshold.sql.
+    public static final int DEFAULT_LOW_STOCK_THRESHOLD = 5;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -15,6 +18,9 @@ public class Inventory {
     @Column(nullable = false)
     private int quantity;
 
+    @Column(nullable = false)
+    private int lowStockThreshold = DEFAULT_LOW_STOCK_THRESHOLD;
+
     public Inventory(Long id, String skuCode, int quantity) {
         this.id = id;
         this.skuCode = skuCode;
@@ -47,12 +53,21 @@ public class Inventory {
         this.quantity = quantity;
     }
 
+    public int getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(int lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
     @Override
     public String toString() {
         return "Inventory{" +
                 "id=" + id +
                 ", skuCode='" + skuCode + '\'' +
                 ", quantity=" + quantity +
+                ", lowStockThreshold=" + lowStockThreshold +
                 '}';
     }
 }
@@ -0,0 +1,8 @@
+package com.example.inventoryservice.model;
+
+public enum ReservationStatus {
+    PENDING,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
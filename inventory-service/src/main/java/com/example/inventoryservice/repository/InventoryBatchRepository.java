@@ -0,0 +1,213 @@
+package com.example.inventoryservice.repository;
+
+import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.StockAvailability;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC for statements that do not fit the entity model: multi-row VALUES joins and upserts, COPY-based
+ * imports, and the stock ledger's batch write-behind, where going through the entity manager would only add dirty checking.
+ */
+@Repository
+public class InventoryBatchRepository {
+
+    // Two parameters per row keeps a chunk far below PostgreSQL's 65535 bind parameter limit.
+    static final int UPSERT_CHUNK_SIZE = 1000;
+
+    static final int SCAN_FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Answers every (sku, quantity) line with one statement, joining the lines as a VALUES list against inventory.
+     * Lines are checked independently and come back in request order; unknown SKUs are not in stock.
+     */
+    public List<StockAvailability> checkAvailability(List<InventoryRequest> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT v.sku_code, v.quantity, COALESCE(i.quantity >= v.quantity, FALSE) AS in_stock FROM (VALUES ");
+        Object[] args = new Object[lines.size() * 3];
+        for (int n = 0; n < lines.size(); n++) {
+            sql.append(n == 0 ? "" : ", ").append("(?::int, ?::varchar, ?::int)");
+            args[n * 3] = n;
+            args[n * 3 + 1] = lines.get(n).skuCode();
+            args[n * 3 + 2] = lines.get(n).quantity();
+        }
+        sql.append(") AS v(line, sku_code, quantity) LEFT JOIN inventory i ON i.sku_code = v.sku_code ORDER BY v.line");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new StockAvailability(
+                rs.getString("sku_code"), rs.getInt("quantity"), rs.getBoolean("in_stock")), args);
+    }
+
+    /**
+     * Adds each quantity to its SKU's row, creating missing rows, with one multi-row {@code INSERT ... ON CONFLICT}
+     * per {@value #UPSERT_CHUNK_SIZE} SKUs. SKUs must be distinct, since one statement cannot touch a row twice;
+     * a sorted map also keeps the row lock order stable across concurrent batches.
+     */
+    public List<InventoryResponse> upsertQuantities(SortedMap<String, Integer> quantitiesBySku) {
+        List<InventoryResponse> upserted = new ArrayList<>(quantitiesBySku.size());
+        List<Map.Entry<String, Integer>> lines = new ArrayList<>(quantitiesBySku.entrySet());
+        for (int from = 0; from < lines.size(); from += UPSERT_CHUNK_SIZE) {
+            List<Map.Entry<String, Integer>> chunk = lines.subList(from, Math.min(from + UPSERT_CHUNK_SIZE, lines.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO inventory (sku_code, quantity) VALUES ");
+            Object[] args = new Object[chunk.size() * 2];
+            for (int n = 0; n < chunk.size(); n++) {
+                sql.append(n == 0 ? "" : ", ").append("(?, ?)");
+                args[n * 2] = chunk.get(n).getKey();
+                args[n * 2 + 1] = chunk.get(n).getValue();
+            }
+            sql.append(" ON CONFLICT (sku_code) DO UPDATE SET quantity = inventory.quantity + EXCLUDED.quantity")
+                    .append(" RETURNING id, sku_code, quantity");
+
+            upserted.addAll(jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new InventoryResponse(
+                    rs.getLong("id"), rs.getString("sku_code"), rs.getInt("quantity")), args));
+        }
+        return upserted;
+    }
+
+    /** Multi-row {@link InventoryRepository#insertIfMissing}, chunked like {@link #upsertQuantities}. */
+    public void insertMissing(SortedSet<String> skuCodes) {
+        List<String> lines = new ArrayList<>(skuCodes);
+        for (int from = 0; from < lines.size(); from += UPSERT_CHUNK_SIZE) {
+            List<String> chunk = lines.subList(from, Math.min(from + UPSERT_CHUNK_SIZE, lines.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO inventory (sku_code, quantity) VALUES ");
+            for (int n = 0; n < chunk.size(); n++) {
+                sql.append(n == 0 ? "" : ", ").append("(?, 0)");
+            }
+            sql.append(" ON CONFLICT (sku_code) DO NOTHING");
+            jdbcTemplate.update(sql.toString(), chunk.toArray());
+        }
+    }
+
+    /**
+     * Locks the given partitions' rows in {@code consumed_offset}, creating missing ones, and returns the last offset
+     * applied from each; -1 when none was. Holding the locks until commit keeps a batch redelivered to another
+     * consumer during a rebalance from being applied alongside the first delivery.
+     */
+    public Map<Integer, Long> lockAppliedOffsets(String topic, SortedSet<Integer> partitions) {
+        StringBuilder insert = new StringBuilder("INSERT INTO consumed_offset (topic, partition_id, last_offset) VALUES ");
+        StringBuilder select = new StringBuilder("SELECT partition_id, last_offset FROM consumed_offset " +
+                "WHERE topic = ? AND partition_id IN (");
+        Object[] insertArgs = new Object[partitions.size() * 2];
+        Object[] selectArgs = new Object[partitions.size() + 1];
+        selectArgs[0] = topic;
+        int n = 0;
+        for (Integer partition : partitions) {
+            insert.append(n == 0 ? "" : ", ").append("(?, ?, -1)");
+            select.append(n == 0 ? "" : ", ").append("?");
+            insertArgs[n * 2] = topic;
+            insertArgs[n * 2 + 1] = partition;
+            selectArgs[n + 1] = partition;
+            n++;
+        }
+        jdbcTemplate.update(insert.append(" ON CONFLICT (topic, partition_id) DO NOTHING").toString(), insertArgs);
+
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query(select.append(") ORDER BY partition_id FOR UPDATE").toString(),
+                (RowCallbackHandler) rs -> applied.put(rs.getInt("partition_id"), rs.getLong("last_offset")), selectArgs);
+        return applied;
+    }
+
+    /** Records the last offset applied per partition; the rows must be locked by {@link #lockAppliedOffsets}. */
+    public void markApplied(String topic, Map<Integer, Long> lastOffsets) {
+        StringBuilder sql = new StringBuilder("UPDATE consumed_offset c SET last_offset = v.last_offset FROM (VALUES ");
+        Object[] args = new Object[lastOffsets.size() * 2 + 1];
+        int n = 0;
+        for (Map.Entry<Integer, Long> partition : lastOffsets.entrySet()) {
+            sql.append(n == 0 ? "" : ", ").append("(?::int, ?::bigint)");
+            args[n * 2] = partition.getKey();
+            args[n * 2 + 1] = partition.getValue();
+            n++;
+        }
+        args[args.length - 1] = topic;
+        sql.append(") AS v(partition_id, last_offset) WHERE c.topic = ? AND c.partition_id = v.partition_id");
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    /**
+     * Loads one chunk of {@code sku_code,quantity} CSV rows into a session temp table via COPY and merges it into
+     * inventory in one statement; the last row wins for a SKU repeated within the chunk. Must run inside a
+     * transaction, which also empties the temp table on commit. Returns only the rows that actually changed.
+     */
+    public List<InventoryResponse> copyAndMerge(InputStream csv) {
+        return jdbcTemplate.execute((ConnectionCallback<List<InventoryResponse>>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMP TABLE IF NOT EXISTS inventory_import (" +
+                        "line BIGSERIAL, sku_code VARCHAR(255) NOT NULL, quantity INTEGER NOT NULL) ON COMMIT DELETE ROWS");
+            }
+            try {
+                connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn("COPY inventory_import (sku_code, quantity) FROM STDIN WITH (FORMAT csv)", csv);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            List<InventoryResponse> changed = new ArrayList<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                         "INSERT INTO inventory (sku_code, quantity) " +
+                         "SELECT DISTINCT ON (sku_code) sku_code, quantity FROM inventory_import ORDER BY sku_code, line DESC " +
+                         "ON CONFLICT (sku_code) DO UPDATE SET quantity = EXCLUDED.quantity " +
+                         "WHERE inventory.quantity <> EXCLUDED.quantity " +
+                         "RETURNING id, sku_code, quantity")) {
+                while (rs.next()) {
+                    changed.add(new InventoryResponse(rs.getLong("id"), rs.getString("sku_code"), rs.getInt("quantity")));
+                }
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Streams every SKU code to {@code consumer} without loading them all; the driver only uses a cursor with
+     * a fetch size inside a transaction, hence the read-only one here.
+     */
+    @Transactional(readOnly = true)
+    public long forEachSkuCode(Consumer<String> consumer) {
+        long[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT sku_code FROM inventory");
+            statement.setFetchSize(SCAN_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            consumer.accept(rs.getString(1));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    public void updateQuantities(Map<Long, Integer> quantitiesById) {
+        if (quantitiesById.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(quantitiesById.size());
+        quantitiesById.forEach((id, quantity) -> rows.add(new Object[]{quantity, id}));
+        jdbcTemplate.batchUpdate("UPDATE inventory SET quantity = ? WHERE id = ?", rows);
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.inventoryservice.repository;
+
+import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.LocationStockResponse;
+import com.example.inventoryservice.dto.StockAvailability;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Per-location stock in {@code inventory_location}, used with {@code inventory.locations.enabled}. Statements that
+ * take stock expect the rows to be locked first with {@link #lockLocations}, inside the same transaction.
+ */
+@Repository
+public class InventoryLocationRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryLocationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks the SKU's locations that have stock, in location order. With {@code skipLocked} rows other
+     * transactions hold are left out instead of waited for.
+     */
+    public List<LocationQuantity> lockLocations(String skuCode, boolean skipLocked) {
+        return jdbcTemplate.query("SELECT location_code, quantity FROM inventory_location " +
+                        "WHERE sku_code = ? AND quantity > 0 ORDER BY location_code FOR UPDATE" +
+                        (skipLocked ? " SKIP LOCKED" : ""),
+                (rs, rowNum) -> new LocationQuantity(rs.getString("location_code"), rs.getInt("quantity")), skuCode);
+    }
+
+    /**
+     * Applies a plan over rows locked by {@link #lockLocations} and returns the SKU's total across all its
+     * locations afterwards: the pre-statement sum less what was taken, since a statement does not see its own
+     * changes.
+     */
+    public InventoryResponse take(String skuCode, List<LocationQuantity> plan) {
+        StringBuilder sql = new StringBuilder(
+                "WITH taken AS (UPDATE inventory_location l SET quantity = l.quantity - v.quantity FROM (VALUES ");
+        Object[] args = new Object[plan.size() * 2 + 3];
+        for (int n = 0; n < plan.size(); n++) {
+            sql.append(n == 0 ? "" : ", ").append("(?::varchar, ?::int)");
+            args[n * 2] = plan.get(n).locationCode();
+            args[n * 2 + 1] = plan.get(n).quantity();
+        }
+        sql.append(") AS v(location_code, quantity) WHERE l.sku_code = ? AND l.location_code = v.location_code")
+                .append(" RETURNING v.quantity) ")
+                .append("SELECT i.id, i.sku_code, (SELECT COALESCE(SUM(quantity), 0) FROM inventory_location")
+                .append(" WHERE sku_code = i.sku_code) - (SELECT COALESCE(SUM(quantity), 0) FROM taken) AS quantity")
+                .append(" FROM inventory i WHERE i.sku_code = ?");
+        args[plan.size() * 2] = skuCode;
+        args[plan.size() * 2 + 1] = skuCode;
+        args[plan.size() * 2 + 2] = skuCode;
+        return jdbcTemplate.queryForObject(sql.toString(), (rs, rowNum) -> new InventoryResponse(
+                rs.getLong("id"), rs.getString("sku_code"), rs.getInt("quantity")), args);
+    }
+
+    public void add(String skuCode, String locationCode, int quantity) {
+        jdbcTemplate.update("INSERT INTO inventory_location (sku_code, location_code, quantity) VALUES (?, ?, ?) " +
+                "ON CONFLICT (sku_code, location_code) DO UPDATE SET quantity = inventory_location.quantity + EXCLUDED.quantity",
+                skuCode, locationCode, quantity);
+    }
+
+    /** Multi-row {@link #add} into one location, chunked like {@link InventoryBatchRepository#upsertQuantities}. */
+    public void addAll(SortedMap<String, Integer> quantitiesBySku, String locationCode) {
+        List<Map.Entry<String, Integer>> lines = new ArrayList<>(quantitiesBySku.entrySet());
+        for (int from = 0; from < lines.size(); from += InventoryBatchRepository.UPSERT_CHUNK_SIZE) {
+            List<Map.Entry<String, Integer>> chunk =
+                    lines.subList(from, Math.min(from + InventoryBatchRepository.UPSERT_CHUNK_SIZE, lines.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO inventory_location (sku_code, location_code, quantity) VALUES ");
+            Object[] args = new Object[chunk.size() * 3];
+            for (int n = 0; n < chunk.size(); n++) {
+                sql.append(n == 0 ? "" : ", ").append("(?, ?, ?)");
+                args[n * 3] = chunk.get(n).getKey();
+                args[n * 3 + 1] = locationCode;
+                args[n * 3 + 2] = chunk.get(n).getValue();
+            }
+            sql.append(" ON CONFLICT (sku_code, location_code) DO UPDATE SET quantity = inventory_location.quantity + EXCLUDED.quantity");
+            jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+
+    public List<LocationStockResponse> findBySkuCode(String skuCode) {
+        return jdbcTemplate.query("SELECT sku_code, location_code, quantity FROM inventory_location " +
+                        "WHERE sku_code = ? ORDER BY location_code",
+                (rs, rowNum) -> new LocationStockResponse(
+                        rs.getString("sku_code"), rs.getString("location_code"), rs.getInt("quantity")), skuCode);
+    }
+
+    /** Records a pending reservation and where its units were taken from; returns the reservation id. */
+    public long placeReservation(String skuCode, int quantity, Instant expiresAt, List<LocationQuantity> plan) {
+        Long id = jdbcTemplate.queryForObject("INSERT INTO reservation (sku_code, quantity, status, expires_at, created_at) " +
+                "VALUES (?, ?, 'PENDING', ?, now()) RETURNING id", Long.class, skuCode, quantity, Timestamp.from(expiresAt));
+        StringBuilder sql = new StringBuilder("INSERT INTO reservation_allocation (reservation_id, location_code, quantity) VALUES ");
+        Object[] args = new Object[plan.size() * 3];
+        for (int n = 0; n < plan.size(); n++) {
+            sql.append(n == 0 ? "" : ", ").append("(?, ?, ?)");
+            args[n * 3] = id;
+            args[n * 3 + 1] = plan.get(n).locationCode();
+            args[n * 3 + 2] = plan.get(n).quantity();
+        }
+        jdbcTemplate.update(sql.toString(), args);
+        return id;
+    }
+
+    /**
+     * Puts the whole stock of SKUs without any location rows into {@code locationCode}. Instances starting together
+     * may both try; the row one of them inserted first is kept.
+     */
+    public int seedMissing(String locationCode) {
+        return jdbcTemplate.update("INSERT INTO inventory_location (sku_code, location_code, quantity) " +
+                "SELECT i.sku_code, ?, i.quantity FROM inventory i " +
+                "WHERE NOT EXISTS (SELECT 1 FROM inventory_location l WHERE l.sku_code = i.sku_code) " +
+                "ON CONFLICT (sku_code, location_code) DO NOTHING", locationCode);
+    }
+
+    /** Each SKU's stock summed over its locations; SKUs without any location rows are left out. */
+    public Map<String, Integer> totals(Collection<String> skuCodes) {
+        Map<String, Integer> totals = new HashMap<>();
+        List<String> skus = new ArrayList<>(skuCodes);
+        for (int from = 0; from < skus.size(); from += InventoryBatchRepository.UPSERT_CHUNK_SIZE) {
+            List<String> chunk = skus.subList(from, Math.min(from + InventoryBatchRepository.UPSERT_CHUNK_SIZE, skus.size()));
+            jdbcTemplate.query("SELECT sku_code, SUM(quantity)::int AS quantity FROM inventory_location WHERE sku_code IN (" +
+                            String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") GROUP BY sku_code",
+                    rs -> {
+                        totals.put(rs.getString("sku_code"), rs.getInt("quantity"));
+                    }, chunk.toArray());
+        }
+        return totals;
+    }
+
+    /** {@link InventoryBatchRepository#checkAvailability} against the sum of each SKU's locations. */
+    public List<StockAvailability> checkAvailability(List<InventoryRequest> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT v.sku_code, v.quantity, COALESCE(t.quantity >= v.quantity, FALSE) AS in_stock FROM (VALUES ");
+        Object[] args = new Object[lines.size() * 3];
+        for (int n = 0; n < lines.size(); n++) {
+            sql.append(n == 0 ? "" : ", ").append("(?::int, ?::varchar, ?::int)");
+            args[n * 3] = n;
+            args[n * 3 + 1] = lines.get(n).skuCode();
+            args[n * 3 + 2] = lines.get(n).quantity();
+        }
+        sql.append(") AS v(line, sku_code, quantity) LEFT JOIN LATERAL (SELECT SUM(l.quantity) AS quantity")
+                .append(" FROM inventory_location l WHERE l.sku_code = v.sku_code) t ON TRUE ORDER BY v.line");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new StockAvailability(
+                rs.getString("sku_code"), rs.getInt("quantity"), rs.getBoolean("in_stock")), args);
+    }
+
+    /**
+     * Queues {@code {quantity, reserved}} deltas for SKU totals in {@code inventory_total_delta}. Only inserts, so
+     * decrements of one SKU do not wait for each other on its {@code inventory} row; {@link #foldTotalDeltas}
+     * applies them later.
+     */
+    public void appendTotalDeltas(SortedMap<String, int[]> deltasBySku) {
+        List<Map.Entry<String, int[]>> lines = new ArrayList<>(deltasBySku.entrySet());
+        for (int from = 0; from < lines.size(); from += InventoryBatchRepository.UPSERT_CHUNK_SIZE) {
+            List<Map.Entry<String, int[]>> chunk =
+                    lines.subList(from, Math.min(from + InventoryBatchRepository.UPSERT_CHUNK_SIZE, lines.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO inventory_total_delta (sku_code, quantity, reserved) VALUES ");
+            Object[] args = new Object[chunk.size() * 3];
+            for (int n = 0; n < chunk.size(); n++) {
+                sql.append(n == 0 ? "" : ", ").append("(?, ?, ?)");
+                args[n * 3] = chunk.get(n).getKey();
+                args[n * 3 + 1] = chunk.get(n).getValue()[0];
+                args[n * 3 + 2] = chunk.get(n).getValue()[1];
+            }
+            jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+
+    /**
+     * Deletes up to {@code limit} queued deltas, oldest first, and adds them to the SKU totals; must run inside a
+     * transaction. Rows another folder has claimed are skipped, and the totals are locked in SKU order before they
+     * are updated, so folders on several instances neither fold a delta twice nor deadlock. Returns the number of
+     * deltas folded.
+     */
+    public int foldTotalDeltas(int limit) {
+        int[] folded = new int[1];
+        SortedMap<String, int[]> sums = new TreeMap<>();
+        jdbcTemplate.query("WITH claimed AS (SELECT id FROM inventory_total_delta ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED), " +
+                        "folded AS (DELETE FROM inventory_total_delta d USING claimed c WHERE d.id = c.id " +
+                        "RETURNING d.sku_code, d.quantity, d.reserved) " +
+                        "SELECT sku_code, SUM(quantity)::int AS quantity, SUM(reserved)::int AS reserved, COUNT(*)::int AS deltas " +
+                        "FROM folded GROUP BY sku_code",
+                rs -> {
+                    sums.put(rs.getString("sku_code"), new int[]{rs.getInt("quantity"), rs.getInt("reserved")});
+                    folded[0] += rs.getInt("deltas");
+                }, limit);
+        if (sums.isEmpty()) {
+            return 0;
+        }
+        List<String> skus = new ArrayList<>(sums.keySet());
+        for (int from = 0; from < skus.size(); from += InventoryBatchRepository.UPSERT_CHUNK_SIZE) {
+            List<String> chunk = skus.subList(from, Math.min(from + InventoryBatchRepository.UPSERT_CHUNK_SIZE, skus.size()));
+            jdbcTemplate.query("SELECT sku_code FROM inventory WHERE sku_code IN (" +
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY sku_code FOR UPDATE",
+                    rs -> { }, chunk.toArray());
+        }
+        addToTotals(sums);
+        return folded[0];
+    }
+
+    // Adds {quantity, reserved} deltas to SKU totals in one statement per chunk; the rows are already locked.
+    private void addToTotals(SortedMap<String, int[]> deltasBySku) {
+        List<Map.Entry<String, int[]>> lines = new ArrayList<>(deltasBySku.entrySet());
+        for (int from = 0; from < lines.size(); from += InventoryBatchRepository.UPSERT_CHUNK_SIZE) {
+            List<Map.Entry<String, int[]>> chunk =
+                    lines.subList(from, Math.min(from + InventoryBatchRepository.UPSERT_CHUNK_SIZE, lines.size()));
+            StringBuilder sql = new StringBuilder("UPDATE inventory i SET quantity = i.quantity + v.quantity, " +
+                    "reserved_quantity = i.reserved_quantity + v.reserved FROM (VALUES ");
+            Object[] args = new Object[chunk.size() * 3];
+            for (int n = 0; n < chunk.size(); n++) {
+                sql.append(n == 0 ? "" : ", ").append("(?::varchar, ?::int, ?::int)");
+                args[n * 3] = chunk.get(n).getKey();
+                args[n * 3 + 1] = chunk.get(n).getValue()[0];
+                args[n * 3 + 2] = chunk.get(n).getValue()[1];
+            }
+            sql.append(") AS v(sku_code, quantity, reserved) WHERE i.sku_code = v.sku_code");
+            jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+}
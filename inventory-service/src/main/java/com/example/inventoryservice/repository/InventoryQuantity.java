@@ -0,0 +1,7 @@
+package com.example.inventoryservice.repository;
+
+public interface InventoryQuantity {
+    Long getId();
+
+    Integer getQuantity();
+}
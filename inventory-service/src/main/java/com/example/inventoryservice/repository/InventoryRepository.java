@@ -1,5 +1,7 @@
 package com.example.inventoryservice.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import com.example.inventoryservice.model.Inventory;
@@ -7,17 +9,46 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
     boolean existsBySkuCodeAndQuantityIsGreaterThanEqual(String skuCode, Integer quantity);
 
-    @Modifying(clearAutomatically = true, flushAutomatically = true)
-    @Query("UPDATE Inventory i SET i.quantity = i.quantity + :quantityToAdd WHERE i.skuCode = :skuCode")
-    int increaseInventoryQuantity(@Param("skuCode") String skuCode, @Param("quantityToAdd") Integer quantityToAdd);
-
     Optional<Inventory> findBySkuCode(String skuCode);
 
-    @Modifying(clearAutomatically = true, flushAutomatically = true)
-    @Query("UPDATE Inventory i SET i.quantity = i.quantity - :quantityToDecrease WHERE i.skuCode = :skuCode AND i.quantity >= :quantityToDecrease")
-    int decreaseInventoryQuantity(@Param("skuCode") String skuCode, @Param("quantityToDecrease") Integer quantityToDecrease);
+    boolean existsBySkuCode(String skuCode);
+
+    List<Inventory> findBySkuCodeIn(Collection<String> skuCodes);
+
+    // Conditional decrement and read-back in one round-trip; empty when the SKU is unknown or short on stock.
+    @Transactional
+    @Query(value = "UPDATE inventory SET quantity = quantity - :quantity " +
+            "WHERE sku_code = :skuCode AND quantity >= :quantity RETURNING id, quantity", nativeQuery = true)
+    Optional<InventoryQuantity> decrementQuantity(@Param("skuCode") String skuCode, @Param("quantity") Integer quantity);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Inventory i SET i.lowStockThreshold = :threshold WHERE i.skuCode = :skuCode")
+    int updateLowStockThreshold(@Param("skuCode") String skuCode, @Param("threshold") int threshold);
+
+    // Only SKUs off the default, so the alert publisher can hold all of them in memory.
+    @Query("SELECT i.skuCode AS skuCode, i.lowStockThreshold AS lowStockThreshold FROM Inventory i " +
+            "WHERE i.lowStockThreshold <> :defaultThreshold")
+    List<LowStockThreshold> findLowStockThresholdsOtherThan(@Param("defaultThreshold") int defaultThreshold);
+
+    @Query(value = "SELECT id, quantity FROM inventory WHERE sku_code = :skuCode FOR UPDATE", nativeQuery = true)
+    Optional<InventoryQuantity> lockQuantity(@Param("skuCode") String skuCode);
+
+    // Creates an empty row without locking an existing one, so location mode can write its location rows before the
+    // total, in the same order as decrements; 1 when the row was created.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO inventory (sku_code, quantity) VALUES (:skuCode, 0) ON CONFLICT (sku_code) DO NOTHING",
+            nativeQuery = true)
+    int insertIfMissing(@Param("skuCode") String skuCode);
+
+    @Query(value = "INSERT INTO inventory (sku_code, quantity) VALUES (:skuCode, :quantity) " +
+            "ON CONFLICT (sku_code) DO UPDATE SET quantity = inventory.quantity + EXCLUDED.quantity " +
+            "RETURNING id, quantity, (xmax = 0) AS inserted", nativeQuery = true)
+    InventoryUpsert upsertQuantity(@Param("skuCode") String skuCode, @Param("quantity") Integer quantity);
 }
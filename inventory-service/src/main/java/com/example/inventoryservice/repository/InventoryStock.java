@@ -0,0 +1,7 @@
+package com.example.inventoryservice.repository;
+
+public interface InventoryStock {
+    String getSkuCode();
+
+    Integer getQuantity();
+}
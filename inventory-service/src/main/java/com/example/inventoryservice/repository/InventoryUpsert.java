@@ -0,0 +1,6 @@
+package com.example.inventoryservice.repository;
+
+public interface InventoryUpsert extends InventoryQuantity {
+    // True when the row did not exist before the statement (xmax = 0 on a freshly inserted tuple).
+    Boolean getInserted();
+}
@@ -0,0 +1,4 @@
+package com.example.inventoryservice.repository;
+
+/** Stock at one location, or the part of a decrement taken from it. */
+public record LocationQuantity(String locationCode, int quantity) {}
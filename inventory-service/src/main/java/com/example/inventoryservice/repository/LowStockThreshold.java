@@ -0,0 +1,7 @@
+package com.example.inventoryservice.repository;
+
+public interface LowStockThreshold {
+    String getSkuCode();
+
+    Integer getLowStockThreshold();
+}
@@ -0,0 +1,9 @@
+package com.example.inventoryservice.repository;
+
+import java.time.Instant;
+
+public interface PendingExpiry {
+    Long getId();
+
+    Instant getExpiresAt();
+}
@@ -0,0 +1,10 @@
+package com.example.inventoryservice.repository;
+
+public interface PlacedReservation {
+    Long getReservationId();
+
+    Long getInventoryId();
+
+    // Available stock left after the reservation was taken
+    Integer getQuantity();
+}
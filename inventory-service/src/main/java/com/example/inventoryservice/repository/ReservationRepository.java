@@ -0,0 +1,104 @@
+package com.example.inventoryservice.repository;
+
+import com.example.inventoryservice.model.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    // Pending reservations expiring by :until, in (expires_at, id) order after the given key, so a caller can page
+    // through them; served by idx_reservation_pending_expires_at.
+    @Query(value = "SELECT id, expires_at AS expiresAt FROM reservation WHERE status = 'PENDING' AND expires_at <= :until " +
+            "AND (expires_at, id) > (:afterExpiresAt, :afterId) ORDER BY expires_at, id LIMIT :limit", nativeQuery = true)
+    List<PendingExpiry> findPendingExpiring(@Param("until") Instant until,
+                                            @Param("afterExpiresAt") Instant afterExpiresAt,
+                                            @Param("afterId") long afterId,
+                                            @Param("limit") int limit);
+
+    @Query(value = "SELECT id FROM reservation WHERE id IN (:ids) AND status = 'PENDING'", nativeQuery = true)
+    List<Long> findPendingIds(@Param("ids") Collection<Long> ids);
+
+    // Moves stock from available to reserved and records the reservation in one statement; empty when short on stock.
+    @Transactional
+    @Query(value = "WITH taken AS (" +
+            "  UPDATE inventory SET quantity = quantity - :quantity, reserved_quantity = reserved_quantity + :quantity" +
+            "  WHERE sku_code = :skuCode AND quantity >= :quantity RETURNING id, quantity), " +
+            "placed AS (" +
+            "  INSERT INTO reservation (sku_code, quantity, status, expires_at, created_at)" +
+            "  SELECT :skuCode, :quantity, 'PENDING', :expiresAt, now() FROM taken RETURNING id) " +
+            "SELECT placed.id AS reservationId, taken.id AS inventoryId, taken.quantity AS quantity " +
+            "FROM placed, taken", nativeQuery = true)
+    Optional<PlacedReservation> reserve(@Param("skuCode") String skuCode,
+                                        @Param("quantity") Integer quantity,
+                                        @Param("expiresAt") Instant expiresAt);
+
+    // reserve for inventory.ledger.enabled: the ledger has already taken the units, so only reserved_quantity, which
+    // its write-behind leaves alone, is touched here. Null for an unknown SKU.
+    @Transactional
+    @Query(value = "WITH held AS (" +
+            "  UPDATE inventory SET reserved_quantity = reserved_quantity + :quantity WHERE sku_code = :skuCode RETURNING id) " +
+            "INSERT INTO reservation (sku_code, quantity, status, expires_at, created_at) " +
+            "SELECT :skuCode, :quantity, 'PENDING', :expiresAt, now() FROM held RETURNING id", nativeQuery = true)
+    Long placeHeld(@Param("skuCode") String skuCode,
+                   @Param("quantity") Integer quantity,
+                   @Param("expiresAt") Instant expiresAt);
+
+    // Reserved units leave the stock for good; empty when the reservation is not pending.
+    @Transactional
+    @Query(value = "WITH r AS (" +
+            "  UPDATE reservation SET status = 'CONFIRMED' WHERE id = :id AND status = 'PENDING'" +
+            "  RETURNING sku_code, quantity) " +
+            "UPDATE inventory i SET reserved_quantity = i.reserved_quantity - r.quantity " +
+            "FROM r WHERE i.sku_code = r.sku_code " +
+            "RETURNING i.sku_code AS skuCode, i.quantity AS quantity", nativeQuery = true)
+    Optional<InventoryStock> confirm(@Param("id") Long id);
+
+    // Returns reserved units to available stock, summed per SKU so a batch touches each inventory row once.
+    @Transactional
+    @Query(value = "WITH r AS (" +
+            "  UPDATE reservation SET status = :status WHERE id IN (:ids) AND status = 'PENDING'" +
+            "  RETURNING sku_code, quantity), " +
+            "s AS (SELECT sku_code, SUM(quantity) AS quantity FROM r GROUP BY sku_code) " +
+            "UPDATE inventory i SET quantity = i.quantity + s.quantity, reserved_quantity = i.reserved_quantity - s.quantity " +
+            "FROM s WHERE i.sku_code = s.sku_code " +
+            "RETURNING i.sku_code AS skuCode, i.quantity AS quantity", nativeQuery = true)
+    List<InventoryStock> release(@Param("ids") Collection<Long> ids, @Param("status") String status);
+
+    // release for inventory.locations.enabled: units go back to the locations they were taken from, and reservations
+    // placed before location mode, which have no allocations, to the default location. The totals change is queued in
+    // inventory_total_delta like a location decrement's; returns the units released per SKU.
+    @Transactional
+    @Query(value = "WITH r AS (" +
+            "  UPDATE reservation SET status = :status WHERE id IN (:ids) AND status = 'PENDING'" +
+            "  RETURNING id, sku_code, quantity), " +
+            "back AS (" +
+            "  INSERT INTO inventory_location (sku_code, location_code, quantity)" +
+            "  SELECT r.sku_code, COALESCE(a.location_code, :defaultLocation), SUM(COALESCE(a.quantity, r.quantity))" +
+            "  FROM r LEFT JOIN reservation_allocation a ON a.reservation_id = r.id" +
+            "  GROUP BY r.sku_code, COALESCE(a.location_code, :defaultLocation)" +
+            "  ON CONFLICT (sku_code, location_code) DO UPDATE SET quantity = inventory_location.quantity + EXCLUDED.quantity), " +
+            "s AS (SELECT sku_code, SUM(quantity) AS quantity FROM r GROUP BY sku_code) " +
+            "INSERT INTO inventory_total_delta (sku_code, quantity, reserved) SELECT sku_code, quantity, -quantity FROM s " +
+            "RETURNING sku_code AS skuCode, quantity AS quantity", nativeQuery = true)
+    List<InventoryStock> releaseToLocations(@Param("ids") Collection<Long> ids, @Param("status") String status,
+                                            @Param("defaultLocation") String defaultLocation);
+
+    // release for inventory.ledger.enabled: returns the units released per SKU, for the caller to give back to the
+    // ledger, rather than touching quantity, which the ledger's write-behind owns.
+    @Transactional
+    @Query(value = "WITH r AS (" +
+            "  UPDATE reservation SET status = :status WHERE id IN (:ids) AND status = 'PENDING'" +
+            "  RETURNING sku_code, quantity), " +
+            "s AS (SELECT sku_code, SUM(quantity) AS quantity FROM r GROUP BY sku_code) " +
+            "UPDATE inventory i SET reserved_quantity = i.reserved_quantity - s.quantity " +
+            "FROM s WHERE i.sku_code = s.sku_code " +
+            "RETURNING i.sku_code AS skuCode, s.quantity::int AS quantity", nativeQuery = true)
+    List<InventoryStock> releaseHeld(@Param("ids") Collection<Long> ids, @Param("status") String status);
+}
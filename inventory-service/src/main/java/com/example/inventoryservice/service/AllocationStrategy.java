@@ -0,0 +1,74 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.repository.LocationQuantity;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which locations a decrement draws from, set with {@code inventory.locations.strategy}. Every strategy
+ * returns an empty plan when the given locations cannot cover the quantity together.
+ */
+public enum AllocationStrategy {
+
+    /** Locations in {@code inventory.locations.nearest} order, then the rest by code; as few as that order allows. */
+    NEAREST_FIRST {
+        @Override
+        List<LocationQuantity> allocate(List<LocationQuantity> available, int quantity, List<String> nearest) {
+            return greedy(available, quantity,
+                    Comparator.comparingInt((LocationQuantity location) -> rank(nearest, location.locationCode()))
+                            .thenComparing(LocationQuantity::locationCode));
+        }
+    },
+
+    /** The fullest locations first, so a line usually ships from one place and stock evens out over time. */
+    MOST_STOCK_FIRST {
+        @Override
+        List<LocationQuantity> allocate(List<LocationQuantity> available, int quantity, List<String> nearest) {
+            return greedy(available, quantity, BY_STOCK_DESCENDING);
+        }
+    },
+
+    /**
+     * A random location that can fill the line alone, so concurrent decrements of one SKU land on different rows;
+     * split from the fullest locations when none can.
+     */
+    SPREAD {
+        @Override
+        List<LocationQuantity> allocate(List<LocationQuantity> available, int quantity, List<String> nearest) {
+            List<LocationQuantity> whole = available.stream().filter(location -> location.quantity() >= quantity).toList();
+            if (whole.isEmpty()) {
+                return greedy(available, quantity, BY_STOCK_DESCENDING);
+            }
+            LocationQuantity chosen = whole.get(ThreadLocalRandom.current().nextInt(whole.size()));
+            return List.of(new LocationQuantity(chosen.locationCode(), quantity));
+        }
+    };
+
+    private static final Comparator<LocationQuantity> BY_STOCK_DESCENDING =
+            Comparator.comparingInt(LocationQuantity::quantity).reversed().thenComparing(LocationQuantity::locationCode);
+
+    abstract List<LocationQuantity> allocate(List<LocationQuantity> available, int quantity, List<String> nearest);
+
+    private static List<LocationQuantity> greedy(List<LocationQuantity> available, int quantity,
+                                                 Comparator<LocationQuantity> order) {
+        List<LocationQuantity> plan = new ArrayList<>();
+        int missing = quantity;
+        for (LocationQuantity location : available.stream().filter(location -> location.quantity() > 0).sorted(order).toList()) {
+            int taken = Math.min(location.quantity(), missing);
+            plan.add(new LocationQuantity(location.locationCode(), taken));
+            missing -= taken;
+            if (missing == 0) {
+                return plan;
+            }
+        }
+        return List.of();
+    }
+
+    private static int rank(List<String> nearest, String locationCode) {
+        int rank = nearest.indexOf(locationCode);
+        return rank < 0 ? Integer.MAX_VALUE : rank;
+    }
+}
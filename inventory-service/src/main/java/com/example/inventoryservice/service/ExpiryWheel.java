@@ -0,0 +1,88 @@
+package com.example.inventoryservice.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hashed timing wheel of reservation expiries: one slot per tick, enough slots to span a TTL, so scheduling an id
+ * and collecting the ones due each tick cost the same however many are pending. An id scheduled twice, by its
+ * placement and again by a reload from the table, fires once. Time is passed in, in milliseconds.
+ */
+final class ExpiryWheel {
+
+    private final long tickMs;
+    // Each entry is {id, deadline tick}; an entry stays in its slot for as many turns as its deadline is away.
+    private final List<List<long[]>> slots;
+    // Entries already due when scheduled, fired on the next advance.
+    private List<Long> overdue = new ArrayList<>();
+    private final Set<Long> scheduled = new HashSet<>();
+    private long lastTick;
+
+    ExpiryWheel(long tickMs, int slotCount, long nowMs) {
+        this.tickMs = tickMs;
+        this.slots = new ArrayList<>(slotCount);
+        for (int n = 0; n < slotCount; n++) {
+            slots.add(new ArrayList<>());
+        }
+        this.lastTick = Math.floorDiv(nowMs, tickMs);
+    }
+
+    /** False when the id is already scheduled. */
+    synchronized boolean schedule(long id, long expiresAtMs) {
+        if (!scheduled.add(id)) {
+            return false;
+        }
+        long deadline = Math.floorDiv(expiresAtMs + tickMs - 1, tickMs);
+        if (deadline <= lastTick) {
+            overdue.add(id);
+        } else {
+            slots.get(slot(deadline)).add(new long[]{id, deadline});
+        }
+        return true;
+    }
+
+    /** Forgets a reservation that was resolved; its entry is dropped when its slot is next visited. */
+    synchronized void cancel(long id) {
+        scheduled.remove(id);
+    }
+
+    /** Removes and returns the ids whose expiry has passed by {@code nowMs}. */
+    synchronized List<Long> advance(long nowMs) {
+        long now = Math.floorDiv(nowMs, tickMs);
+        List<Long> due = new ArrayList<>();
+        for (Long id : overdue) {
+            if (scheduled.remove(id)) {
+                due.add(id);
+            }
+        }
+        overdue = new ArrayList<>();
+        // A pause longer than a turn visits each slot once rather than once per missed tick.
+        for (long tick = Math.max(lastTick + 1, now - slots.size() + 1); tick <= now; tick++) {
+            List<long[]> kept = new ArrayList<>();
+            for (long[] entry : slots.get(slot(tick))) {
+                if (!scheduled.contains(entry[0])) {
+                    continue;
+                }
+                if (entry[1] <= now) {
+                    scheduled.remove(entry[0]);
+                    due.add(entry[0]);
+                } else {
+                    kept.add(entry);
+                }
+            }
+            slots.set(slot(tick), kept);
+        }
+        lastTick = Math.max(lastTick, now);
+        return due;
+    }
+
+    synchronized int size() {
+        return scheduled.size();
+    }
+
+    private int slot(long tick) {
+        return (int) Math.floorMod(tick, (long) slots.size());
+    }
+}
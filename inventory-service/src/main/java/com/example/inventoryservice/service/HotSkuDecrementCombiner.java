@@ -0,0 +1,267 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.repository.InventoryQuantity;
+import com.example.inventoryservice.repository.InventoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Flash-sale protection for hot SKUs. Instead of every decrement queueing on the same row lock, concurrent
+ * decrements for one SKU are collected for a short window and applied as a single conditional UPDATE.
+ * When the batch as a whole does not fit, the row is locked once and requests are granted in arrival order,
+ * so every waiter still gets its own answer.
+ * <p>
+ * Combining kicks in for SKUs listed in {@code inventory.combining.skus}, or for any SKU once
+ * {@code inventory.combining.contention-threshold} decrements for it are in flight at the same time.
+ */
+@Component
+public class HotSkuDecrementCombiner {
+
+    private static final Logger log = LoggerFactory.getLogger(HotSkuDecrementCombiner.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Set<String> alwaysCombinedSkus;
+    private final int contentionThreshold;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final long waitTimeoutMs;
+
+    private final ConcurrentHashMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SkuQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final ScheduledExecutorService flusher;
+    private final DistributionSummary batchSizes;
+    private final Counter combinedRequests;
+
+    public HotSkuDecrementCombiner(InventoryRepository inventoryRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${inventory.combining.enabled:true}") boolean enabled,
+                                   @Value("${inventory.combining.skus:}") List<String> alwaysCombinedSkus,
+                                   @Value("${inventory.combining.contention-threshold:8}") int contentionThreshold,
+                                   @Value("${inventory.combining.window-micros:2000}") long windowMicros,
+                                   @Value("${inventory.combining.max-batch-size:256}") int maxBatchSize,
+                                   @Value("${inventory.combining.wait-timeout-ms:5000}") long waitTimeoutMs,
+                                   @Value("${inventory.combining.flush-threads:2}") int flushThreads) {
+        this.inventoryRepository = inventoryRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.alwaysCombinedSkus = alwaysCombinedSkus.stream()
+                .map(String::trim)
+                .filter(sku -> !sku.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.contentionThreshold = contentionThreshold;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.waitTimeoutMs = waitTimeoutMs;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.flusher = Executors.newScheduledThreadPool(flushThreads, runnable -> {
+            Thread thread = new Thread(runnable, "hot-sku-combiner-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("inventory.combiner.queue.depth", queueDepth);
+        this.batchSizes = DistributionSummary.builder("inventory.combiner.batch.size")
+                .description("Decrement requests applied per combined UPDATE")
+                .register(meterRegistry);
+        this.combinedRequests = Counter.builder("inventory.combiner.requests")
+                .description("Decrement requests routed through the combining queue")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes {@code quantity} of {@code skuCode}, either straight through {@code direct} or via the combining queue.
+     * Returns the same shape as {@link InventoryRepository#decrementQuantity}: empty when nothing was taken.
+     */
+    public Optional<InventoryQuantity> decrement(String skuCode, int quantity,
+                                                 Supplier<Optional<InventoryQuantity>> direct) {
+        AtomicInteger counter = inFlight.computeIfAbsent(skuCode, sku -> new AtomicInteger());
+        int concurrent = counter.incrementAndGet();
+        try {
+            if (!enabled || (concurrent < contentionThreshold && !alwaysCombinedSkus.contains(skuCode))) {
+                return direct.get();
+            }
+            return awaitCombined(skuCode, quantity);
+        } finally {
+            if (counter.decrementAndGet() == 0) {
+                inFlight.remove(skuCode, counter);
+            }
+        }
+    }
+
+    private Optional<InventoryQuantity> awaitCombined(String skuCode, int quantity) {
+        combinedRequests.increment();
+        PendingDecrement pending = new PendingDecrement(quantity);
+        SkuQueue queue = queues.computeIfAbsent(skuCode, sku -> new SkuQueue());
+        queue.requests.add(pending);
+        queueDepth.incrementAndGet();
+        if (queue.flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(() -> flush(skuCode, queue), windowMicros, TimeUnit.MICROSECONDS);
+        }
+
+        try {
+            return pending.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.claimed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Timed out waiting for combined decrement of skuCode " + skuCode);
+            }
+            return awaitApplied(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.claimed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Interrupted waiting for combined decrement of skuCode " + skuCode);
+            }
+            return awaitApplied(pending);
+        } catch (ExecutionException e) {
+            throw failure(e);
+        }
+    }
+
+    // A flush already took the request, so it is being applied and its outcome has to reach the caller:
+    // giving up now could report a failure for stock that was in fact taken.
+    private static Optional<InventoryQuantity> awaitApplied(PendingDecrement pending) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    return pending.result.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw failure(e);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static RuntimeException failure(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(e.getCause());
+    }
+
+    void flush(String skuCode, SkuQueue queue) {
+        queue.flushScheduled.set(false);
+
+        List<PendingDecrement> batch = new ArrayList<>();
+        PendingDecrement pending;
+        while (batch.size() < maxBatchSize && (pending = queue.requests.poll()) != null) {
+            queueDepth.decrementAndGet();
+            // Whoever claims a request first owns it: the flush applies it, or its waiter gives up on it.
+            if (pending.claimed.compareAndSet(false, true)) {
+                batch.add(pending);
+            }
+        }
+        if (!queue.requests.isEmpty() && queue.flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> flush(skuCode, queue));
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        batchSizes.record(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyBatch(skuCode, batch));
+        } catch (RuntimeException e) {
+            log.error("Combined decrement of {} requests for skuCode {} failed: {}", batch.size(), skuCode, e.getMessage());
+            batch.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    private void applyBatch(String skuCode, List<PendingDecrement> batch) {
+        int total = batch.stream().mapToInt(p -> p.quantity).sum();
+
+        // Common case during a sale: everything fits, one conditional UPDATE serves the whole batch.
+        Optional<InventoryQuantity> all = inventoryRepository.decrementQuantity(skuCode, total);
+        if (all.isPresent()) {
+            complete(batch, all.get(), batch.stream().map(p -> true).toList());
+            return;
+        }
+
+        Optional<InventoryQuantity> locked = inventoryRepository.lockQuantity(skuCode);
+        if (locked.isEmpty()) {
+            batch.forEach(p -> p.result.complete(Optional.empty()));
+            return;
+        }
+
+        int available = locked.get().getQuantity();
+        int granted = 0;
+        List<Boolean> grants = new ArrayList<>(batch.size());
+        for (PendingDecrement p : batch) {
+            boolean fits = p.quantity <= available - granted;
+            grants.add(fits);
+            if (fits) {
+                granted += p.quantity;
+            }
+        }
+
+        InventoryQuantity after = granted > 0
+                ? inventoryRepository.decrementQuantity(skuCode, granted).orElseThrow()
+                : locked.get();
+        complete(batch, after, grants);
+    }
+
+    // Reports to each waiter the quantity as if the granted requests had been applied one by one in arrival order.
+    private static void complete(List<PendingDecrement> batch, InventoryQuantity after, List<Boolean> grants) {
+        int remaining = after.getQuantity();
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            PendingDecrement p = batch.get(i);
+            if (grants.get(i)) {
+                p.result.complete(Optional.of(new Remaining(after.getId(), remaining)));
+                remaining += p.quantity;
+            } else {
+                p.result.complete(Optional.empty());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+    }
+
+    static final class SkuQueue {
+        private final Queue<PendingDecrement> requests = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    }
+
+    private static final class PendingDecrement {
+        private final int quantity;
+        private final CompletableFuture<Optional<InventoryQuantity>> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private PendingDecrement(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    private record Remaining(Long getId, Integer getQuantity) implements InventoryQuantity {
+    }
+}
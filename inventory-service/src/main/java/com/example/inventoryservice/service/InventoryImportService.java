@@ -0,0 +1,201 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryImportResult;
+import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.exception.StockModeConflictException;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets stock counts in bulk from a CSV ({@code skuCode,quantity}, optional header line) or NDJSON
+ * ({@code {"skuCode":..,"quantity":..}}) body. The body is read line by line and only the current chunk of
+ * {@code inventory.import.chunk-rows} rows is held in memory; each chunk is COPYed and merged in its own
+ * transaction, followed by one batch change event. A malformed row stops the import, and the chunks before
+ * it stay applied.
+ */
+@Service
+public class InventoryImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryImportService.class);
+
+    private static final int MAX_SKU_LENGTH = 255;
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+
+    public enum Format { CSV, NDJSON }
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final StockEventPublisher stockEventPublisher;
+    private final KnownSkuFilter knownSkuFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonMapper jsonMapper;
+    private final StockLedger stockLedger;
+    private final LocationStock locationStock;
+    private final int chunkRows;
+    private final Counter importedRows;
+
+    public InventoryImportService(InventoryBatchRepository inventoryBatchRepository,
+                                  StockEventPublisher stockEventPublisher,
+                                  KnownSkuFilter knownSkuFilter,
+                                  TransactionTemplate transactionTemplate,
+                                  JsonMapper jsonMapper,
+                                  @Nullable StockLedger stockLedger,
+                                  @Nullable LocationStock locationStock,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${inventory.import.chunk-rows:10000}") int chunkRows) {
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.stockEventPublisher = stockEventPublisher;
+        this.knownSkuFilter = knownSkuFilter;
+        this.transactionTemplate = transactionTemplate;
+        this.jsonMapper = jsonMapper;
+        this.stockLedger = stockLedger;
+        this.locationStock = locationStock;
+        this.chunkRows = chunkRows;
+        this.importedRows = Counter.builder("inventory.import.rows")
+                .description("Rows loaded through the bulk import")
+                .register(meterRegistry);
+    }
+
+    public InventoryImportResult importInventory(InputStream body, Format format) throws IOException {
+        if(stockLedger != null){
+            throw new StockModeConflictException("Bulk import is not available while inventory.ledger.enabled is set");
+        }
+        if(locationStock != null){
+            throw new StockModeConflictException("Bulk import sets one quantity per SKU, not available while inventory.locations.enabled is set");
+        }
+
+        long started = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), READ_BUFFER_CHARS);
+        Chunk chunk = new Chunk();
+        long imported = 0;
+        long changed = 0;
+        int chunks = 0;
+        long lineNumber = 0;
+
+        String line;
+        while((line = reader.readLine()) != null){
+            lineNumber++;
+            if(line.isBlank()){
+                continue;
+            }
+            InventoryRequest row;
+            try {
+                row = format == Format.CSV ? parseCsv(line, lineNumber) : parseJson(line);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage()
+                        + " (" + imported + " rows before it were imported)");
+            }
+            if(row == null){
+                continue;
+            }
+
+            chunk.add(row);
+            if(chunk.rows == chunkRows){
+                changed += apply(chunk);
+                imported += chunk.rows;
+                chunks++;
+                chunk.reset();
+            }
+        }
+        if(chunk.rows > 0){
+            changed += apply(chunk);
+            imported += chunk.rows;
+            chunks++;
+        }
+
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        long rowsPerSecond = imported * 1000 / elapsedMs;
+        log.info("Imported {} inventory rows ({} changed) in {} chunks, {} ms, {} rows/s",
+                imported, changed, chunks, elapsedMs, rowsPerSecond);
+        return new InventoryImportResult(imported, changed, chunks, elapsedMs, rowsPerSecond);
+    }
+
+    private int apply(Chunk chunk) {
+        long mark = stockEventPublisher.mark();
+        List<InventoryResponse> changed = transactionTemplate.execute(
+                status -> inventoryBatchRepository.copyAndMerge(chunk.asInputStream()));
+        importedRows.increment(chunk.rows);
+        changed.forEach(row -> knownSkuFilter.add(row.skuCode()));
+        stockEventPublisher.batchChanged(changed, mark);
+        return changed.size();
+    }
+
+    // Null for a header line, recognised as a first line whose quantity is not a number.
+    private static InventoryRequest parseCsv(String line, long lineNumber) {
+        int separator = line.lastIndexOf(',');
+        if(separator < 0){
+            throw new IllegalArgumentException("expected skuCode,quantity");
+        }
+        String skuCode = line.substring(0, separator).trim();
+        if(skuCode.length() >= 2 && skuCode.startsWith("\"") && skuCode.endsWith("\"")){
+            skuCode = skuCode.substring(1, skuCode.length() - 1).replace("\"\"", "\"");
+        }
+        String quantity = line.substring(separator + 1).trim();
+        if(lineNumber == 1 && !quantity.isEmpty() && !Character.isDigit(quantity.charAt(quantity.length() - 1))){
+            return null;
+        }
+        try {
+            return validate(new InventoryRequest(skuCode, Integer.valueOf(quantity)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity is not a number");
+        }
+    }
+
+    private InventoryRequest parseJson(String line) {
+        try {
+            return validate(jsonMapper.readValue(line, InventoryRequest.class));
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("not a JSON object with skuCode and quantity");
+        }
+    }
+
+    private static InventoryRequest validate(InventoryRequest row) {
+        if(row.skuCode() == null || row.skuCode().isBlank() || row.skuCode().length() > MAX_SKU_LENGTH){
+            throw new IllegalArgumentException("skuCode must be 1 to " + MAX_SKU_LENGTH + " characters");
+        }
+        if(row.quantity() == null || row.quantity() < 0){
+            throw new IllegalArgumentException("quantity must not be negative");
+        }
+        return row;
+    }
+
+    // Rows re-encoded as COPY CSV; the buffer is reused across chunks, so memory stays at one chunk.
+    private static final class Chunk extends ByteArrayOutputStream {
+        private int rows;
+
+        void add(InventoryRequest row) {
+            writeBytes(('"' + row.skuCode().replace("\"", "\"\"") + "\"," + row.quantity() + '\n')
+                    .getBytes(StandardCharsets.UTF_8));
+            rows++;
+        }
+
+        InputStream asInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        @Override
+        public synchronized void reset() {
+            super.reset();
+            rows = 0;
+        }
+    }
+}
@@ -2,96 +2,338 @@ package com.example.inventoryservice.service;
 
 import com.example.inventoryservice.dto.InventoryRequest;
 import com.example.inventoryservice.dto.InventoryResponse;
-import com.example.inventoryservice.kafka.InventoryEventProducer;
+import com.example.inventoryservice.dto.InventoryUpsertResult;
+import com.example.inventoryservice.dto.LocationStockRequest;
+import com.example.inventoryservice.dto.LocationStockResponse;
+import com.example.inventoryservice.dto.StockAvailability;
+import com.example.inventoryservice.exception.InsufficientStockException;
+import com.example.inventoryservice.exception.ResourceNotFoundException;
+import com.example.inventoryservice.exception.StockModeConflictException;
 import com.example.inventoryservice.model.Inventory;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import com.example.inventoryservice.repository.InventoryQuantity;
 import com.example.inventoryservice.repository.InventoryRepository;
-import org.apache.kafka.common.errors.ResourceNotFoundException;
+import com.example.inventoryservice.repository.InventoryUpsert;
+import org.jspecify.annotations.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 @Service
 public class InventoryService {
 
 
+    // Keeps request bodies, and the VALUES list built from them, at a sane size.
+    static final int MAX_AVAILABILITY_LINES = 1000;
+
     private final InventoryRepository inventoryRepository;
-    private final InventoryEventProducer inventoryEventProducer;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final StockEventPublisher stockEventPublisher;
+    private final HotSkuDecrementCombiner decrementCombiner;
+    private final KnownSkuFilter knownSkuFilter;
+    // Present only with inventory.ledger.enabled; then it, not the table, holds the current stock.
+    private final StockLedger stockLedger;
+    // Present only with inventory.locations.enabled; then decrements take from per-location rows.
+    private final LocationStock locationStock;
 
-    public InventoryService(InventoryRepository inventoryRepository, InventoryEventProducer inventoryEventProducer) {
+    public InventoryService(InventoryRepository inventoryRepository, InventoryBatchRepository inventoryBatchRepository,
+                            StockEventPublisher stockEventPublisher, HotSkuDecrementCombiner decrementCombiner,
+                            KnownSkuFilter knownSkuFilter, @Nullable StockLedger stockLedger,
+                            @Nullable LocationStock locationStock) {
         this.inventoryRepository = inventoryRepository;
-        this.inventoryEventProducer = inventoryEventProducer;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.stockEventPublisher = stockEventPublisher;
+        this.decrementCombiner = decrementCombiner;
+        this.knownSkuFilter = knownSkuFilter;
+        this.stockLedger = stockLedger;
+        this.locationStock = locationStock;
     }
 
     public boolean isInStock(String skuCode, Integer quantity){
+        if(stockLedger != null){
+            return stockLedger.isInStock(skuCode, quantity);
+        }
+        if(!knownSkuFilter.mightContain(skuCode)){
+            return false;
+        }
+        if(locationStock != null){
+            return locationStock.isInStock(skuCode, quantity);
+        }
         return inventoryRepository.existsBySkuCodeAndQuantityIsGreaterThanEqual(skuCode, quantity);
     }
 
+    public List<StockAvailability> checkAvailability(List<InventoryRequest> lines){
+        if(lines == null || lines.isEmpty()){
+            return List.of();
+        }
+        if(lines.size() > MAX_AVAILABILITY_LINES){
+            throw new IllegalArgumentException("At most " + MAX_AVAILABILITY_LINES + " lines can be checked at once");
+        }
+        for(InventoryRequest line : lines){
+            if(line.skuCode() == null || line.quantity() == null){
+                throw new IllegalArgumentException("Every line needs a skuCode and a quantity");
+            }
+        }
+        if(stockLedger != null){
+            return lines.stream()
+                    .map(line -> new StockAvailability(line.skuCode(), line.quantity(),
+                            stockLedger.isInStock(line.skuCode(), line.quantity())))
+                    .toList();
+        }
+        if(locationStock != null){
+            return locationStock.checkAvailability(lines);
+        }
+        return inventoryBatchRepository.checkAvailability(lines);
+    }
+
     @Transactional
-    public InventoryResponse upsertInventory(InventoryRequest request){
+    public InventoryUpsertResult upsertInventory(InventoryRequest request){
+        knownSkuFilter.add(request.skuCode());
+        if(stockLedger != null){
+            InventoryUpsertResult result = stockLedger.upsert(request.skuCode(), request.quantity(),
+                    () -> inventoryRepository.upsertQuantity(request.skuCode(), request.quantity()));
+            stockEventPublisher.changed(request.skuCode(), result.inventory().quantity());
+            return result;
+        }
 
-        int updatedCount = inventoryRepository.increaseInventoryQuantity(request.skuCode(), request.quantity());
+        // Location rows are written before the total, the order decrements lock them in.
+        boolean inserted = false;
+        if(locationStock != null){
+            inserted = inventoryRepository.insertIfMissing(request.skuCode()) > 0;
+            locationStock.add(request.skuCode(), locationStock.defaultLocation(), request.quantity());
+        }
+        InventoryUpsert upserted = inventoryRepository.upsertQuantity(request.skuCode(), request.quantity());
+        // The total may still lack queued location decrements; the locations do not.
+        int quantity = locationStock != null
+                ? locationStock.totals(List.of(request.skuCode())).get(request.skuCode()) : upserted.getQuantity();
 
-        if(updatedCount == 0){
-            Inventory newInventory = new Inventory();
-            newInventory.setSkuCode(request.skuCode());
-            newInventory.setQuantity(request.quantity());
-            inventoryRepository.save(newInventory);
-            inventoryEventProducer.sendInventoryUpdatedEvent(request.skuCode(), request.quantity());
-            return mapToResponse(newInventory);
+        stockEventPublisher.changed(request.skuCode(), quantity);
+        return new InventoryUpsertResult(
+                new InventoryResponse(upserted.getId(), request.skuCode(), quantity),
+                inserted || Boolean.TRUE.equals(upserted.getInserted())
+        );
+    }
+
+    // Used for batches of product events: lines for the same SKU are summed, then applied in one statement per chunk.
+    // The last applied offset per partition is stored in the same transaction, so lines redelivered after a
+    // failed offset commit or a rebalance are skipped instead of adding their stock twice.
+    @Transactional
+    public List<InventoryResponse> upsertInventoryBatch(String topic, List<EventLine> lines){
+        if(lines.isEmpty()){
+            return List.of();
         }
+        SortedSet<Integer> partitions = new TreeSet<>();
+        lines.forEach(line -> partitions.add(line.partition()));
+        Map<Integer, Long> applied = inventoryBatchRepository.lockAppliedOffsets(topic, partitions);
 
-        Optional<Inventory> optionalInventory = inventoryRepository.findBySkuCode(request.skuCode());
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        Map<Integer, Long> lastOffsets = new HashMap<>();
+        for(EventLine line : lines){
+            if(line.offset() <= applied.getOrDefault(line.partition(), -1L)){
+                continue;
+            }
+            lastOffsets.merge(line.partition(), line.offset(), Math::max);
+            InventoryRequest request = line.request();
+            quantities.merge(request.skuCode(), request.quantity() != null ? request.quantity() : 0, Integer::sum);
+        }
+        if(!lastOffsets.isEmpty()){
+            inventoryBatchRepository.markApplied(topic, lastOffsets);
+        }
+        if(quantities.isEmpty()){
+            return List.of();
+        }
+        quantities.keySet().forEach(knownSkuFilter::add);
 
-        if(optionalInventory.isPresent()){
-            Inventory inventory = optionalInventory.get();
-            inventoryEventProducer.sendInventoryUpdatedEvent(request.skuCode(), inventory.getQuantity());
-            return mapToResponse(inventory);
+        List<InventoryResponse> upserted;
+        if(stockLedger != null){
+            upserted = new ArrayList<>(quantities.size());
+            for(Map.Entry<String, Integer> line : quantities.entrySet()){
+                upserted.add(stockLedger.upsert(line.getKey(), line.getValue(),
+                        () -> inventoryRepository.upsertQuantity(line.getKey(), line.getValue())).inventory());
+            }
         }else{
-            throw new IllegalStateException("Inventory not found after update");
+            if(locationStock != null){
+                inventoryBatchRepository.insertMissing(new TreeSet<>(quantities.keySet()));
+                locationStock.addToDefault(quantities);
+            }
+            upserted = inventoryBatchRepository.upsertQuantities(quantities);
+            if(locationStock != null){
+                Map<String, Integer> totals = locationStock.totals(quantities.keySet());
+                upserted = upserted.stream()
+                        .map(response -> new InventoryResponse(response.id(), response.skuCode(), totals.get(response.skuCode())))
+                        .toList();
+            }
         }
+
+        upserted.forEach(response -> stockEventPublisher.changed(response.skuCode(), response.quantity()));
+        return upserted;
     }
 
-    @Transactional
+    // Not transactional on purpose: combined decrements wait for a flush that needs its own connection.
     public InventoryResponse decreaseInventory(InventoryRequest request){
-        int updatedCount = inventoryRepository.decreaseInventoryQuantity(request.skuCode(), request.quantity());
+        if(request.quantity() == null || request.quantity() <= 0){
+            throw new IllegalArgumentException("Quantity to decrease must be positive for skuCode " + request.skuCode());
+        }
 
-        if(updatedCount == 0){
-            boolean exists = inventoryRepository.findBySkuCode(request.skuCode()).isPresent();
-            if(!exists){
-                throw new ResourceNotFoundException("Inventory not found for skuCode: " + request.skuCode());
-            }
-            throw new IllegalStateException("Insufficient stock for skuCode " + request.skuCode());
+        if(stockLedger != null){
+            InventoryResponse response = stockLedger.decrement(request.skuCode(), request.quantity())
+                    .orElseThrow(() -> stockFailure(request.skuCode()));
+            stockEventPublisher.decreased(request.skuCode(), response.quantity(), request.quantity());
+            return response;
         }
-        Optional<Inventory> optionalInventory = inventoryRepository.findBySkuCode(request.skuCode());
-        if(optionalInventory.isPresent()){
-            Inventory inventory = optionalInventory.get();
-            inventoryEventProducer.sendInventoryUpdatedEvent(request.skuCode(), inventory.getQuantity());
 
-            // Check for low stock
-            if(inventory.getQuantity() <= 5) {
-                inventoryEventProducer.sendInventoryLowStockEvent(request.skuCode(), inventory.getQuantity());
-            }
+        if(locationStock != null){
+            InventoryResponse response = locationStock.take(new TreeMap<>(Map.of(request.skuCode(), request.quantity())),
+                    this::stockFailure).get(0);
+            stockEventPublisher.decreased(request.skuCode(), response.quantity(), request.quantity());
+            return response;
+        }
+
+        InventoryQuantity remaining = decrementCombiner.decrement(request.skuCode(), request.quantity(),
+                        () -> inventoryRepository.decrementQuantity(request.skuCode(), request.quantity()))
+                .orElseThrow(() -> stockFailure(request.skuCode()));
+
+        stockEventPublisher.decreased(request.skuCode(), remaining.getQuantity(), request.quantity());
+        return new InventoryResponse(remaining.getId(), request.skuCode(), remaining.getQuantity());
+    }
+
+    // Decrease already is a single conditional statement; reserve is kept as the name order-service calls.
+    public InventoryResponse reserveInventory(InventoryRequest request){
+        return decreaseInventory(request);
+    }
 
-            // Check for out of stock
-            if(inventory.getQuantity() == 0) {
-                inventoryEventProducer.sendInventoryOutOfStockEvent(request.skuCode());
+    // Lines for the same SKU are merged, and rows are locked in SKU order so two carts cannot deadlock each other.
+    @Transactional
+    public List<InventoryResponse> reserveInventoryBatch(List<InventoryRequest> requests){
+        if(requests == null || requests.isEmpty()){
+            throw new IllegalArgumentException("At least one line is required to reserve inventory");
+        }
+
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        for(InventoryRequest request : requests){
+            if(request.skuCode() == null || request.quantity() == null || request.quantity() <= 0){
+                throw new IllegalArgumentException("Quantity to reserve must be positive for skuCode " + request.skuCode());
             }
+            quantities.merge(request.skuCode(), request.quantity(), Integer::sum);
+        }
 
-            return mapToResponse(inventory);
-        }else{
-            throw new IllegalStateException("Failed to retrieve updated inventory");
+        if(stockLedger != null){
+            List<InventoryResponse> reserved = stockLedger.reserveAll(quantities);
+            reserved.forEach(response -> stockEventPublisher.decreased(response.skuCode(), response.quantity(),
+                    quantities.get(response.skuCode())));
+            return reserved;
         }
+
+        if(locationStock != null){
+            List<InventoryResponse> reserved = locationStock.take(quantities, this::stockFailure);
+            reserved.forEach(response -> stockEventPublisher.decreased(response.skuCode(), response.quantity(),
+                    quantities.get(response.skuCode())));
+            return reserved;
+        }
+
+        List<InventoryResponse> reserved = new ArrayList<>(quantities.size());
+        for(Map.Entry<String, Integer> line : quantities.entrySet()){
+            InventoryQuantity remaining = inventoryRepository.decrementQuantity(line.getKey(), line.getValue())
+                    .orElseThrow(() -> stockFailure(line.getKey()));
+            reserved.add(new InventoryResponse(remaining.getId(), line.getKey(), remaining.getQuantity()));
+        }
+
+        reserved.forEach(response -> stockEventPublisher.decreased(response.skuCode(), response.quantity(),
+                quantities.get(response.skuCode())));
+        return reserved;
+    }
+
+    /** Adds stock at one location, creating the SKU and the location row as needed. */
+    @Transactional
+    public InventoryResponse upsertLocationInventory(LocationStockRequest request){
+        if(request.skuCode() == null || request.locationCode() == null || request.quantity() == null){
+            throw new IllegalArgumentException("skuCode, locationCode and quantity are required");
+        }
+        LocationStock locations = requireLocations();
+        knownSkuFilter.add(request.skuCode());
+        inventoryRepository.insertIfMissing(request.skuCode());
+        locations.add(request.skuCode(), request.locationCode(), request.quantity());
+        InventoryUpsert upserted = inventoryRepository.upsertQuantity(request.skuCode(), request.quantity());
+        int quantity = locations.totals(List.of(request.skuCode())).get(request.skuCode());
+
+        stockEventPublisher.changed(request.skuCode(), quantity);
+        return new InventoryResponse(upserted.getId(), request.skuCode(), quantity);
+    }
+
+    public List<LocationStockResponse> getInventoryLocations(String skuCode){
+        return requireLocations().find(skuCode);
+    }
+
+    public void updateLowStockThreshold(String skuCode, Integer threshold){
+        if(threshold == null || threshold < 0){
+            throw new IllegalArgumentException("Low-stock threshold must not be negative for skuCode " + skuCode);
+        }
+        if(inventoryRepository.updateLowStockThreshold(skuCode, threshold) == 0){
+            throw new ResourceNotFoundException("Inventory not found for skuCode: " + skuCode);
+        }
+        stockEventPublisher.thresholdChanged(skuCode, threshold);
     }
 
     public InventoryResponse getInventoryBySkuCode(String skuCode){
+        if(stockLedger != null){
+            return stockLedger.find(skuCode)
+                    .orElseThrow(() -> new ResourceNotFoundException("Inventory not found for skuCode: " + skuCode));
+        }
+        if(!knownSkuFilter.mightContain(skuCode)){
+            throw ResourceNotFoundException.expected("Inventory not found for skuCode: " + skuCode);
+        }
         Optional<Inventory> optionalInventory = inventoryRepository.findBySkuCode(skuCode);
         if(optionalInventory.isPresent()){
             return mapToResponse(optionalInventory.get());
         }else{
-            throw new ResourceNotFoundException("Inventory not found for skuCode: " + skuCode);
+            knownSkuFilter.recordFalsePositive();
+            throw ResourceNotFoundException.expected("Inventory not found for skuCode: " + skuCode);
+        }
+
+    }
+
+    public List<InventoryResponse> getInventoryBySkuCodes(Collection<String> skuCodes){
+        if(skuCodes == null || skuCodes.isEmpty()){
+            return List.of();
+        }
+        if(stockLedger != null){
+            return stockLedger.findAll(skuCodes);
+        }
+        List<String> known = skuCodes.stream().filter(knownSkuFilter::mightContain).toList();
+        if(known.isEmpty()){
+            return List.of();
         }
+        return inventoryRepository.findBySkuCodeIn(known).stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
 
+    // Only reached when the conditional decrement matched nothing, so the happy path never pays for this lookup.
+    RuntimeException stockFailure(String skuCode){
+        boolean exists = stockLedger != null
+                ? stockLedger.find(skuCode).isPresent()
+                : knownSkuFilter.mightContain(skuCode) && inventoryRepository.existsBySkuCode(skuCode);
+        if(!exists){
+            return new ResourceNotFoundException("Inventory not found for skuCode: " + skuCode);
+        }
+        return new InsufficientStockException("Insufficient stock for skuCode " + skuCode);
+    }
+
+    private LocationStock requireLocations(){
+        if(locationStock == null){
+            throw new StockModeConflictException("Per-location stock needs inventory.locations.enabled");
+        }
+        return locationStock;
     }
 
     private InventoryResponse mapToResponse(Inventory inventory){
@@ -100,5 +342,6 @@ public class InventoryService {
         );
     }
 
-
+    /** A product event's stock line with the record position it was read from. */
+    public record EventLine(int partition, long offset, InventoryRequest request) {}
 }
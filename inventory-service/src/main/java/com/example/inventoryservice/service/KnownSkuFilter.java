@@ -0,0 +1,168 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over every SKU code in inventory, so lookups of SKUs that do not exist are answered without a
+ * database probe. A {@code false} from {@link #mightContain} is definite; {@code true} may be a false positive
+ * at roughly {@code inventory.sku-filter.fpp} while fewer than {@code inventory.sku-filter.expected-skus} SKUs
+ * are known. Until the startup scan finishes every SKU might exist.
+ * <p>
+ * SKUs created through this instance are added directly; those created elsewhere arrive through a per-instance
+ * listener (see {@link com.example.inventoryservice.kafka.InstanceEventConsumer}) that starts from before the scan,
+ * so a SKU created on another instance can be reported missing here only for the moment it takes that event to
+ * arrive.
+ */
+@Component
+public class KnownSkuFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(KnownSkuFilter.class);
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final boolean enabled;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLongArray words;
+    private final AtomicLong setBits = new AtomicLong();
+    private final Counter rejected;
+    private final Counter passed;
+    private final Counter falsePositives;
+    private volatile boolean ready;
+
+    public KnownSkuFilter(InventoryBatchRepository inventoryBatchRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${inventory.sku-filter.enabled:true}") boolean enabled,
+                          @Value("${inventory.sku-filter.expected-skus:1000000}") long expectedSkus,
+                          @Value("${inventory.sku-filter.fpp:0.01}") double fpp) {
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.enabled = enabled;
+        // Standard sizing: m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hash functions.
+        long bits = (long) Math.ceil(-expectedSkus * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bitCount = enabled ? Math.max(64, bits) : 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedSkus * Math.log(2)));
+        this.words = new AtomicLongArray((int) ((bitCount + 63) / 64));
+
+        Gauge.builder("inventory.sku-filter.fpp", this, KnownSkuFilter::estimatedFpp)
+                .description("Estimated false-positive rate at the current fill")
+                .register(meterRegistry);
+        Gauge.builder("inventory.sku-filter.size", this, KnownSkuFilter::estimatedSkus)
+                .description("Estimated number of distinct SKUs in the filter")
+                .register(meterRegistry);
+        Gauge.builder("inventory.sku-filter.memory", this, filter -> filter.words.length() * 8.0)
+                .description("Heap held by the filter's bit array")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.rejected = lookups(meterRegistry, "rejected");
+        this.passed = lookups(meterRegistry, "passed");
+        this.falsePositives = lookups(meterRegistry, "false-positive");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            long scanned = inventoryBatchRepository.forEachSkuCode(this::add);
+            ready = true;
+            log.info("Known-SKU filter built from {} SKUs in {} ms: {} bits, {} hashes",
+                    scanned, System.currentTimeMillis() - started, bitCount, hashCount);
+        } catch (RuntimeException e) {
+            log.error("Could not build known-SKU filter, all lookups go to the database: {}", e.getMessage());
+        }
+    }
+
+    public boolean mightContain(String skuCode) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(skuCode);
+        long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash + i * step, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                rejected.increment();
+                return false;
+            }
+        }
+        passed.increment();
+        return true;
+    }
+
+    public void add(String skuCode) {
+        if (!enabled || skuCode == null) {
+            return;
+        }
+        long hash = hash(skuCode);
+        long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash + i * step, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+            do {
+                word = words.get(index);
+                if ((word & mask) != 0) {
+                    break;
+                }
+            } while (!words.compareAndSet(index, word, word | mask));
+            if ((word & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+    }
+
+    /** The filter said maybe and the database said no. */
+    public void recordFalsePositive() {
+        if (ready) {
+            falsePositives.increment();
+        }
+    }
+
+    double estimatedFpp() {
+        return Math.pow((double) setBits.get() / bitCount, hashCount);
+    }
+
+    // Swamidass and Baldi: n = -(m / k) ln(1 - X / m) for X set bits.
+    double estimatedSkus() {
+        return -((double) bitCount / hashCount) * Math.log(1 - (double) setBits.get() / bitCount);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.sku-filter.lookups")
+                .description("SKU lookups by filter outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static long hash(String skuCode) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < skuCode.length(); i++) {
+            h = (h ^ skuCode.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    // MurmurHash3 finalizer, spreads FNV's weak low bits over the whole word.
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
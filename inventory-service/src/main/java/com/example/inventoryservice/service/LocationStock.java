@@ -0,0 +1,230 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.LocationStockResponse;
+import com.example.inventoryservice.dto.StockAvailability;
+import com.example.inventoryservice.repository.InventoryLocationRepository;
+import com.example.inventoryservice.repository.LocationQuantity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Per-location stock, enabled with {@code inventory.locations.enabled=true}. A decrement locks the SKU's locations
+ * with {@code FOR UPDATE SKIP LOCKED} and lets the {@link AllocationStrategy} plan over the ones no other
+ * transaction holds, so concurrent decrements of one SKU land on different rows. Only when the free rows cannot
+ * cover a line is it retried in a new transaction that waits for all of them, in location order.
+ * <p>
+ * {@code inventory.quantity} stays the SKU's total, but a decrement only queues its change to it in
+ * {@code inventory_total_delta}; updating the row itself would make every decrement of a hot SKU wait on it again.
+ * The queue is folded into the totals every {@code inventory.locations.fold-ms}, so the total lags its locations by
+ * about that long, and availability checks read the locations instead. The queue is a table rather than memory, so
+ * an instance going away leaves its deltas for the next fold instead of losing them.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.locations.enabled", havingValue = "true")
+public class LocationStock {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationStock.class);
+    // Deltas folded per transaction; a backlog larger than this takes several in a row.
+    static final int FOLD_BATCH_SIZE = 5000;
+    // Keeps one fold run from holding its thread forever while decrements keep queueing.
+    private static final int MAX_BATCHES_PER_FOLD = 20;
+
+    private final InventoryLocationRepository locationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final AllocationStrategy strategy;
+    private final List<String> nearest;
+    private final String defaultLocation;
+    private final long foldMs;
+    private final ScheduledExecutorService folder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "location-totals");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter firstPass;
+    private final Counter afterWait;
+    private final Counter shortages;
+
+    public LocationStock(InventoryLocationRepository locationRepository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventory.locations.strategy:NEAREST_FIRST}") AllocationStrategy strategy,
+                         @Value("${inventory.locations.nearest:}") List<String> nearest,
+                         @Value("${inventory.locations.default-location:MAIN}") String defaultLocation,
+                         @Value("${inventory.locations.fold-ms:200}") long foldMs,
+                         @Value("${inventory.ledger.enabled:false}") boolean ledgerEnabled) {
+        if (ledgerEnabled) {
+            throw new IllegalStateException("inventory.locations.enabled cannot be combined with inventory.ledger.enabled");
+        }
+        this.locationRepository = locationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.strategy = strategy;
+        this.nearest = nearest.stream().filter(code -> !code.isBlank()).map(String::trim).toList();
+        this.defaultLocation = defaultLocation;
+        this.foldMs = foldMs;
+
+        this.firstPass = takes(meterRegistry, "first-pass");
+        this.afterWait = takes(meterRegistry, "after-wait");
+        this.shortages = takes(meterRegistry, "short");
+    }
+
+    @PostConstruct
+    void start() {
+        Integer seeded = transactionTemplate.execute(status -> locationRepository.seedMissing(defaultLocation));
+        log.info("Location stock ready with strategy {}: {} SKUs seeded into {}", strategy, seeded, defaultLocation);
+        folder.scheduleWithFixedDelay(this::foldTotals, foldMs, foldMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        folder.shutdown();
+    }
+
+    /** Whether the SKU's locations hold at least {@code quantity}; unlike the total, this sees unfolded decrements. */
+    public boolean isInStock(String skuCode, int quantity) {
+        return locationRepository.totals(List.of(skuCode)).getOrDefault(skuCode, 0) >= quantity;
+    }
+
+    public List<StockAvailability> checkAvailability(List<InventoryRequest> lines) {
+        return locationRepository.checkAvailability(lines);
+    }
+
+    /** Each SKU's current stock summed over its locations, 0 for SKUs without any. */
+    public Map<String, Integer> totals(Collection<String> skuCodes) {
+        Map<String, Integer> found = locationRepository.totals(skuCodes);
+        Map<String, Integer> totals = new LinkedHashMap<>();
+        skuCodes.forEach(skuCode -> totals.put(skuCode, found.getOrDefault(skuCode, 0)));
+        return totals;
+    }
+
+    /**
+     * Takes every line or none, in its own transaction even when called inside one, so the retry that waits for
+     * locked rows starts without holding any. {@code shortage} builds the error for the first line that is short.
+     * Returns the SKUs' remaining totals in SKU order.
+     */
+    public List<InventoryResponse> take(SortedMap<String, Integer> quantitiesBySku,
+                                        Function<String, RuntimeException> shortage) {
+        return takeAll(quantitiesBySku, false, shortage, (skuCode, plan) -> { });
+    }
+
+    /** Takes the units for a pending reservation and records which locations they came from. */
+    public Placed reserve(String skuCode, int quantity, Instant expiresAt, Function<String, RuntimeException> shortage) {
+        return reserveAll(new TreeMap<>(Map.of(skuCode, quantity)), expiresAt, shortage).get(skuCode);
+    }
+
+    /** One pending reservation per SKU, all or none, keyed by SKU in SKU order. */
+    public Map<String, Placed> reserveAll(SortedMap<String, Integer> quantitiesBySku, Instant expiresAt,
+                                          Function<String, RuntimeException> shortage) {
+        Map<String, Long> reservationIds = new HashMap<>();
+        List<InventoryResponse> taken = takeAll(quantitiesBySku, true, shortage, (sku, plan) -> reservationIds.put(sku,
+                locationRepository.placeReservation(sku, quantitiesBySku.get(sku), expiresAt, plan)));
+        Map<String, Placed> placed = new LinkedHashMap<>();
+        taken.forEach(remaining -> placed.put(remaining.skuCode(),
+                new Placed(reservationIds.get(remaining.skuCode()), remaining.quantity())));
+        return placed;
+    }
+
+    /** Adds to a location and joins the caller's transaction; the caller adds to the total itself. */
+    public void add(String skuCode, String locationCode, int quantity) {
+        locationRepository.add(skuCode, locationCode, quantity);
+    }
+
+    public void addToDefault(SortedMap<String, Integer> quantitiesBySku) {
+        locationRepository.addAll(quantitiesBySku, defaultLocation);
+    }
+
+    public String defaultLocation() {
+        return defaultLocation;
+    }
+
+    public List<LocationStockResponse> find(String skuCode) {
+        return locationRepository.findBySkuCode(skuCode);
+    }
+
+    // With reserve the units move to reserved_quantity instead of leaving the total.
+    private List<InventoryResponse> takeAll(SortedMap<String, Integer> quantitiesBySku, boolean reserve,
+                                            Function<String, RuntimeException> shortage,
+                                            BiConsumer<String, List<LocationQuantity>> afterTake) {
+        String[] shortSku = new String[1];
+        for (boolean skipLocked : new boolean[]{true, false}) {
+            List<InventoryResponse> taken = newTransaction.execute(status -> {
+                List<InventoryResponse> remaining = new ArrayList<>(quantitiesBySku.size());
+                for (Map.Entry<String, Integer> line : quantitiesBySku.entrySet()) {
+                    List<LocationQuantity> plan = strategy.allocate(
+                            locationRepository.lockLocations(line.getKey(), skipLocked), line.getValue(), nearest);
+                    if (plan.isEmpty()) {
+                        shortSku[0] = line.getKey();
+                        status.setRollbackOnly();
+                        return null;
+                    }
+                    remaining.add(locationRepository.take(line.getKey(), plan));
+                    afterTake.accept(line.getKey(), plan);
+                }
+                SortedMap<String, int[]> deltas = new TreeMap<>();
+                quantitiesBySku.forEach((skuCode, quantity) ->
+                        deltas.put(skuCode, new int[]{-quantity, reserve ? quantity : 0}));
+                locationRepository.appendTotalDeltas(deltas);
+                return remaining;
+            });
+            if (taken != null) {
+                (skipLocked ? firstPass : afterWait).increment();
+                return taken;
+            }
+        }
+        shortages.increment();
+        throw shortage.apply(shortSku[0]);
+    }
+
+    void foldTotals() {
+        try {
+            for (int batches = 0; batches < MAX_BATCHES_PER_FOLD; batches++) {
+                Integer folded = transactionTemplate.execute(status -> locationRepository.foldTotalDeltas(FOLD_BATCH_SIZE));
+                if (folded == null || folded < FOLD_BATCH_SIZE) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // The deltas stay queued, so the next run folds them.
+            log.error("Folding location deltas into totals failed, retrying: {}", e.getMessage());
+        }
+    }
+
+    private static Counter takes(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("inventory.locations.takes")
+                .description("Location-mode decrements by how they were allocated")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public record Placed(long reservationId, int remaining) {}
+}
@@ -0,0 +1,331 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.ReservationResponse;
+import com.example.inventoryservice.exception.ReservationStateException;
+import com.example.inventoryservice.exception.ResourceNotFoundException;
+import com.example.inventoryservice.model.Reservation;
+import com.example.inventoryservice.model.ReservationStatus;
+import com.example.inventoryservice.repository.InventoryStock;
+import com.example.inventoryservice.repository.PendingExpiry;
+import com.example.inventoryservice.repository.PlacedReservation;
+import com.example.inventoryservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-step stock taking: a reservation moves units from available to reserved, and is later confirmed (the units
+ * are gone) or released (the units come back). Reservations nobody resolves within the TTL are released when they
+ * come due in an {@link ExpiryWheel}, so the sweep each {@code inventory.reservation.sweep-ms} costs nothing while
+ * none are due. A reservation is put on the wheel when it is placed, and every {@code inventory.reservation.reload-ms}
+ * the pending ones expiring before the next reload are read back from the table through
+ * {@code idx_reservation_pending_expires_at}; that covers reservations placed by other instances, by one that has
+ * since gone away, or before a restart. Every instance expires them; the release only moves rows that are still
+ * pending, so two instances firing the same reservation restore its units once.
+ * <p>
+ * With {@code inventory.ledger.enabled} the units are taken from and given back to the {@link StockLedger}, and the
+ * table only records the reservations and {@code reserved_quantity}, which the ledger's write-behind does not touch.
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+    // Bounds the IN list of a single expiry statement and the page size of a reload.
+    static final int EXPIRY_BATCH_SIZE = 500;
+
+    private final ReservationRepository reservationRepository;
+    private final InventoryService inventoryService;
+    private final StockEventPublisher stockEventPublisher;
+    private final StockLedger stockLedger;
+    private final LocationStock locationStock;
+    private final Duration ttl;
+    private final long sweepMs;
+    private final long reloadMs;
+    private final Clock clock;
+    private final Counter expired;
+    private final ExpiryWheel expiries;
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reservation-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReservationService(ReservationRepository reservationRepository,
+                              InventoryService inventoryService,
+                              StockEventPublisher stockEventPublisher,
+                              @Nullable StockLedger stockLedger,
+                              @Nullable LocationStock locationStock,
+                              MeterRegistry meterRegistry,
+                              @Value("${inventory.reservation.ttl:15m}") Duration ttl,
+                              @Value("${inventory.reservation.sweep-ms:1000}") long sweepMs,
+                              @Value("${inventory.reservation.reload-ms:60000}") long reloadMs) {
+        this(reservationRepository, inventoryService, stockEventPublisher, stockLedger, locationStock, meterRegistry, ttl,
+                sweepMs, reloadMs, Clock.systemUTC());
+    }
+
+    ReservationService(ReservationRepository reservationRepository, InventoryService inventoryService,
+                       StockEventPublisher stockEventPublisher, StockLedger stockLedger, LocationStock locationStock,
+                       MeterRegistry meterRegistry, Duration ttl, long sweepMs, long reloadMs, Clock clock) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryService = inventoryService;
+        this.stockEventPublisher = stockEventPublisher;
+        this.stockLedger = stockLedger;
+        this.locationStock = locationStock;
+        this.ttl = ttl;
+        this.sweepMs = sweepMs;
+        this.reloadMs = reloadMs;
+        this.clock = clock;
+        this.expired = Counter.builder("inventory.reservations.expired")
+                .description("Reservations released because nobody confirmed them within the TTL")
+                .register(meterRegistry);
+        // One slot per sweep over a whole TTL; reservations further out wait in their slot for another turn.
+        this.expiries = new ExpiryWheel(sweepMs, (int) Math.max(1, ttl.toMillis() / sweepMs) + 1, clock.millis());
+        meterRegistry.gauge("inventory.reservations.scheduled", expiries, ExpiryWheel::size);
+    }
+
+    @PostConstruct
+    void start() {
+        sweeper.scheduleWithFixedDelay(this::reload, 0, reloadMs, TimeUnit.MILLISECONDS);
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.shutdown();
+    }
+
+    public ReservationResponse reserve(InventoryRequest request) {
+        if(request.quantity() == null || request.quantity() <= 0){
+            throw new IllegalArgumentException("Quantity to reserve must be positive for skuCode " + request.skuCode());
+        }
+
+        Instant expiresAt = clock.instant().plus(ttl);
+        long reservationId;
+        int remaining;
+        if(stockLedger != null){
+            LocationStock.Placed placed = placeInLedger(new TreeMap<>(Map.of(request.skuCode(), request.quantity())),
+                    expiresAt).get(request.skuCode());
+            reservationId = placed.reservationId();
+            remaining = placed.remaining();
+        }else if(locationStock != null){
+            LocationStock.Placed placed = locationStock.reserve(request.skuCode(), request.quantity(), expiresAt,
+                    inventoryService::stockFailure);
+            reservationId = placed.reservationId();
+            remaining = placed.remaining();
+        }else{
+            PlacedReservation placed = reservationRepository.reserve(request.skuCode(), request.quantity(), expiresAt)
+                    .orElseThrow(() -> inventoryService.stockFailure(request.skuCode()));
+            reservationId = placed.getReservationId();
+            remaining = placed.getQuantity();
+        }
+
+        expiries.schedule(reservationId, expiresAt.toEpochMilli());
+        stockEventPublisher.decreased(request.skuCode(), remaining, request.quantity());
+        return new ReservationResponse(reservationId, request.skuCode(), request.quantity(),
+                ReservationStatus.PENDING, expiresAt);
+    }
+
+    /**
+     * One pending reservation per SKU for a whole cart, all or none: the first short line fails every line. Lines
+     * for the same SKU are merged, and rows are taken in SKU order so two carts cannot deadlock each other.
+     */
+    @Transactional
+    public List<ReservationResponse> reserveAll(List<InventoryRequest> requests) {
+        if(requests == null || requests.isEmpty()){
+            throw new IllegalArgumentException("At least one line is required to reserve inventory");
+        }
+        SortedMap<String, Integer> quantities = new TreeMap<>();
+        for(InventoryRequest request : requests){
+            if(request.skuCode() == null || request.quantity() == null || request.quantity() <= 0){
+                throw new IllegalArgumentException("Quantity to reserve must be positive for skuCode " + request.skuCode());
+            }
+            quantities.merge(request.skuCode(), request.quantity(), Integer::sum);
+        }
+
+        Instant expiresAt = clock.instant().plus(ttl);
+        Map<String, LocationStock.Placed> placed;
+        if(stockLedger != null){
+            placed = placeInLedger(quantities, expiresAt);
+        }else if(locationStock != null){
+            placed = locationStock.reserveAll(quantities, expiresAt, inventoryService::stockFailure);
+        }else{
+            placed = new LinkedHashMap<>();
+            for(Map.Entry<String, Integer> line : quantities.entrySet()){
+                PlacedReservation reservation = reservationRepository.reserve(line.getKey(), line.getValue(), expiresAt)
+                        .orElseThrow(() -> inventoryService.stockFailure(line.getKey()));
+                placed.put(line.getKey(), new LocationStock.Placed(reservation.getReservationId(), reservation.getQuantity()));
+            }
+        }
+
+        List<ReservationResponse> responses = new ArrayList<>(placed.size());
+        placed.forEach((skuCode, reservation) -> {
+            expiries.schedule(reservation.reservationId(), expiresAt.toEpochMilli());
+            stockEventPublisher.decreased(skuCode, reservation.remaining(), quantities.get(skuCode));
+            responses.add(new ReservationResponse(reservation.reservationId(), skuCode, quantities.get(skuCode),
+                    ReservationStatus.PENDING, expiresAt));
+        });
+        return responses;
+    }
+
+    /** Idempotent: confirming an already confirmed reservation succeeds again. */
+    public ReservationResponse confirm(Long id) {
+        if(reservationRepository.confirm(id).isPresent()){
+            expiries.cancel(id);
+            return toResponse(findReservation(id));
+        }
+        Reservation reservation = findReservation(id);
+        if(reservation.getStatus() != ReservationStatus.CONFIRMED){
+            throw new ReservationStateException("Reservation " + id + " is " + reservation.getStatus() + " and cannot be confirmed");
+        }
+        return toResponse(reservation);
+    }
+
+    /** Idempotent: releasing a reservation that was already released or expired succeeds again. */
+    public ReservationResponse release(Long id) {
+        Map<String, Integer> restored = restore(List.of(id), ReservationStatus.RELEASED);
+        expiries.cancel(id);
+        Reservation reservation = findReservation(id);
+        if(restored.isEmpty() && reservation.getStatus() == ReservationStatus.CONFIRMED){
+            throw new ReservationStateException("Reservation " + id + " is already confirmed and cannot be released");
+        }
+        restored.forEach(stockEventPublisher::changed);
+        return toResponse(reservation);
+    }
+
+    /** Puts the pending reservations expiring before the next reload on the wheel, paging through the table. */
+    void reload() {
+        try {
+            Instant until = clock.instant().plusMillis(reloadMs);
+            Instant afterExpiresAt = Instant.EPOCH;
+            long afterId = 0;
+            List<PendingExpiry> page;
+            do {
+                page = reservationRepository.findPendingExpiring(until, afterExpiresAt, afterId, EXPIRY_BATCH_SIZE);
+                for (PendingExpiry pending : page) {
+                    expiries.schedule(pending.getId(), pending.getExpiresAt().toEpochMilli());
+                }
+                if (!page.isEmpty()) {
+                    afterExpiresAt = page.get(page.size() - 1).getExpiresAt();
+                    afterId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == EXPIRY_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.error("Reloading reservation expiries failed, retrying: {}", e.getMessage());
+        }
+    }
+
+    /** Releases the reservations the wheel says are due and that are still pending. */
+    void sweep() {
+        List<Long> due = expiries.advance(clock.millis());
+        for (int from = 0; from < due.size(); from += EXPIRY_BATCH_SIZE) {
+            try {
+                List<Long> pending = reservationRepository.findPendingIds(
+                        due.subList(from, Math.min(from + EXPIRY_BATCH_SIZE, due.size())));
+                if (pending.isEmpty()) {
+                    continue;
+                }
+                Map<String, Integer> restored = restore(pending, ReservationStatus.EXPIRED);
+                expired.increment(pending.size());
+                restored.forEach(stockEventPublisher::changed);
+            } catch (RuntimeException e) {
+                // The rows stay pending, so the next reload puts them back on the wheel rather than leaking the units.
+                log.error("Reservation expiry failed, retrying after the next reload: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Returns each SKU's available quantity after the units came back.
+    private Map<String, Integer> restore(List<Long> ids, ReservationStatus status) {
+        List<InventoryStock> restored;
+        if(stockLedger != null){
+            // Released in the table first: a crash before the ledger takes the units back loses them rather than
+            // handing them out twice.
+            SortedMap<String, Integer> released = new TreeMap<>();
+            reservationRepository.releaseHeld(ids, status.name())
+                    .forEach(stock -> released.put(stock.getSkuCode(), stock.getQuantity()));
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            stockLedger.addAll(released).forEach(stock -> quantities.put(stock.skuCode(), stock.quantity()));
+            return quantities;
+        }else if(locationStock != null){
+            List<String> skuCodes = reservationRepository.releaseToLocations(ids, status.name(), locationStock.defaultLocation())
+                    .stream().map(InventoryStock::getSkuCode).toList();
+            return locationStock.totals(skuCodes);
+        }else{
+            restored = reservationRepository.release(ids, status.name());
+        }
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        restored.forEach(stock -> quantities.put(stock.getSkuCode(), stock.getQuantity()));
+        return quantities;
+    }
+
+    /**
+     * With the ledger the units are taken in memory first and the reservations recorded after; should recording fail,
+     * or the caller's transaction roll back, they go back to the ledger. A crash in between loses the units instead
+     * of overselling them.
+     */
+    private Map<String, LocationStock.Placed> placeInLedger(SortedMap<String, Integer> quantities, Instant expiresAt) {
+        List<InventoryResponse> taken = stockLedger.reserveAll(quantities);
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if(inTransaction){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if(status != STATUS_COMMITTED){
+                        stockLedger.addAll(quantities);
+                    }
+                }
+            });
+        }
+        try{
+            Map<String, LocationStock.Placed> placed = new LinkedHashMap<>();
+            for(InventoryResponse remaining : taken){
+                Long reservationId = reservationRepository.placeHeld(remaining.skuCode(),
+                        quantities.get(remaining.skuCode()), expiresAt);
+                if(reservationId == null){
+                    throw new ResourceNotFoundException("Inventory not found for skuCode: " + remaining.skuCode());
+                }
+                placed.put(remaining.skuCode(), new LocationStock.Placed(reservationId, remaining.quantity()));
+            }
+            return placed;
+        }catch(RuntimeException e){
+            if(!inTransaction){
+                stockLedger.addAll(quantities);
+            }
+            throw e;
+        }
+    }
+
+    private Reservation findReservation(Long id) {
+        return reservationRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reservation not found: " + id));
+    }
+
+    private static ReservationResponse toResponse(Reservation reservation) {
+        return new ReservationResponse(reservation.getId(), reservation.getSkuCode(), reservation.getQuantity(),
+                reservation.getStatus(), reservation.getExpiresAt());
+    }
+}
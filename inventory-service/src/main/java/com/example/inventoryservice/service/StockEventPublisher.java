@@ -0,0 +1,205 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.kafka.InventoryEventProducer;
+import com.example.inventoryservice.model.Inventory;
+import com.example.inventoryservice.repository.InventoryRepository;
+import com.example.inventoryservice.repository.LowStockThreshold;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which stock changes reach inventory-events. Quantity updates are coalesced: the first change of a
+ * SKU opens a window of {@code inventory.events.update-window-ms}, and only the latest quantity seen in that
+ * window is sent. A quantity of zero is the exception and is sent at once, replacing any update still pending for
+ * the SKU, so consumers never keep offering stock that is gone. Low-stock and out-of-stock alerts are
+ * edge-triggered, sent once when a decrement crosses the SKU's threshold (or zero) rather than on every decrement
+ * below it.
+ * <p>
+ * Per-SKU thresholds live in {@code inventory.low_stock_threshold}; the ones off the default are held here
+ * and reloaded every {@code inventory.events.threshold-refresh-ms}, so a change made through another
+ * instance takes effect within that interval.
+ */
+@Component
+public class StockEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(StockEventPublisher.class);
+
+    private final InventoryEventProducer inventoryEventProducer;
+    private final InventoryRepository inventoryRepository;
+    private final long updateWindowMs;
+    private final long thresholdRefreshMs;
+
+    private final ConcurrentHashMap<String, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    // Orders pending updates against bulk changes, see mark().
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile Map<String, Integer> thresholds = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Counter sentUpdates;
+    private final Counter coalescedUpdates;
+    private final Counter alerts;
+
+    public StockEventPublisher(InventoryEventProducer inventoryEventProducer,
+                               InventoryRepository inventoryRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventory.events.update-window-ms:250}") long updateWindowMs,
+                               @Value("${inventory.events.threshold-refresh-ms:60000}") long thresholdRefreshMs) {
+        this.inventoryEventProducer = inventoryEventProducer;
+        this.inventoryRepository = inventoryRepository;
+        this.updateWindowMs = updateWindowMs;
+        this.thresholdRefreshMs = thresholdRefreshMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-event-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sentUpdates = Counter.builder("inventory.events.updates")
+                .description("Quantity changes and whether they reached inventory-events")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.coalescedUpdates = Counter.builder("inventory.events.updates")
+                .description("Quantity changes and whether they reached inventory-events")
+                .tag("outcome", "coalesced")
+                .register(meterRegistry);
+        this.alerts = Counter.builder("inventory.events.alerts")
+                .description("Low-stock and out-of-stock alerts sent")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        refreshThresholds();
+        if (thresholdRefreshMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::refreshThresholds, thresholdRefreshMs, thresholdRefreshMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Quantity went from {@code quantity + decreasedBy} to {@code quantity}. */
+    public void decreased(String skuCode, int quantity, int decreasedBy) {
+        changed(skuCode, quantity);
+
+        int previous = quantity + decreasedBy;
+        int threshold = thresholdOf(skuCode);
+        if (previous > threshold && quantity <= threshold) {
+            inventoryEventProducer.sendInventoryLowStockEvent(skuCode, quantity);
+            alerts.increment();
+        }
+        if (previous > 0 && quantity == 0) {
+            inventoryEventProducer.sendInventoryOutOfStockEvent(skuCode);
+            alerts.increment();
+        }
+    }
+
+    /** Any other change (restock, upsert, released reservation): an update event only, never an alert. */
+    public void changed(String skuCode, int quantity) {
+        if (updateWindowMs <= 0) {
+            send(skuCode, quantity);
+            return;
+        }
+        if (quantity == 0) {
+            if (pendingUpdates.remove(skuCode) != null) {
+                coalescedUpdates.increment();
+            }
+            send(skuCode, quantity);
+            return;
+        }
+        if (pendingUpdates.put(skuCode, new PendingUpdate(quantity, sequence.incrementAndGet())) == null) {
+            scheduler.schedule(() -> flush(skuCode), updateWindowMs, TimeUnit.MILLISECONDS);
+        } else {
+            coalescedUpdates.increment();
+        }
+    }
+
+    /** Taken before a bulk change is written and handed to {@link #batchChanged}. */
+    public long mark() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Bulk changes go out as batch records right away. A coalesced update still pending for one of these SKUs is
+     * dropped only when it was recorded before {@code mark}, as the bulk change then holds a newer quantity; one
+     * recorded since may be newer than the bulk change and is still sent after it.
+     */
+    public void batchChanged(List<InventoryResponse> changes, long mark) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        changes.forEach(change -> pendingUpdates.computeIfPresent(change.skuCode(),
+                (skuCode, pending) -> pending.sequence() < mark ? null : pending));
+        try {
+            inventoryEventProducer.sendInventoryBatchUpdatedEvent(changes);
+            sentUpdates.increment(changes.size());
+        } catch (RuntimeException e) {
+            log.error("Could not send batch inventory update for {} SKUs: {}", changes.size(), e.getMessage());
+        }
+    }
+
+    public void thresholdChanged(String skuCode, int threshold) {
+        if (threshold == Inventory.DEFAULT_LOW_STOCK_THRESHOLD) {
+            thresholds.remove(skuCode);
+        } else {
+            thresholds.put(skuCode, threshold);
+        }
+    }
+
+    int thresholdOf(String skuCode) {
+        return thresholds.getOrDefault(skuCode, Inventory.DEFAULT_LOW_STOCK_THRESHOLD);
+    }
+
+    void flushAll() {
+        pendingUpdates.keySet().forEach(this::flush);
+    }
+
+    private void flush(String skuCode) {
+        PendingUpdate pending = pendingUpdates.remove(skuCode);
+        if (pending != null) {
+            send(skuCode, pending.quantity());
+        }
+    }
+
+    private void send(String skuCode, int quantity) {
+        try {
+            inventoryEventProducer.sendInventoryUpdatedEvent(skuCode, quantity);
+            sentUpdates.increment();
+        } catch (RuntimeException e) {
+            log.error("Could not send inventory update for skuCode {}: {}", skuCode, e.getMessage());
+        }
+    }
+
+    private void refreshThresholds() {
+        try {
+            thresholds = inventoryRepository.findLowStockThresholdsOtherThan(Inventory.DEFAULT_LOW_STOCK_THRESHOLD)
+                    .stream()
+                    .collect(Collectors.toConcurrentMap(LowStockThreshold::getSkuCode,
+                            LowStockThreshold::getLowStockThreshold));
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh low-stock thresholds, keeping {} known ones: {}",
+                    thresholds.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        flushAll();
+    }
+
+    private record PendingUpdate(int quantity, long sequence) {}
+}
@@ -0,0 +1,166 @@
+package com.example.inventoryservice.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of absolute quantities, one fixed-size record {@code (inventory id, quantity, check)} per
+ * change, split into numbered segments. Replaying the segments in order and keeping the last value per id
+ * restores every change that was not yet written to the database. A torn record at the end of a segment,
+ * left by a crash mid-write, fails its check and ends the replay of that segment.
+ * <p>
+ * With fsync enabled, {@link #awaitDurable(long)} forces the file at most once per group of waiting writers.
+ */
+class StockJournal implements AutoCloseable {
+
+    private static final int RECORD_SIZE = Long.BYTES + Integer.BYTES * 2;
+    private static final String SEGMENT_PREFIX = "stock-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private long segmentNumber;
+    private long written;
+    private volatile long synced;
+
+    StockJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(directory);
+            List<Path> existing = segments();
+            segmentNumber = existing.isEmpty() ? 0 : numberOf(existing.get(existing.size() - 1));
+            openNextSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock journal in " + directory, e);
+        }
+    }
+
+    /** Appends a record and returns the position to pass to {@link #awaitDurable(long)}. */
+    synchronized long append(long inventoryId, int quantity) {
+        record.clear();
+        record.putLong(inventoryId).putInt(quantity).putInt(check(inventoryId, quantity)).flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to stock journal", e);
+        }
+        return ++written;
+    }
+
+    void awaitDurable(long position) {
+        if (!fsync || synced >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            long upTo;
+            FileChannel current;
+            synchronized (this) {
+                upTo = written;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync stock journal", e);
+            }
+            synced = upTo;
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Returns every segment closed so far; once the
+     * values they hold are in the database they can be passed to {@link #delete(List)}.
+     */
+    synchronized List<Path> rotate() {
+        try {
+            if (fsync) {
+                channel.force(false);
+                synced = written;
+            }
+            channel.close();
+            openNextSegment();
+            List<Path> closed = segments();
+            closed.remove(closed.size() - 1);
+            return closed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rotate stock journal", e);
+        }
+    }
+
+    List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> segments = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .toList());
+            segments.sort((a, b) -> Long.compare(numberOf(a), numberOf(b)));
+            return segments;
+        }
+    }
+
+    void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete journal segment " + segment, e);
+            }
+        }
+    }
+
+    static void replay(Path segment, RecordConsumer consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        while (buffer.remaining() >= RECORD_SIZE) {
+            long id = buffer.getLong();
+            int quantity = buffer.getInt();
+            if (buffer.getInt() != check(id, quantity)) {
+                return;
+            }
+            consumer.accept(id, quantity);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void openNextSegment() throws IOException {
+        segmentNumber++;
+        channel = FileChannel.open(directory.resolve(SEGMENT_PREFIX + segmentNumber + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static long numberOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int check(long id, int quantity) {
+        return Long.hashCode(id * 31 + quantity) ^ 0x5EED;
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(long inventoryId, int quantity);
+    }
+}
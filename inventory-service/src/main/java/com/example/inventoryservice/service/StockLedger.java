@@ -0,0 +1,300 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.InventoryUpsertResult;
+import com.example.inventoryservice.exception.InsufficientStockException;
+import com.example.inventoryservice.exception.ResourceNotFoundException;
+import com.example.inventoryservice.model.Inventory;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import com.example.inventoryservice.repository.InventoryRepository;
+import com.example.inventoryservice.repository.InventoryUpsert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * In-memory stock, authoritative for this process, enabled with {@code inventory.ledger.enabled=true}.
+ * Stock checks are plain reads; changes take one of a fixed set of striped locks, update the counter and
+ * append the new value to a local {@link StockJournal} before returning. Changed rows are written to the
+ * {@code inventory} table in batches in the background. On startup the table is loaded and the journal
+ * replayed on top, so changes that never reached the database survive a crash.
+ * <p>
+ * Because the ledger owns the numbers, only one inventory-service instance may run in this mode, and every
+ * stock change has to go through it; {@link StockWriterLock} stops a second instance from starting.
+ */
+@Component
+@DependsOn("stockWriterLock")
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+public class StockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+    private static final int STRIPES = 256;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final Path journalDirectory;
+    private final boolean fsync;
+    private final long flushIntervalMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Object[] stripes = new Object[STRIPES];
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-ledger-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private StockJournal journal;
+
+    public StockLedger(InventoryRepository inventoryRepository,
+                       InventoryBatchRepository inventoryBatchRepository,
+                       @Value("${inventory.ledger.journal-dir:./data/stock-journal}") Path journalDirectory,
+                       @Value("${inventory.ledger.journal-fsync:true}") boolean fsync,
+                       @Value("${inventory.ledger.flush-interval-ms:200}") long flushIntervalMs) {
+        this.inventoryRepository = inventoryRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.journalDirectory = journalDirectory;
+        this.fsync = fsync;
+        this.flushIntervalMs = flushIntervalMs;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    void recover() {
+        for (Inventory inventory : inventoryRepository.findAll()) {
+            entries.put(inventory.getSkuCode(), new Entry(inventory.getId(), inventory.getSkuCode(), inventory.getQuantity()));
+        }
+
+        journal = new StockJournal(journalDirectory, fsync);
+        List<Path> pending = journal.rotate();
+        Map<Long, Entry> byId = new HashMap<>();
+        entries.values().forEach(entry -> byId.put(entry.id, entry));
+        int replayed = 0;
+        for (Path segment : pending) {
+            try {
+                StockJournal.replay(segment, (id, quantity) -> {
+                    Entry entry = byId.get(id);
+                    if (entry != null) {
+                        entry.quantity.set(quantity);
+                        dirty.add(entry.skuCode);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot replay journal segment " + segment, e);
+            }
+            replayed++;
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} stock journal segments for {} SKUs", replayed, dirty.size());
+        }
+        flush();
+
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isInStock(String skuCode, int quantity) {
+        Entry entry = entries.get(skuCode);
+        return entry != null && entry.quantity.get() >= quantity;
+    }
+
+    public Optional<InventoryResponse> find(String skuCode) {
+        return Optional.ofNullable(entries.get(skuCode)).map(Entry::toResponse);
+    }
+
+    public List<InventoryResponse> findAll(Collection<String> skuCodes) {
+        return skuCodes.stream()
+                .map(entries::get)
+                .filter(Objects::nonNull)
+                .map(Entry::toResponse)
+                .toList();
+    }
+
+    /** Empty when the SKU is unknown or short on stock, like the conditional UPDATE it replaces. */
+    public Optional<InventoryResponse> decrement(String skuCode, int quantity) {
+        Entry entry = entries.get(skuCode);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long position;
+        int remaining;
+        synchronized (stripeOf(skuCode)) {
+            remaining = entry.quantity.get() - quantity;
+            if (remaining < 0) {
+                return Optional.empty();
+            }
+            position = record(entry, remaining);
+        }
+        journal.awaitDurable(position);
+        return Optional.of(new InventoryResponse(entry.id, skuCode, remaining));
+    }
+
+    /** Takes every line or none. Stripes are locked in a fixed order so concurrent carts cannot deadlock. */
+    public List<InventoryResponse> reserveAll(SortedMap<String, Integer> quantities) {
+        List<Entry> lines = new ArrayList<>(quantities.size());
+        for (String skuCode : quantities.keySet()) {
+            Entry entry = entries.get(skuCode);
+            if (entry == null) {
+                throw new ResourceNotFoundException("Inventory not found for skuCode: " + skuCode);
+            }
+            lines.add(entry);
+        }
+
+        int[] stripeIndexes = quantities.keySet().stream().mapToInt(StockLedger::stripeIndex).distinct().sorted().toArray();
+        List<InventoryResponse> reserved = new ArrayList<>(lines.size());
+        long position = lockAndRun(stripeIndexes, 0, () -> {
+            for (Entry entry : lines) {
+                if (entry.quantity.get() < quantities.get(entry.skuCode)) {
+                    throw new InsufficientStockException("Insufficient stock for skuCode " + entry.skuCode);
+                }
+            }
+            long last = 0;
+            for (Entry entry : lines) {
+                int remaining = entry.quantity.get() - quantities.get(entry.skuCode);
+                last = record(entry, remaining);
+                reserved.add(new InventoryResponse(entry.id, entry.skuCode, remaining));
+            }
+            return last;
+        });
+        journal.awaitDurable(position);
+        return reserved;
+    }
+
+    /** Puts units back to SKUs the ledger already holds, e.g. a released reservation's; unknown SKUs are skipped. */
+    public List<InventoryResponse> addAll(SortedMap<String, Integer> quantities) {
+        List<Entry> lines = quantities.keySet().stream().map(entries::get).filter(Objects::nonNull).toList();
+        int[] stripeIndexes = lines.stream().mapToInt(entry -> stripeIndex(entry.skuCode)).distinct().sorted().toArray();
+        List<InventoryResponse> added = new ArrayList<>(lines.size());
+        long position = lockAndRun(stripeIndexes, 0, () -> {
+            long last = 0;
+            for (Entry entry : lines) {
+                int updated = entry.quantity.get() + quantities.get(entry.skuCode);
+                last = record(entry, updated);
+                added.add(new InventoryResponse(entry.id, entry.skuCode, updated));
+            }
+            return last;
+        });
+        journal.awaitDurable(position);
+        return added;
+    }
+
+    /**
+     * Adds stock in memory. A SKU the ledger has never seen is first created in the database through
+     * {@code create}, which also gives it the id the journal and write-behind refer to.
+     */
+    public InventoryUpsertResult upsert(String skuCode, int quantity, Supplier<InventoryUpsert> create) {
+        long position;
+        InventoryResponse response;
+        synchronized (stripeOf(skuCode)) {
+            Entry entry = entries.get(skuCode);
+            if (entry == null) {
+                InventoryUpsert inserted = create.get();
+                entry = new Entry(inserted.getId(), skuCode, inserted.getQuantity());
+                entries.put(skuCode, entry);
+                return new InventoryUpsertResult(entry.toResponse(), Boolean.TRUE.equals(inserted.getInserted()));
+            }
+            int updated = entry.quantity.get() + quantity;
+            position = record(entry, updated);
+            response = new InventoryResponse(entry.id, skuCode, updated);
+        }
+        journal.awaitDurable(position);
+        return new InventoryUpsertResult(response, false);
+    }
+
+    void flush() {
+        synchronized (flushLock) {
+            List<Path> covered = journal.rotate();
+            // Everything journaled into the closed segments was marked dirty first, so it is drained here.
+            Map<Long, Integer> quantities = new HashMap<>();
+            List<String> drained = new ArrayList<>();
+            for (String skuCode : dirty) {
+                dirty.remove(skuCode);
+                drained.add(skuCode);
+                Entry entry = entries.get(skuCode);
+                quantities.put(entry.id, entry.quantity.get());
+            }
+            try {
+                inventoryBatchRepository.updateQuantities(quantities);
+            } catch (RuntimeException e) {
+                dirty.addAll(drained);
+                throw e;
+            }
+            journal.delete(covered);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        flusher.shutdown();
+        flushQuietly();
+        journal.close();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Stock ledger write-behind failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Caller holds the entry's stripe lock, so journal order matches the order of changes per SKU.
+    private long record(Entry entry, int quantity) {
+        entry.quantity.set(quantity);
+        dirty.add(entry.skuCode);
+        return journal.append(entry.id, quantity);
+    }
+
+    private long lockAndRun(int[] stripeIndexes, int from, Supplier<Long> action) {
+        if (from == stripeIndexes.length) {
+            return action.get();
+        }
+        synchronized (stripes[stripeIndexes[from]]) {
+            return lockAndRun(stripeIndexes, from + 1, action);
+        }
+    }
+
+    private Object stripeOf(String skuCode) {
+        return stripes[stripeIndex(skuCode)];
+    }
+
+    private static int stripeIndex(String skuCode) {
+        int hash = skuCode.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String skuCode;
+        private final AtomicInteger quantity;
+
+        private Entry(long id, String skuCode, int quantity) {
+            this.id = id;
+            this.skuCode = skuCode;
+            this.quantity = new AtomicInteger(quantity);
+        }
+
+        private InventoryResponse toResponse() {
+            return new InventoryResponse(id, skuCode, quantity.get());
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.StockLevel;
+import com.example.inventoryservice.exception.StreamCapacityException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes stock-level changes to Server-Sent Events subscribers. Connections are async requests, so an idle
+ * subscriber holds a socket but no thread; a small sender pool does the writes, at most one task per
+ * connection at a time.
+ * <p>
+ * Each connection buffers at most {@code inventory.stream.queue-capacity} events. A client that falls that
+ * far behind is disconnected rather than buffered for; EventSource reconnects on its own and the new
+ * connection starts from a fresh snapshot. A heartbeat comment every {@code inventory.stream.heartbeat-ms}
+ * keeps proxies from closing idle streams and finds dead ones.
+ * <p>
+ * A write blocks its sender thread while the client's socket buffer is full. One that takes longer than
+ * {@code inventory.stream.write-timeout-ms} evicts its client, and the pool gets a thread in place of the stuck one
+ * until the write fails on the connector's timeout, so a few stalled clients cannot hold up every stream.
+ * <p>
+ * Changes are fed from the per-instance inventory-events listener, so every instance streams the changes
+ * made through any of them.
+ */
+@Component
+public class StockStream {
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final InventoryService inventoryService;
+    private final int maxConnections;
+    private final int maxSkus;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final long writeTimeoutNanos;
+    private final Executor sender;
+    private final ScheduledExecutorService heartbeats;
+
+    private final Map<String, Set<Subscriber>> subscribersBySku = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter sentEvents;
+    private final Counter slowConsumers;
+    private final Counter stalledWrites;
+
+    public StockStream(InventoryService inventoryService,
+                       MeterRegistry meterRegistry,
+                       @Value("${inventory.stream.max-connections:20000}") int maxConnections,
+                       @Value("${inventory.stream.max-skus:200}") int maxSkus,
+                       @Value("${inventory.stream.queue-capacity:64}") int queueCapacity,
+                       @Value("${inventory.stream.timeout-ms:1800000}") long timeoutMs,
+                       @Value("${inventory.stream.heartbeat-ms:20000}") long heartbeatMs,
+                       @Value("${inventory.stream.sender-threads:4}") int senderThreads,
+                       @Value("${inventory.stream.write-timeout-ms:5000}") long writeTimeoutMs) {
+        this(inventoryService, meterRegistry, maxConnections, maxSkus, queueCapacity, timeoutMs, writeTimeoutMs,
+                Executors.newFixedThreadPool(senderThreads, daemon("stock-stream-sender")));
+        if (heartbeatMs > 0) {
+            heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        }
+        if (writeTimeoutMs > 0) {
+            long checkMs = Math.max(writeTimeoutMs / 4, 100);
+            heartbeats.scheduleWithFixedDelay(this::evictStalledWrites, checkMs, checkMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    StockStream(InventoryService inventoryService, MeterRegistry meterRegistry, int maxConnections, int maxSkus,
+                int queueCapacity, long timeoutMs, long writeTimeoutMs, Executor sender) {
+        this.inventoryService = inventoryService;
+        this.maxConnections = maxConnections;
+        this.maxSkus = maxSkus;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMs);
+        this.sender = sender;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemon("stock-stream-heartbeat"));
+
+        Gauge.builder("inventory.stream.connections", connections, AtomicInteger::get)
+                .description("Open stock-level streams")
+                .register(meterRegistry);
+        this.sentEvents = Counter.builder("inventory.stream.events")
+                .description("Stock-level events written to streams")
+                .register(meterRegistry);
+        this.slowConsumers = Counter.builder("inventory.stream.slow-consumers")
+                .description("Streams closed because their client fell too far behind")
+                .register(meterRegistry);
+        this.stalledWrites = Counter.builder("inventory.stream.stalled-writes")
+                .description("Streams closed because a single write outlasted the write timeout")
+                .register(meterRegistry);
+    }
+
+    /** Opens a stream of {@code stock} events for {@code skuCodes}, starting with their current levels. */
+    public SseEmitter subscribe(Collection<String> skuCodes) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(emitter, skuCodes);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter, Collection<String> skuCodes) {
+        Set<String> skus = skuCodes == null ? Set.of() : Set.copyOf(skuCodes);
+        if (skus.isEmpty() || skus.size() > maxSkus) {
+            throw new IllegalArgumentException("Between 1 and " + maxSkus + " skuCodes can be streamed at once");
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new StreamCapacityException("Too many open stock streams, retry later");
+        }
+
+        // Read and queue before registering, so no live event can be queued ahead of the snapshot and be
+        // overwritten by it. Events lag commits by the publisher's window and Kafka, so a change committed after
+        // the read still reaches the subscriber once it is registered.
+        List<InventoryResponse> snapshot;
+        try {
+            snapshot = inventoryService.getInventoryBySkuCodes(skus);
+        } catch (RuntimeException e) {
+            connections.decrementAndGet();
+            throw e;
+        }
+        Subscriber subscriber = new Subscriber(emitter, skus);
+        snapshot.forEach(level -> subscriber.offer(new StockLevel(level.skuCode(), level.quantity())));
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        for (String sku : skus) {
+            subscribersBySku.compute(sku, (key, set) -> {
+                Set<Subscriber> interested = set != null ? set : ConcurrentHashMap.<Subscriber>newKeySet();
+                interested.add(subscriber);
+                return interested;
+            });
+        }
+        if (subscriber.closed.get()) {
+            // Failed while writing the snapshot; close() ran before there was anything to remove.
+            subscriber.unregister();
+        }
+    }
+
+    public void publish(String skuCode, int quantity) {
+        Set<Subscriber> interested = subscribersBySku.get(skuCode);
+        if (interested == null) {
+            return;
+        }
+        StockLevel level = new StockLevel(skuCode, quantity);
+        for (Subscriber subscriber : interested) {
+            subscriber.offer(level);
+        }
+    }
+
+    int connections() {
+        return connections.get();
+    }
+
+    void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+
+    void evictStalledWrites() {
+        long now = System.nanoTime();
+        subscribers.forEach(subscriber -> subscriber.evictIfStalled(now));
+    }
+
+    // Lends the sender pool a thread for as long as one of its threads is stuck in an evicted client's write.
+    private void resizeSender(int delta) {
+        if (sender instanceof ThreadPoolExecutor pool) {
+            synchronized (pool) {
+                if (delta > 0) {
+                    pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                    pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                } else {
+                    pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+                    pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicLong count = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Set<String> skus;
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean completeWhenDrained = new AtomicBoolean();
+        // The sender thread inside emitter.send and since when; guarded by this.
+        private Thread writer;
+        private long writeStartedNanos;
+        private boolean stalled;
+
+        Subscriber(SseEmitter emitter, Set<String> skus) {
+            this.emitter = emitter;
+            this.skus = skus;
+            // Room for the snapshot on top of the configured backlog.
+            this.queue = new ArrayBlockingQueue<>(queueCapacity + skus.size());
+        }
+
+        void offer(Object event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // Completed by the sender: completing here would wait for the very write this client is stuck on.
+                slowConsumers.increment();
+                completeWhenDrained.set(true);
+                close();
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                Object event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    startWrite();
+                    try {
+                        if (event == HEARTBEAT) {
+                            emitter.send(SseEmitter.event().comment("heartbeat"));
+                        } else {
+                            emitter.send(SseEmitter.event().name("stock").data(event));
+                            sentEvents.increment();
+                        }
+                    } catch (IOException | IllegalStateException e) {
+                        close();
+                        emitter.completeWithError(e);
+                    } finally {
+                        endWrite();
+                    }
+                }
+                draining.set(false);
+                // An offer that lost the race with set(false) above left its event for this loop.
+            } while (!closed.get() && !queue.isEmpty() && draining.compareAndSet(false, true));
+            if (completeWhenDrained.compareAndSet(true, false)) {
+                emitter.complete();
+            }
+        }
+
+        private synchronized void startWrite() {
+            writer = Thread.currentThread();
+            writeStartedNanos = System.nanoTime();
+        }
+
+        private void endWrite() {
+            boolean wasStalled;
+            synchronized (this) {
+                writer = null;
+                wasStalled = stalled;
+                stalled = false;
+            }
+            // No interrupt can arrive once writer is cleared; drop one that came after the write had returned.
+            Thread.interrupted();
+            if (wasStalled) {
+                resizeSender(-1);
+            }
+        }
+
+        synchronized void evictIfStalled(long now) {
+            if (writer == null || stalled || now - writeStartedNanos < writeTimeoutNanos) {
+                return;
+            }
+            stalled = true;
+            stalledWrites.increment();
+            close();
+            resizeSender(1);
+            // Breaks the write where the connector honours interrupts; otherwise its own write timeout does.
+            writer.interrupt();
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            unregister();
+            queue.clear();
+            connections.decrementAndGet();
+        }
+
+        void unregister() {
+            subscribers.remove(this);
+            for (String sku : skus) {
+                subscribersBySku.computeIfPresent(sku, (key, set) -> {
+                    set.remove(this);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+        }
+    }
+}
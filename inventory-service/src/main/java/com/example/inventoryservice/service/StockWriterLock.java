@@ -0,0 +1,70 @@
+package com.example.inventoryservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Keeps a {@link StockLedger} from sharing the {@code inventory} table with any other instance. Its write-behind
+ * stores absolute quantities, so a second writer's changes would be overwritten on the next flush. A ledger
+ * instance holds a PostgreSQL advisory lock exclusively and every other instance holds it shared, each on a
+ * connection kept open for the life of the process; whichever starts second fails instead of running.
+ */
+@Component
+public class StockWriterLock {
+
+    private static final Logger log = LoggerFactory.getLogger(StockWriterLock.class);
+    // "STOCK" in ASCII; only has to differ from other advisory locks taken in the same database.
+    static final long LOCK_KEY = 0x53_54_4F_43_4BL;
+
+    private final DataSource dataSource;
+    private final boolean ledgerEnabled;
+
+    private Connection connection;
+
+    public StockWriterLock(DataSource dataSource, @Value("${inventory.ledger.enabled:false}") boolean ledgerEnabled) {
+        this.dataSource = dataSource;
+        this.ledgerEnabled = ledgerEnabled;
+    }
+
+    @PostConstruct
+    void acquire() throws SQLException {
+        connection = dataSource.getConnection();
+        boolean acquired;
+        try (PreparedStatement statement = connection.prepareStatement(ledgerEnabled
+                ? "SELECT pg_try_advisory_lock(?)" : "SELECT pg_try_advisory_lock_shared(?)")) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                acquired = rs.next() && rs.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            release();
+            throw e;
+        }
+        if (!acquired) {
+            release();
+            throw new IllegalStateException(ledgerEnabled
+                    ? "inventory.ledger.enabled needs to be the only inventory-service instance, but another one is running"
+                    : "Another inventory-service instance runs with inventory.ledger.enabled; it has to be the only one");
+        }
+        log.info("Holding the stock writer lock {}", ledgerEnabled ? "exclusively for the stock ledger" : "shared");
+    }
+
+    // Runs after the ledger's final flush, since the ledger depends on this bean.
+    @PreDestroy
+    void release() throws SQLException {
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+}
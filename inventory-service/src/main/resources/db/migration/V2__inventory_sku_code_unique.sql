@@ -0,0 +1,25 @@
+-- V2__inventory_sku_code_unique.sql
+-- INSERT ... ON CONFLICT (sku_code) needs a unique index on sku_code, which V1 never created.
+
+UPDATE inventory SET quantity = 0 WHERE quantity IS NULL;
+
+-- Fold any duplicate rows into the oldest one before the constraint is added
+UPDATE inventory i
+SET quantity = d.total
+FROM (SELECT MIN(id) AS id, SUM(quantity) AS total
+      FROM inventory
+      GROUP BY sku_code
+      HAVING COUNT(*) > 1) d
+WHERE i.id = d.id;
+
+DELETE FROM inventory i
+USING inventory keep
+WHERE i.sku_code = keep.sku_code
+  AND i.id > keep.id;
+
+ALTER TABLE inventory
+    ALTER COLUMN sku_code SET NOT NULL,
+    ALTER COLUMN quantity SET NOT NULL;
+
+ALTER TABLE inventory
+    ADD CONSTRAINT uk_inventory_sku_code UNIQUE (sku_code);
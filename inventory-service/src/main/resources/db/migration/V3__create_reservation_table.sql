@@ -0,0 +1,18 @@
+-- V3__create_reservation_table.sql
+-- quantity stays the available stock, so an availability check is still a single read.
+-- Reserved units move to reserved_quantity until the reservation is confirmed, released or expires.
+
+ALTER TABLE inventory
+    ADD COLUMN reserved_quantity INTEGER NOT NULL DEFAULT 0;
+
+CREATE TABLE reservation (
+    id BIGSERIAL PRIMARY KEY,
+    sku_code VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    expires_at TIMESTAMPTZ NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Only pending reservations are ever looked up in bulk (expiry recovery on startup)
+CREATE INDEX idx_reservation_pending_expires_at ON reservation (expires_at) WHERE status = 'PENDING';
@@ -0,0 +1,5 @@
+-- V4__inventory_low_stock_threshold.sql
+-- Per-SKU low-stock alert level; 5 was the hard-coded level before, see Inventory.DEFAULT_LOW_STOCK_THRESHOLD.
+
+ALTER TABLE inventory
+    ADD COLUMN low_stock_threshold INTEGER NOT NULL DEFAULT 5;
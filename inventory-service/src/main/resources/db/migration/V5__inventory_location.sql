@@ -0,0 +1,20 @@
+-- V5__inventory_location.sql
+-- Per-location stock for inventory.locations.enabled. inventory.quantity stays the SKU's total, but in location mode
+-- decrements only update these rows and queue their change to it in inventory_total_delta (V7), which is folded into
+-- the total in the background; availability checks sum these rows instead.
+-- The rows are filled from the totals when location mode first starts, see LocationStock.
+
+CREATE TABLE inventory_location (
+    sku_code VARCHAR(255) NOT NULL REFERENCES inventory (sku_code) ON DELETE CASCADE,
+    location_code VARCHAR(64) NOT NULL,
+    quantity INTEGER NOT NULL CHECK (quantity >= 0),
+    PRIMARY KEY (sku_code, location_code)
+);
+
+-- Where a pending reservation's units came from, so a release puts them back there
+CREATE TABLE reservation_allocation (
+    reservation_id BIGINT NOT NULL REFERENCES reservation (id) ON DELETE CASCADE,
+    location_code VARCHAR(64) NOT NULL,
+    quantity INTEGER NOT NULL,
+    PRIMARY KEY (reservation_id, location_code)
+);
@@ -0,0 +1,10 @@
+-- V6__consumed_offset.sql
+-- Last offset applied per partition of a topic whose records add stock. It is written in the same transaction as the
+-- stock, so records redelivered after that transaction committed are recognised and skipped.
+
+CREATE TABLE consumed_offset (
+    topic VARCHAR(255) NOT NULL,
+    partition_id INTEGER NOT NULL,
+    last_offset BIGINT NOT NULL,
+    PRIMARY KEY (topic, partition_id)
+);
@@ -0,0 +1,11 @@
+-- V7__inventory_total_delta.sql
+-- Changes to SKU totals queued by location-mode decrements and releases, so those only insert here instead of
+-- waiting on the SKU's inventory row. LocationStock deletes them and adds them to inventory in the background.
+-- No foreign key: checking one would lock the inventory row the queue is there to keep off the decrement path.
+
+CREATE TABLE inventory_total_delta (
+    id BIGSERIAL PRIMARY KEY,
+    sku_code VARCHAR(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    reserved INTEGER NOT NULL
+);
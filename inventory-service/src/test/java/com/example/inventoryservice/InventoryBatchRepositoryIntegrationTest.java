@@ -0,0 +1,114 @@
+package com.example.inventoryservice;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the bulk import's COPY into the temp table and its {@code INSERT ... ON CONFLICT ... RETURNING} merge
+ * against a real PostgreSQL. One connection serves every transaction, as a pooled connection would, so the temp
+ * table outlives a chunk.
+ */
+@Testcontainers
+class InventoryBatchRepositoryIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+            .withDatabaseName("inventory-db")
+            .withUsername("postgres")
+            .withPassword("postgres");
+
+    private static SingleConnectionDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static InventoryBatchRepository repository;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        dataSource = new SingleConnectionDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword(), true);
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        repository = new InventoryBatchRepository(jdbcTemplate);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM inventory");
+        jdbcTemplate.update("INSERT INTO inventory (sku_code, quantity) VALUES ('SAME-SKU', 5), ('CHANGED-SKU', 3)");
+    }
+
+    @Test
+    void copyAndMerge_ShouldInsertNewSkusAndReturnOnlyChangedRows() {
+        // Act
+        List<InventoryResponse> changed = copyAndMerge(
+                "\"SAME-SKU\",5\n\"CHANGED-SKU\",7\n\"NEW-SKU\",4\n\"SKU,WITH \"\"QUOTES\"\"\",2\n");
+
+        // Assert
+        assertEquals(List.of("CHANGED-SKU", "NEW-SKU", "SKU,WITH \"QUOTES\""), skuCodes(changed));
+        assertEquals(Map.of("SAME-SKU", 5, "CHANGED-SKU", 7, "NEW-SKU", 4, "SKU,WITH \"QUOTES\"", 2), quantities());
+    }
+
+    @Test
+    void copyAndMerge_ShouldKeepLastRowOfRepeatedSku() {
+        // Act
+        List<InventoryResponse> changed = copyAndMerge("\"CHANGED-SKU\",9\n\"CHANGED-SKU\",1\n");
+
+        // Assert
+        assertEquals(1, changed.size());
+        assertEquals(1, changed.get(0).quantity());
+        assertEquals(1, quantities().get("CHANGED-SKU"));
+    }
+
+    @Test
+    void copyAndMerge_ShouldStartEachChunkWithAnEmptyTempTable() {
+        // Act
+        copyAndMerge("\"FIRST-SKU\",1\n");
+        jdbcTemplate.update("UPDATE inventory SET quantity = 0 WHERE sku_code = 'FIRST-SKU'");
+        List<InventoryResponse> changed = copyAndMerge("\"SECOND-SKU\",2\n");
+
+        // Assert
+        assertEquals(List.of("SECOND-SKU"), skuCodes(changed));
+        assertEquals(0, quantities().get("FIRST-SKU"));
+    }
+
+    private static List<InventoryResponse> copyAndMerge(String csv) {
+        return transactionTemplate.execute(status ->
+                repository.copyAndMerge(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static List<String> skuCodes(List<InventoryResponse> rows) {
+        return rows.stream().map(InventoryResponse::skuCode).sorted(Comparator.naturalOrder()).toList();
+    }
+
+    private static Map<String, Integer> quantities() {
+        return jdbcTemplate.query("SELECT sku_code, quantity FROM inventory", (rs, rowNum) ->
+                        Map.entry(rs.getString("sku_code"), rs.getInt("quantity"))).stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}
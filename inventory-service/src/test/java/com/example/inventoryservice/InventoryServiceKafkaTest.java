@@ -1,5 +1,9 @@
 package com.example.inventoryservice;
 
+import com.example.events.EventCodec;
+import com.example.events.EventHeaders;
+import com.example.events.EventType;
+import com.example.events.InventoryEvent;
 import com.example.inventoryservice.dto.InventoryRequest;
 import com.example.inventoryservice.dto.InventoryResponse;
 import com.example.inventoryservice.model.Inventory;
@@ -66,7 +70,7 @@ class InventoryServiceKafkaTest {
     @Autowired
     private InventoryService inventoryService;
 
-    private Consumer<String, String> consumer;
+    private Consumer<String, byte[]> consumer;
 
     @BeforeEach
     void setUp() {
@@ -83,7 +87,7 @@ class InventoryServiceKafkaTest {
         consumer = new DefaultKafkaConsumerFactory<>(
                 props,
                 new org.apache.kafka.common.serialization.StringDeserializer(),
-                new org.apache.kafka.common.serialization.StringDeserializer()
+                new org.apache.kafka.common.serialization.ByteArrayDeserializer()
         ).createConsumer();
 
         embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "inventory-events");
@@ -99,19 +103,22 @@ class InventoryServiceKafkaTest {
     void testKafkaIntegration_ShouldSendInventoryUpdatedEvent_WhenInventoryUpserted() {
         InventoryRequest request = new InventoryRequest("TEST-SKU", 10);
 
-        InventoryResponse response = inventoryService.upsertInventory(request);
+        InventoryResponse response = inventoryService.upsertInventory(request).inventory();
 
-        ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(15));
+        ConsumerRecords<String, byte[]> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(15));
 
         assertNotNull(records, "Records should not be null");
         assertTrue(records.count() > 0, "Should receive at least one record");
 
         boolean inventoryUpdatedFound = false;
-        for (ConsumerRecord<String, String> record : records) {
+        for (ConsumerRecord<String, byte[]> record : records) {
             if (record.topic().equals("inventory-events")) {
                 inventoryUpdatedFound = true;
-                assertTrue(record.value().contains("TEST-SKU"));
-                assertTrue(record.value().contains(String.valueOf(response.quantity())));
+                assertEquals("TEST-SKU", record.key());
+                assertEquals(EventType.INVENTORY_UPDATED,
+                        EventHeaders.readEventType(record.headers().lastHeader(EventHeaders.EVENT_TYPE).value()));
+                InventoryEvent event = EventCodec.decodeInventory(EventType.INVENTORY_UPDATED, record.key(), record.value());
+                assertEquals(response.quantity(), event.quantity());
                 break;
             }
         }
@@ -0,0 +1,75 @@
+package com.example.inventoryservice.kafka;
+
+import com.example.events.EventCodec;
+import com.example.events.EventHeaders;
+import com.example.events.EventType;
+import com.example.events.InventoryEvent;
+import com.example.inventoryservice.service.KnownSkuFilter;
+import com.example.inventoryservice.service.StockStream;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InstanceEventConsumerUnitTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("inventory-events", 0);
+
+    @Mock
+    private KnownSkuFilter knownSkuFilter;
+
+    @Mock
+    private StockStream stockStream;
+
+    @Mock
+    private ConsumerSeekCallback callback;
+
+    @Test
+    void onPartitionsAssigned_ShouldRewindToBeforeStartupOnlyOnce() {
+        // Arrange
+        long before = System.currentTimeMillis() - 60_000;
+        InstanceEventConsumer consumer = new InstanceEventConsumer(knownSkuFilter, stockStream, 60_000);
+
+        // Act
+        consumer.onPartitionsAssigned(Map.of(PARTITION, 10L), callback);
+        consumer.onPartitionsAssigned(Map.of(PARTITION, 12L), callback);
+
+        // Assert
+        verify(callback, times(1)).seekToTimestamp(eq(List.of(PARTITION)), longThat(timestamp -> timestamp >= before
+                && timestamp <= System.currentTimeMillis() - 60_000));
+    }
+
+    @Test
+    void consume_ShouldOnlyFeedFilter_WithRecordsBeforeTheLiveStart() {
+        // Arrange
+        InstanceEventConsumer consumer = new InstanceEventConsumer(knownSkuFilter, stockStream, 60_000);
+        consumer.onPartitionsAssigned(Map.of(PARTITION, 10L), callback);
+
+        // Act
+        consumer.consume(List.of(updated(9, "OLD-SKU", 4), updated(10, "NEW-SKU", 7)));
+
+        // Assert
+        verify(knownSkuFilter, times(1)).add("OLD-SKU");
+        verify(knownSkuFilter, times(1)).add("NEW-SKU");
+        verify(stockStream, never()).publish(eq("OLD-SKU"), anyInt());
+        verify(stockStream, times(1)).publish("NEW-SKU", 7);
+    }
+
+    private static ConsumerRecord<String, byte[]> updated(long offset, String skuCode, int quantity) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset,
+                skuCode, EventCodec.encode(InventoryEvent.updated(skuCode, quantity)));
+        record.headers().add(EventHeaders.SCHEMA_VERSION, EventHeaders.schemaVersion());
+        record.headers().add(EventHeaders.EVENT_TYPE, EventHeaders.eventType(EventType.INVENTORY_UPDATED));
+        return record;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.repository.LocationQuantity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AllocationStrategyUnitTest {
+
+    private static final List<LocationQuantity> STOCK = List.of(
+            new LocationQuantity("ALA", 2), new LocationQuantity("AST", 10), new LocationQuantity("SHY", 4));
+
+    @Test
+    void nearestFirst_ShouldFollowConfiguredOrder_AndSplitWhenNeeded() {
+        // Act
+        List<LocationQuantity> plan = AllocationStrategy.NEAREST_FIRST.allocate(STOCK, 5, List.of("SHY", "ALA"));
+
+        // Assert
+        assertEquals(List.of(new LocationQuantity("SHY", 4), new LocationQuantity("ALA", 1)), plan);
+    }
+
+    @Test
+    void mostStockFirst_ShouldTakeFromFullestLocation() {
+        // Act
+        List<LocationQuantity> plan = AllocationStrategy.MOST_STOCK_FIRST.allocate(STOCK, 5, List.of());
+
+        // Assert
+        assertEquals(List.of(new LocationQuantity("AST", 5)), plan);
+    }
+
+    @Test
+    void spread_ShouldPickOneLocationThatCoversTheLine() {
+        // Act
+        List<LocationQuantity> plan = AllocationStrategy.SPREAD.allocate(STOCK, 3, List.of());
+
+        // Assert
+        assertEquals(1, plan.size());
+        assertTrue(List.of("AST", "SHY").contains(plan.get(0).locationCode()));
+        assertEquals(3, plan.get(0).quantity());
+    }
+
+    @Test
+    void allocate_ShouldReturnEmptyPlan_WhenLocationsCannotCoverTheLine() {
+        for (AllocationStrategy strategy : AllocationStrategy.values()) {
+            assertTrue(strategy.allocate(STOCK, 17, List.of()).isEmpty(), strategy.name());
+        }
+    }
+}
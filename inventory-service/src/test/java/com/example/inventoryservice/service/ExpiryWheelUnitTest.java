@@ -0,0 +1,69 @@
+package com.example.inventoryservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiryWheelUnitTest {
+
+    private static final long TICK_MS = 1000;
+
+    @Test
+    void advance_ShouldFireEachIdOnce_WhenItsExpiryHasPassed() {
+        // Arrange
+        ExpiryWheel wheel = new ExpiryWheel(TICK_MS, 11, 0);
+        wheel.schedule(1L, 2_500);
+        wheel.schedule(1L, 2_500);
+        wheel.schedule(2L, 4_000);
+
+        // Act & Assert
+        assertEquals(List.of(), wheel.advance(2_000));
+        assertEquals(List.of(1L), wheel.advance(3_000));
+        assertEquals(List.of(2L), wheel.advance(4_000));
+        assertEquals(List.of(), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldKeepLaterIds_UntilTheirTurnComesRound() {
+        // Arrange: 25s away on a wheel that turns every 11s
+        ExpiryWheel wheel = new ExpiryWheel(TICK_MS, 11, 0);
+        wheel.schedule(1L, 25_000);
+
+        // Act & Assert
+        assertEquals(List.of(), wheel.advance(14_000));
+        assertEquals(List.of(), wheel.advance(24_000));
+        assertEquals(List.of(1L), wheel.advance(25_000));
+    }
+
+    @Test
+    void advance_ShouldFireEverythingDue_AfterAPauseLongerThanATurn() {
+        // Arrange
+        ExpiryWheel wheel = new ExpiryWheel(TICK_MS, 11, 0);
+        wheel.schedule(1L, 3_000);
+        wheel.schedule(2L, 9_000);
+        wheel.schedule(3L, 60_000);
+
+        // Act
+        List<Long> due = wheel.advance(40_000);
+
+        // Assert
+        assertEquals(List.of(1L, 2L), due.stream().sorted().toList());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void schedule_ShouldFireOverdueIdsOnNextAdvance_AndCancelShouldDropThem() {
+        // Arrange
+        ExpiryWheel wheel = new ExpiryWheel(TICK_MS, 11, 10_000);
+        wheel.schedule(1L, 5_000);
+        wheel.schedule(2L, 12_000);
+        wheel.cancel(2L);
+
+        // Act & Assert
+        assertEquals(List.of(1L), wheel.advance(10_000));
+        assertEquals(List.of(), wheel.advance(13_000));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.repository.InventoryQuantity;
+import com.example.inventoryservice.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotSkuDecrementCombinerUnitTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private HotSkuDecrementCombiner combiner;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        combiner = new HotSkuDecrementCombiner(inventoryRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry,
+                true, List.of("HOT-SKU"), 1000, 200_000, 256, 5000, 1);
+        callers = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        combiner.shutdown();
+    }
+
+    @Test
+    void decrement_ShouldGoStraightThrough_WhenSkuIsNotHot() {
+        // Act
+        Optional<InventoryQuantity> result = combiner.decrement("COLD-SKU", 2,
+                () -> Optional.of(quantityView(1L, 8)));
+
+        // Assert
+        assertEquals(8, result.orElseThrow().getQuantity());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void decrement_ShouldApplyConcurrentHotRequestsWithOneUpdate() throws Exception {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("HOT-SKU", 6)).thenReturn(Optional.of(quantityView(1L, 4)));
+
+        // Act
+        List<Optional<InventoryQuantity>> results = decrementConcurrently(2, 2, 2);
+
+        // Assert
+        assertTrue(results.stream().allMatch(Optional::isPresent));
+        assertEquals(List.of(4, 6, 8), results.stream().map(r -> r.get().getQuantity()).sorted().toList());
+        verify(inventoryRepository, times(1)).decrementQuantity(anyString(), anyInt());
+        verify(inventoryRepository, never()).lockQuantity(anyString());
+        assertEquals(1, meterRegistry.get("inventory.combiner.batch.size").summary().count());
+        assertEquals(3.0, meterRegistry.get("inventory.combiner.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void decrement_ShouldGrantInArrivalOrder_WhenBatchDoesNotFit() throws Exception {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("HOT-SKU", 6)).thenReturn(Optional.empty());
+        when(inventoryRepository.lockQuantity("HOT-SKU")).thenReturn(Optional.of(quantityView(1L, 5)));
+        when(inventoryRepository.decrementQuantity("HOT-SKU", 3)).thenReturn(Optional.of(quantityView(1L, 2)));
+
+        // Act
+        List<Optional<InventoryQuantity>> results = decrementConcurrently(3, 3);
+
+        // Assert
+        assertEquals(1, results.stream().filter(Optional::isPresent).count());
+        assertEquals(2, results.stream().flatMap(Optional::stream).findFirst().orElseThrow().getQuantity());
+        verify(inventoryRepository, times(1)).lockQuantity("HOT-SKU");
+        verify(inventoryRepository, times(1)).decrementQuantity("HOT-SKU", 3);
+    }
+
+    @Test
+    void decrement_ShouldReportNothingTaken_WhenHotSkuIsUnknown() throws Exception {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("HOT-SKU", 1)).thenReturn(Optional.empty());
+        when(inventoryRepository.lockQuantity("HOT-SKU")).thenReturn(Optional.empty());
+
+        // Act
+        List<Optional<InventoryQuantity>> results = decrementConcurrently(1);
+
+        // Assert
+        assertTrue(results.get(0).isEmpty());
+        verify(inventoryRepository, times(1)).decrementQuantity(anyString(), anyInt());
+    }
+
+    @Test
+    void decrement_ShouldReportAppliedResult_WhenBatchOutlastsWaitTimeout() {
+        // Arrange
+        HotSkuDecrementCombiner slowCombiner = new HotSkuDecrementCombiner(inventoryRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry,
+                true, List.of("HOT-SKU"), 1000, 1000, 256, 50, 1);
+        when(inventoryRepository.decrementQuantity("HOT-SKU", 2)).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return Optional.of(quantityView(1L, 8));
+        });
+
+        try {
+            // Act
+            Optional<InventoryQuantity> result = slowCombiner.decrement("HOT-SKU", 2, Optional::empty);
+
+            // Assert
+            assertEquals(8, result.orElseThrow().getQuantity());
+        } finally {
+            slowCombiner.shutdown();
+        }
+    }
+
+    private List<Optional<InventoryQuantity>> decrementConcurrently(int... quantities) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<InventoryQuantity>>> futures = new ArrayList<>();
+        for (int quantity : quantities) {
+            futures.add(callers.submit(() -> {
+                start.await();
+                return combiner.decrement("HOT-SKU", quantity, () -> {
+                    throw new AssertionError("hot SKU must not take the direct path");
+                });
+            }));
+        }
+        start.countDown();
+
+        List<Optional<InventoryQuantity>> results = new ArrayList<>();
+        for (Future<Optional<InventoryQuantity>> future : futures) {
+            results.add(future.get(5, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    private static InventoryQuantity quantityView(Long id, Integer quantity) {
+        return new InventoryQuantity() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryImportResult;
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.exception.StockModeConflictException;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class InventoryImportServiceUnitTest {
+
+    private static final int CHUNK_ROWS = 10_000;
+    // A million generated rows are about 15 MiB of CSV, so an import that buffered the body could not stay below this.
+    private static final long HEAP_BUDGET_BYTES = 8L * 1024 * 1024;
+
+    @Test
+    void importInventory_ShouldStreamMillionRowsWithinHeapBudget() throws IOException {
+        // Arrange
+        int rowCount = 1_000_000;
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long[] peakRetained = {0};
+        long baseline = retainedHeap(memory);
+        CountingRepository repository = new CountingRepository(() ->
+                peakRetained[0] = Math.max(peakRetained[0], retainedHeap(memory) - baseline));
+        InventoryImportService service = service(repository);
+
+        // Act
+        InventoryImportResult result = service.importInventory(new GeneratedCsv(rowCount), InventoryImportService.Format.CSV);
+
+        // Assert
+        assertEquals(rowCount, result.rows());
+        assertEquals(rowCount / CHUNK_ROWS, result.chunks());
+        assertEquals(rowCount, repository.rows);
+        assertTrue(peakRetained[0] < HEAP_BUDGET_BYTES,
+                "Import retained " + peakRetained[0] / 1024 + " KiB of heap, budget is " + HEAP_BUDGET_BYTES / 1024 + " KiB");
+    }
+
+    @Test
+    void importInventory_ShouldApplyBodyInChunks() throws IOException {
+        // Arrange
+        int rowCount = 25_000;
+        CountingRepository repository = new CountingRepository();
+        InventoryImportService service = service(repository);
+
+        // Act
+        InventoryImportResult result = service.importInventory(new GeneratedCsv(rowCount), InventoryImportService.Format.CSV);
+
+        // Assert
+        assertEquals(rowCount, result.rows());
+        assertEquals(3, result.chunks());
+        assertEquals(rowCount, repository.rows);
+        assertEquals(3, repository.chunks);
+    }
+
+    @Test
+    void importInventory_ShouldReadNdjsonAndReportBadLine() {
+        // Arrange
+        CountingRepository repository = new CountingRepository();
+        InventoryImportService service = service(repository);
+        String body = "{\"skuCode\":\"A-SKU\",\"quantity\":3}\n\n{\"skuCode\":\"B-SKU\",\"quantity\":-1}\n";
+
+        // Act & Assert
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.importInventory(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), InventoryImportService.Format.NDJSON));
+        assertTrue(e.getMessage().startsWith("Line 3: quantity must not be negative"));
+        assertEquals(0, repository.rows);
+    }
+
+    @Test
+    void importInventory_ShouldSkipCsvHeaderAndQuoteSkus() throws IOException {
+        // Arrange
+        CountingRepository repository = new CountingRepository();
+        InventoryImportService service = service(repository);
+        String body = "skuCode,quantity\n\"SKU,WITH \"\"COMMA\"\"\",4\nPLAIN-SKU , 7\n";
+
+        // Act
+        InventoryImportResult result = service.importInventory(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), InventoryImportService.Format.CSV);
+
+        // Assert
+        assertEquals(2, result.rows());
+        assertEquals("\"SKU,WITH \"\"COMMA\"\"\",4\n\"PLAIN-SKU\",7\n", repository.lastChunk);
+    }
+
+    @Test
+    void importInventory_ShouldConflict_WhenLedgerIsEnabled() {
+        // Arrange
+        CountingRepository repository = new CountingRepository();
+        InventoryImportService service = new InventoryImportService(repository, mock(StockEventPublisher.class),
+                mock(KnownSkuFilter.class), mock(TransactionTemplate.class), JsonMapper.builder().build(),
+                mock(StockLedger.class), null, new SimpleMeterRegistry(), CHUNK_ROWS);
+
+        // Act & Assert
+        assertThrows(StockModeConflictException.class, () -> service.importInventory(
+                new ByteArrayInputStream("A-SKU,1\n".getBytes(StandardCharsets.UTF_8)), InventoryImportService.Format.CSV));
+        assertEquals(0, repository.rows);
+    }
+
+    private static InventoryImportService service(InventoryBatchRepository repository) {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class, withSettings().stubOnly());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        StockEventPublisher publisher = mock(StockEventPublisher.class, withSettings().stubOnly());
+        KnownSkuFilter knownSkuFilter = mock(KnownSkuFilter.class, withSettings().stubOnly());
+        return new InventoryImportService(repository, publisher, knownSkuFilter, transactionTemplate, JsonMapper.builder().build(),
+                null, null, new SimpleMeterRegistry(), CHUNK_ROWS);
+    }
+
+    private static long retainedHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    // Stands in for COPY: reads each chunk fully, as the driver would; the real statement is covered by
+    // InventoryBatchRepositoryIntegrationTest.
+    private static final class CountingRepository extends InventoryBatchRepository {
+        private final Runnable onChunk;
+        private long rows;
+        private int chunks;
+        private String lastChunk;
+
+        CountingRepository() {
+            this(() -> { });
+        }
+
+        CountingRepository(Runnable onChunk) {
+            super(null);
+            this.onChunk = onChunk;
+        }
+
+        @Override
+        public List<InventoryResponse> copyAndMerge(InputStream csv) {
+            try {
+                byte[] bytes = csv.readAllBytes();
+                for (byte b : bytes) {
+                    if (b == '\n') {
+                        rows++;
+                    }
+                }
+                lastChunk = new String(bytes, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // A full GC per chunk would be slow; the first chunk and every tenth after it are plenty.
+            if (chunks++ % 10 == 0) {
+                onChunk.run();
+            }
+            return new ArrayList<>();
+        }
+    }
+
+    // A CSV body produced on the fly.
+    private static final class GeneratedCsv extends InputStream {
+        private final int rowCount;
+        private int row;
+        private byte[] current = new byte[0];
+        private int position;
+
+        GeneratedCsv(int rowCount) {
+            this.rowCount = rowCount;
+        }
+
+        @Override
+        public int read() {
+            if (position == current.length) {
+                if (row == rowCount) {
+                    return -1;
+                }
+                current = ("SKU-" + row + "," + (row % 1000) + "\n").getBytes(StandardCharsets.US_ASCII);
+                position = 0;
+                row++;
+            }
+            return current[position++];
+        }
+    }
+}
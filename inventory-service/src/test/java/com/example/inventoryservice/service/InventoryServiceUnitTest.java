@@ -2,18 +2,32 @@ package com.example.inventoryservice.service;
 
 import com.example.inventoryservice.dto.InventoryRequest;
 import com.example.inventoryservice.dto.InventoryResponse;
-import com.example.inventoryservice.kafka.InventoryEventProducer;
+import com.example.inventoryservice.dto.InventoryUpsertResult;
+import com.example.inventoryservice.dto.StockAvailability;
+import com.example.inventoryservice.exception.InsufficientStockException;
+import com.example.inventoryservice.exception.ResourceNotFoundException;
 import com.example.inventoryservice.model.Inventory;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import com.example.inventoryservice.repository.InventoryQuantity;
 import com.example.inventoryservice.repository.InventoryRepository;
-import org.apache.kafka.common.errors.ResourceNotFoundException;
+import com.example.inventoryservice.repository.InventoryUpsert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,7 +41,16 @@ class InventoryServiceUnitTest {
     private InventoryRepository inventoryRepository;
 
     @Mock
-    private InventoryEventProducer inventoryEventProducer;
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private StockEventPublisher stockEventPublisher;
+
+    @Mock
+    private KnownSkuFilter knownSkuFilter;
+
+    @Mock
+    private HotSkuDecrementCombiner decrementCombiner;
 
     @InjectMocks
     private InventoryService inventoryService;
@@ -39,6 +62,11 @@ class InventoryServiceUnitTest {
     void setUp() {
         request = new InventoryRequest("TEST-SKU", 10);
         inventory = new Inventory(1L, "TEST-SKU", 15);
+        // Every SKU passes the known-SKU filter unless a test says otherwise.
+        lenient().when(knownSkuFilter.mightContain(anyString())).thenReturn(true);
+        // Uncontended path: the combiner hands the decrement straight back to the repository.
+        lenient().when(decrementCombiner.decrement(anyString(), anyInt(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
     }
 
     @Test
@@ -74,46 +102,322 @@ class InventoryServiceUnitTest {
     @Test
     void upsertInventory_ShouldCreateNewInventory_WhenSkuCodeDoesNotExist() {
         // Arrange
-        when(inventoryRepository.increaseInventoryQuantity(anyString(), anyInt()))
-                .thenReturn(0);
-        when(inventoryRepository.save(any(Inventory.class)))
-                .thenReturn(inventory);
+        when(inventoryRepository.upsertQuantity(anyString(), anyInt()))
+                .thenReturn(upsertView(1L, 10, true));
 
         // Act
-        InventoryResponse response = inventoryService.upsertInventory(request);
+        InventoryUpsertResult result = inventoryService.upsertInventory(request);
 
         // Assert
-        assertNotNull(response);
-        assertEquals("TEST-SKU", response.skuCode());
-        assertEquals(10, response.quantity());
+        assertNotNull(result);
+        assertTrue(result.created());
+        assertEquals("TEST-SKU", result.inventory().skuCode());
+        assertEquals(10, result.inventory().quantity());
         verify(inventoryRepository, times(1))
-                .increaseInventoryQuantity("TEST-SKU", 10);
-        verify(inventoryRepository, times(1))
-                .save(any(Inventory.class));
-        verify(inventoryEventProducer, times(1))
-                .sendInventoryUpdatedEvent("TEST-SKU", 10);
+                .upsertQuantity("TEST-SKU", 10);
+        verify(inventoryRepository, never()).findBySkuCode(anyString());
+        verify(inventoryRepository, never()).save(any(Inventory.class));
+        verify(stockEventPublisher, times(1)).changed("TEST-SKU", 10);
     }
 
     @Test
     void upsertInventory_ShouldUpdateExistingInventory_WhenSkuCodeExists() {
         // Arrange
-        when(inventoryRepository.increaseInventoryQuantity(anyString(), anyInt()))
-                .thenReturn(1);
-        when(inventoryRepository.findBySkuCode(anyString()))
-                .thenReturn(Optional.of(inventory));
+        when(inventoryRepository.upsertQuantity(anyString(), anyInt()))
+                .thenReturn(upsertView(1L, 25, false));
 
         // Act
-        InventoryResponse response = inventoryService.upsertInventory(request);
+        InventoryUpsertResult result = inventoryService.upsertInventory(request);
 
         // Assert
-        assertNotNull(response);
-        assertEquals("TEST-SKU", response.skuCode());
-        assertEquals(15, response.quantity());
-        verify(inventoryRepository, times(1))
-                .increaseInventoryQuantity("TEST-SKU", 10);
+        assertNotNull(result);
+        assertFalse(result.created());
+        assertEquals("TEST-SKU", result.inventory().skuCode());
+        assertEquals(25, result.inventory().quantity());
         verify(inventoryRepository, times(1))
-                .findBySkuCode("TEST-SKU");
-        verify(inventoryEventProducer, times(1))
-                .sendInventoryUpdatedEvent("TEST-SKU", 15);
+                .upsertQuantity("TEST-SKU", 10);
+        verify(inventoryRepository, never()).findBySkuCode(anyString());
+        verify(stockEventPublisher, times(1)).changed("TEST-SKU", 25);
+    }
+
+    @Test
+    void upsertInventory_ShouldWriteLocationRowBeforeTotal_WhenLocationsAreEnabled() {
+        // Arrange
+        LocationStock locationStock = mock(LocationStock.class);
+        InventoryService service = new InventoryService(inventoryRepository, inventoryBatchRepository,
+                stockEventPublisher, decrementCombiner, knownSkuFilter, null, locationStock);
+        when(locationStock.defaultLocation()).thenReturn("MAIN");
+        when(inventoryRepository.insertIfMissing("TEST-SKU")).thenReturn(1);
+        when(inventoryRepository.upsertQuantity("TEST-SKU", 10)).thenReturn(upsertView(1L, 10, false));
+        when(locationStock.totals(List.of("TEST-SKU"))).thenReturn(Map.of("TEST-SKU", 10));
+
+        // Act
+        InventoryUpsertResult result = service.upsertInventory(request);
+
+        // Assert
+        assertTrue(result.created());
+        InOrder inOrder = inOrder(inventoryRepository, locationStock);
+        inOrder.verify(inventoryRepository).insertIfMissing("TEST-SKU");
+        inOrder.verify(locationStock).add("TEST-SKU", "MAIN", 10);
+        inOrder.verify(inventoryRepository).upsertQuantity("TEST-SKU", 10);
+    }
+
+    @Test
+    void upsertInventory_ShouldReportLocationSum_WhenTotalStillLacksQueuedDecrements() {
+        // Arrange: 7 units were taken from the locations but not folded into the total yet
+        LocationStock locationStock = mock(LocationStock.class);
+        InventoryService service = new InventoryService(inventoryRepository, inventoryBatchRepository,
+                stockEventPublisher, decrementCombiner, knownSkuFilter, null, locationStock);
+        when(inventoryRepository.upsertQuantity("TEST-SKU", 10)).thenReturn(upsertView(1L, 25, false));
+        when(locationStock.totals(List.of("TEST-SKU"))).thenReturn(Map.of("TEST-SKU", 18));
+
+        // Act
+        InventoryUpsertResult result = service.upsertInventory(request);
+
+        // Assert
+        assertEquals(18, result.inventory().quantity());
+        verify(stockEventPublisher).changed("TEST-SKU", 18);
+    }
+
+    @Test
+    void decreaseInventory_ShouldUseSingleStatement_WhenStockIsSufficient() {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("TEST-SKU", 10))
+                .thenReturn(Optional.of(quantityView(1L, 0)));
+
+        // Act
+        InventoryResponse response = inventoryService.decreaseInventory(request);
+
+        // Assert
+        assertEquals(0, response.quantity());
+        verify(inventoryRepository, times(1)).decrementQuantity("TEST-SKU", 10);
+        verify(inventoryRepository, never()).findBySkuCode(anyString());
+        verify(stockEventPublisher, times(1)).decreased("TEST-SKU", 0, 10);
+    }
+
+    @Test
+    void decreaseInventory_ShouldThrowNotFound_WhenSkuCodeIsUnknown() {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("TEST-SKU", 10)).thenReturn(Optional.empty());
+        when(inventoryRepository.existsBySkuCode("TEST-SKU")).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> inventoryService.decreaseInventory(request));
+        verifyNoInteractions(stockEventPublisher);
+    }
+
+    @Test
+    void getInventoryBySkuCode_ShouldSkipDatabase_WhenFilterRulesSkuOut() {
+        // Arrange
+        when(knownSkuFilter.mightContain("BOT-SKU")).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class,
+                () -> inventoryService.getInventoryBySkuCode("BOT-SKU"));
+        assertFalse(inventoryService.isInStock("BOT-SKU", 1));
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void getInventoryBySkuCodes_ShouldResolveAllSkusWithSingleQuery() {
+        // Arrange
+        List<String> skuCodes = List.of("TEST-SKU", "OTHER-SKU", "MISSING-SKU");
+        when(inventoryRepository.findBySkuCodeIn(skuCodes))
+                .thenReturn(List.of(inventory, new Inventory(2L, "OTHER-SKU", 3)));
+
+        // Act
+        List<InventoryResponse> responses = inventoryService.getInventoryBySkuCodes(skuCodes);
+
+        // Assert
+        assertEquals(2, responses.size());
+        assertEquals("TEST-SKU", responses.get(0).skuCode());
+        assertEquals(3, responses.get(1).quantity());
+        verify(inventoryRepository, times(1)).findBySkuCodeIn(skuCodes);
+        verify(inventoryRepository, never()).findBySkuCode(anyString());
+    }
+
+    @Test
+    void getInventoryBySkuCodes_ShouldSkipQuery_WhenNoSkusRequested() {
+        // Act
+        List<InventoryResponse> responses = inventoryService.getInventoryBySkuCodes(List.of());
+
+        // Assert
+        assertTrue(responses.isEmpty());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void reserveInventory_ShouldReturnRemainingQuantity_WhenStockIsSufficient() {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("TEST-SKU", 10))
+                .thenReturn(Optional.of(quantityView(1L, 5)));
+
+        // Act
+        InventoryResponse response = inventoryService.reserveInventory(request);
+
+        // Assert
+        assertEquals(1L, response.id());
+        assertEquals(5, response.quantity());
+        verify(inventoryRepository, never()).findBySkuCode(anyString());
+        verify(stockEventPublisher, times(1)).decreased("TEST-SKU", 5, 10);
+    }
+
+    @Test
+    void reserveInventory_ShouldThrowInsufficientStock_WhenConditionalDecrementMatchesNothing() {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("TEST-SKU", 10)).thenReturn(Optional.empty());
+        when(inventoryRepository.existsBySkuCode("TEST-SKU")).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> inventoryService.reserveInventory(request));
+        verifyNoInteractions(stockEventPublisher);
+    }
+
+    @Test
+    void reserveInventory_ShouldRejectNonPositiveQuantity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.reserveInventory(new InventoryRequest("TEST-SKU", -3)));
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void reserveInventoryBatch_ShouldMergeLinesAndDecrementInSkuOrder() {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("A-SKU", 3)).thenReturn(Optional.of(quantityView(2L, 7)));
+        when(inventoryRepository.decrementQuantity("B-SKU", 4)).thenReturn(Optional.of(quantityView(1L, 20)));
+
+        // Act
+        List<InventoryResponse> responses = inventoryService.reserveInventoryBatch(List.of(
+                new InventoryRequest("B-SKU", 1),
+                new InventoryRequest("A-SKU", 3),
+                new InventoryRequest("B-SKU", 3)));
+
+        // Assert
+        assertEquals(List.of("A-SKU", "B-SKU"), responses.stream().map(InventoryResponse::skuCode).toList());
+        InOrder inOrder = inOrder(inventoryRepository);
+        inOrder.verify(inventoryRepository).decrementQuantity("A-SKU", 3);
+        inOrder.verify(inventoryRepository).decrementQuantity("B-SKU", 4);
+        verify(stockEventPublisher, times(1)).decreased("B-SKU", 20, 4);
+    }
+
+    @Test
+    void reserveInventoryBatch_ShouldFailWholeBatch_WhenAnyLineIsShort() {
+        // Arrange
+        when(inventoryRepository.decrementQuantity("A-SKU", 3)).thenReturn(Optional.of(quantityView(2L, 7)));
+        when(inventoryRepository.decrementQuantity("B-SKU", 50)).thenReturn(Optional.empty());
+        when(inventoryRepository.existsBySkuCode("B-SKU")).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> inventoryService.reserveInventoryBatch(List.of(
+                new InventoryRequest("A-SKU", 3),
+                new InventoryRequest("B-SKU", 50))));
+        verifyNoInteractions(stockEventPublisher);
+    }
+
+    @Test
+    void upsertInventoryBatch_ShouldSumLinesPerSkuAndUpsertOnce() {
+        // Arrange
+        SortedMap<String, Integer> expected = new TreeMap<>(Map.of("A-SKU", 5, "B-SKU", 7));
+        when(inventoryBatchRepository.lockAppliedOffsets("product-events", new TreeSet<>(Set.of(0, 1))))
+                .thenReturn(Map.of(0, -1L, 1, -1L));
+        when(inventoryBatchRepository.upsertQuantities(expected)).thenReturn(List.of(
+                new InventoryResponse(1L, "A-SKU", 5), new InventoryResponse(2L, "B-SKU", 17)));
+
+        // Act
+        List<InventoryResponse> responses = inventoryService.upsertInventoryBatch("product-events", List.of(
+                new InventoryService.EventLine(0, 10, new InventoryRequest("B-SKU", 3)),
+                new InventoryService.EventLine(1, 4, new InventoryRequest("A-SKU", 5)),
+                new InventoryService.EventLine(0, 11, new InventoryRequest("B-SKU", 4))));
+
+        // Assert
+        assertEquals(2, responses.size());
+        verify(inventoryBatchRepository, times(1)).upsertQuantities(expected);
+        verify(inventoryBatchRepository, times(1)).markApplied("product-events", Map.of(0, 11L, 1, 4L));
+        verify(inventoryRepository, never()).upsertQuantity(anyString(), any());
+        verify(stockEventPublisher, times(1)).changed("A-SKU", 5);
+        verify(stockEventPublisher, times(1)).changed("B-SKU", 17);
+    }
+
+    @Test
+    void upsertInventoryBatch_ShouldSkipLinesAlreadyApplied_WhenBatchIsRedelivered() {
+        // Arrange
+        when(inventoryBatchRepository.lockAppliedOffsets("product-events", new TreeSet<>(Set.of(0))))
+                .thenReturn(Map.of(0, 11L));
+        SortedMap<String, Integer> expected = new TreeMap<>(Map.of("C-SKU", 2));
+        when(inventoryBatchRepository.upsertQuantities(expected)).thenReturn(List.of(new InventoryResponse(3L, "C-SKU", 2)));
+
+        // Act
+        List<InventoryResponse> responses = inventoryService.upsertInventoryBatch("product-events", List.of(
+                new InventoryService.EventLine(0, 10, new InventoryRequest("B-SKU", 3)),
+                new InventoryService.EventLine(0, 11, new InventoryRequest("B-SKU", 4)),
+                new InventoryService.EventLine(0, 12, new InventoryRequest("C-SKU", 2))));
+
+        // Assert
+        assertEquals(List.of(new InventoryResponse(3L, "C-SKU", 2)), responses);
+        verify(inventoryBatchRepository, times(1)).upsertQuantities(expected);
+        verify(inventoryBatchRepository, times(1)).markApplied("product-events", Map.of(0, 12L));
+        verify(stockEventPublisher, never()).changed(eq("B-SKU"), anyInt());
+    }
+
+    @Test
+    void checkAvailability_ShouldAnswerAllLinesWithOneStatement() {
+        // Arrange
+        List<InventoryRequest> lines = List.of(new InventoryRequest("TEST-SKU", 5), new InventoryRequest("OTHER-SKU", 1));
+        when(inventoryBatchRepository.checkAvailability(lines)).thenReturn(List.of(
+                new StockAvailability("TEST-SKU", 5, true), new StockAvailability("OTHER-SKU", 1, false)));
+
+        // Act
+        List<StockAvailability> result = inventoryService.checkAvailability(lines);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertTrue(result.get(0).inStock());
+        verify(inventoryBatchRepository, times(1)).checkAvailability(lines);
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void checkAvailability_ShouldRejectOversizedRequest() {
+        // Arrange
+        List<InventoryRequest> lines = Collections.nCopies(
+                InventoryService.MAX_AVAILABILITY_LINES + 1, new InventoryRequest("TEST-SKU", 1));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.checkAvailability(lines));
+        verifyNoInteractions(inventoryBatchRepository);
+    }
+
+    private static InventoryQuantity quantityView(Long id, Integer quantity) {
+        return new InventoryQuantity() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    private static InventoryUpsert upsertView(Long id, Integer quantity, boolean inserted) {
+        return new InventoryUpsert() {
+            @Override
+            public Boolean getInserted() {
+                return inserted;
+            }
+
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
     }
 }
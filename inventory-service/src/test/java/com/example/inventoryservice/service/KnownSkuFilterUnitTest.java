@@ -0,0 +1,88 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class KnownSkuFilterUnitTest {
+
+    private static final int SKUS = 100_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void mightContain_ShouldPassEverything_UntilTheStartupScanFinished() {
+        // Arrange
+        KnownSkuFilter filter = filterOver(0, true);
+
+        // Act & Assert
+        assertTrue(filter.mightContain("UNKNOWN-SKU"));
+    }
+
+    @Test
+    void mightContain_ShouldNeverRejectAKnownSku() {
+        // Arrange
+        KnownSkuFilter filter = filterOver(SKUS, true);
+        filter.build();
+        filter.add("ADDED-LATER");
+
+        // Act & Assert
+        for (int i = 0; i < SKUS; i++) {
+            assertTrue(filter.mightContain("SKU-" + i), "SKU-" + i);
+        }
+        assertTrue(filter.mightContain("ADDED-LATER"));
+    }
+
+    @Test
+    void mightContain_ShouldKeepFalsePositivesNearTheConfiguredRate() {
+        // Arrange
+        KnownSkuFilter filter = filterOver(SKUS, true);
+        filter.build();
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < SKUS; i++) {
+            if (filter.mightContain("MISSING-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        double rate = (double) falsePositives / SKUS;
+        assertTrue(rate < 0.015, "false-positive rate " + rate);
+        assertEquals(0.01, meterRegistry.get("inventory.sku-filter.fpp").gauge().value(), 0.005);
+        assertEquals(SKUS, meterRegistry.get("inventory.sku-filter.size").gauge().value(), SKUS * 0.02);
+        assertEquals(SKUS - falsePositives,
+                meterRegistry.get("inventory.sku-filter.lookups").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void mightContain_ShouldPassEverything_WhenDisabled() {
+        // Arrange
+        KnownSkuFilter filter = filterOver(SKUS, false);
+        filter.build();
+
+        // Act & Assert
+        assertTrue(filter.mightContain("MISSING-1"));
+        assertEquals(8.0, meterRegistry.get("inventory.sku-filter.memory").gauge().value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private KnownSkuFilter filterOver(int skus, boolean enabled) {
+        InventoryBatchRepository repository = mock(InventoryBatchRepository.class);
+        when(repository.forEachSkuCode(any())).thenAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(0);
+            for (int i = 0; i < skus; i++) {
+                consumer.accept("SKU-" + i);
+            }
+            return (long) skus;
+        });
+        return new KnownSkuFilter(repository, meterRegistry, enabled, SKUS, 0.01);
+    }
+}
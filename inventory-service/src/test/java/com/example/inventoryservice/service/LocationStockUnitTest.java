@@ -0,0 +1,118 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.exception.InsufficientStockException;
+import com.example.inventoryservice.repository.InventoryLocationRepository;
+import com.example.inventoryservice.repository.LocationQuantity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocationStockUnitTest {
+
+    @Mock
+    private InventoryLocationRepository locationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LocationStock locationStock;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        locationStock = new LocationStock(locationRepository, transactionManager, meterRegistry,
+                AllocationStrategy.MOST_STOCK_FIRST, List.of(), "MAIN", 200, false);
+    }
+
+    @Test
+    void take_ShouldWaitForLockedRows_OnlyWhenFreeRowsFallShort() {
+        // Arrange: another transaction holds AST, so the first pass sees only ALA
+        when(locationRepository.lockLocations("TEST-SKU", true)).thenReturn(List.of(new LocationQuantity("ALA", 2)));
+        when(locationRepository.lockLocations("TEST-SKU", false))
+                .thenReturn(List.of(new LocationQuantity("ALA", 2), new LocationQuantity("AST", 10)));
+        when(locationRepository.take("TEST-SKU", List.of(new LocationQuantity("AST", 5))))
+                .thenReturn(new InventoryResponse(1L, "TEST-SKU", 7));
+
+        // Act
+        List<InventoryResponse> taken = locationStock.take(new TreeMap<>(Map.of("TEST-SKU", 5)), InsufficientStockException::new);
+
+        // Assert
+        assertEquals(7, taken.get(0).quantity());
+        assertEquals(1.0, meterRegistry.get("inventory.locations.takes").tag("outcome", "after-wait").counter().count());
+    }
+
+    @Test
+    void take_ShouldReportShortLine_WhenEvenAllRowsFallShort() {
+        // Arrange
+        when(locationRepository.lockLocations(eq("TEST-SKU"), anyBoolean())).thenReturn(List.of(new LocationQuantity("ALA", 2)));
+
+        // Act & Assert
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> locationStock.take(new TreeMap<>(Map.of("TEST-SKU", 5)), InsufficientStockException::new));
+        assertEquals("TEST-SKU", e.getMessage());
+        verify(locationRepository, never()).take(any(), any());
+        verify(locationRepository, never()).appendTotalDeltas(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void take_ShouldQueueTotalDeltasInTheSameTransaction() {
+        // Arrange
+        when(locationRepository.lockLocations(eq("TEST-SKU"), anyBoolean())).thenReturn(List.of(new LocationQuantity("ALA", 20)));
+        when(locationRepository.take(eq("TEST-SKU"), any())).thenReturn(new InventoryResponse(1L, "TEST-SKU", 15));
+
+        // Act
+        locationStock.take(new TreeMap<>(Map.of("TEST-SKU", 5)), InsufficientStockException::new);
+
+        // Assert
+        ArgumentCaptor<SortedMap<String, int[]>> deltas = ArgumentCaptor.forClass(SortedMap.class);
+        InOrder inOrder = inOrder(locationRepository, transactionManager);
+        inOrder.verify(locationRepository).take(eq("TEST-SKU"), any());
+        inOrder.verify(locationRepository).appendTotalDeltas(deltas.capture());
+        inOrder.verify(transactionManager).commit(any());
+        assertArrayEquals(new int[]{-5, 0}, deltas.getValue().get("TEST-SKU"));
+    }
+
+    @Test
+    void foldTotals_ShouldKeepFolding_WhileBatchesComeBackFull() {
+        // Arrange
+        when(locationRepository.foldTotalDeltas(LocationStock.FOLD_BATCH_SIZE))
+                .thenReturn(LocationStock.FOLD_BATCH_SIZE, 12);
+
+        // Act
+        locationStock.foldTotals();
+
+        // Assert
+        verify(locationRepository, times(2)).foldTotalDeltas(LocationStock.FOLD_BATCH_SIZE);
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void isInStock_ShouldReadTheLocations_NotTheFoldedTotal() {
+        // Arrange
+        when(locationRepository.totals(List.of("TEST-SKU"))).thenReturn(Map.of("TEST-SKU", 4));
+
+        // Act & Assert
+        assertTrue(locationStock.isInStock("TEST-SKU", 4));
+        assertFalse(locationStock.isInStock("TEST-SKU", 5));
+    }
+}
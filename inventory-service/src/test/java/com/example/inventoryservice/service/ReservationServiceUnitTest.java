@@ -0,0 +1,309 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryRequest;
+import com.example.inventoryservice.dto.ReservationResponse;
+import com.example.inventoryservice.exception.InsufficientStockException;
+import com.example.inventoryservice.exception.ReservationStateException;
+import com.example.inventoryservice.model.Inventory;
+import com.example.inventoryservice.model.Reservation;
+import com.example.inventoryservice.model.ReservationStatus;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import com.example.inventoryservice.repository.InventoryRepository;
+import com.example.inventoryservice.repository.InventoryStock;
+import com.example.inventoryservice.repository.PendingExpiry;
+import com.example.inventoryservice.repository.PlacedReservation;
+import com.example.inventoryservice.repository.ReservationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationServiceUnitTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private StockEventPublisher stockEventPublisher;
+
+    @TempDir
+    Path journalDirectory;
+
+    private ReservationService reservationService;
+
+    @BeforeEach
+    void setUp() {
+        reservationService = new ReservationService(reservationRepository, inventoryService, stockEventPublisher, null,
+                null, new SimpleMeterRegistry(), Duration.ofMinutes(15), 1000, 60_000, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void reserve_ShouldHoldStockUntilTtl() {
+        // Arrange
+        when(reservationRepository.reserve("TEST-SKU", 3, NOW.plus(Duration.ofMinutes(15))))
+                .thenReturn(Optional.of(placed(7L, 12)));
+
+        // Act
+        ReservationResponse response = reservationService.reserve(new InventoryRequest("TEST-SKU", 3));
+
+        // Assert
+        assertEquals(7L, response.reservationId());
+        assertEquals(ReservationStatus.PENDING, response.status());
+        verify(stockEventPublisher, times(1)).decreased("TEST-SKU", 12, 3);
+    }
+
+    @Test
+    void reserveAll_ShouldMergeLinesPerSkuAndPublishNothing_WhenAnyLineIsShort() {
+        // Arrange
+        Instant expiresAt = NOW.plus(Duration.ofMinutes(15));
+        when(reservationRepository.reserve("A-SKU", 5, expiresAt)).thenReturn(Optional.of(placed(7L, 10)));
+        when(reservationRepository.reserve("B-SKU", 1, expiresAt)).thenReturn(Optional.empty());
+        when(inventoryService.stockFailure("B-SKU")).thenReturn(new InsufficientStockException("B-SKU"));
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> reservationService.reserveAll(List.of(
+                new InventoryRequest("B-SKU", 1), new InventoryRequest("A-SKU", 2), new InventoryRequest("A-SKU", 3))));
+        verify(reservationRepository).reserve("A-SKU", 5, expiresAt);
+        verifyNoInteractions(stockEventPublisher);
+    }
+
+    @Test
+    void reserve_ShouldFail_WhenStockIsShort() {
+        // Arrange
+        when(reservationRepository.reserve(any(), any(), any())).thenReturn(Optional.empty());
+        when(inventoryService.stockFailure("TEST-SKU")).thenReturn(new InsufficientStockException("short"));
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class,
+                () -> reservationService.reserve(new InventoryRequest("TEST-SKU", 3)));
+    }
+
+    @Test
+    void sweep_ShouldReleaseOverdueReservationsReloadedFromTheTable() {
+        // Arrange
+        when(reservationRepository.findPendingExpiring(NOW.plusMillis(60_000), Instant.EPOCH, 0L,
+                ReservationService.EXPIRY_BATCH_SIZE))
+                .thenReturn(List.of(pending(7L, NOW.minusSeconds(5)), pending(8L, NOW), pending(9L, NOW.plusSeconds(30))));
+        when(reservationRepository.findPendingIds(List.of(7L, 8L))).thenReturn(List.of(7L, 8L));
+        when(reservationRepository.release(List.of(7L, 8L), "EXPIRED")).thenReturn(List.of(stock("TEST-SKU", 15)));
+        reservationService.reload();
+
+        // Act
+        reservationService.sweep();
+
+        // Assert
+        verify(reservationRepository, times(1)).release(List.of(7L, 8L), "EXPIRED");
+        verify(stockEventPublisher, times(1)).changed("TEST-SKU", 15);
+    }
+
+    @Test
+    void sweep_ShouldNotTouchTheTable_WhenNothingIsDue() {
+        // Arrange
+        when(reservationRepository.reserve(eq("TEST-SKU"), eq(3), any())).thenReturn(Optional.of(placed(7L, 12)));
+        reservationService.reserve(new InventoryRequest("TEST-SKU", 3));
+
+        // Act
+        reservationService.sweep();
+
+        // Assert
+        verify(reservationRepository, never()).findPendingIds(anyList());
+        verify(reservationRepository, never()).release(anyList(), any());
+    }
+
+    @Test
+    void sweep_ShouldSkipReservationsResolvedElsewhere() {
+        // Arrange
+        when(reservationRepository.findPendingExpiring(any(), any(), anyLong(), anyInt()))
+                .thenReturn(List.of(pending(7L, NOW)));
+        when(reservationRepository.findPendingIds(List.of(7L))).thenReturn(List.of());
+        reservationService.reload();
+
+        // Act
+        reservationService.sweep();
+
+        // Assert
+        verify(reservationRepository, never()).release(anyList(), any());
+        verifyNoInteractions(stockEventPublisher);
+    }
+
+    @Test
+    void confirm_ShouldSucceedAgain_WhenAlreadyConfirmed() {
+        // Arrange
+        when(reservationRepository.confirm(7L)).thenReturn(Optional.empty());
+        when(reservationRepository.findById(7L)).thenReturn(Optional.of(reservation(7L, ReservationStatus.CONFIRMED)));
+
+        // Act
+        ReservationResponse response = reservationService.confirm(7L);
+
+        // Assert
+        assertEquals(ReservationStatus.CONFIRMED, response.status());
+        verify(reservationRepository, never()).release(anyList(), any());
+    }
+
+    @Test
+    void release_ShouldRejectConfirmedReservation() {
+        // Arrange
+        when(reservationRepository.release(List.of(7L), "RELEASED")).thenReturn(List.of());
+        when(reservationRepository.findById(7L)).thenReturn(Optional.of(reservation(7L, ReservationStatus.CONFIRMED)));
+
+        // Act & Assert
+        assertThrows(ReservationStateException.class, () -> reservationService.release(7L));
+    }
+
+    @Test
+    void release_ShouldBeIdempotent_WhenAlreadyExpired() {
+        // Arrange
+        when(reservationRepository.release(List.of(7L), "RELEASED")).thenReturn(List.of());
+        when(reservationRepository.findById(7L)).thenReturn(Optional.of(reservation(7L, ReservationStatus.EXPIRED)));
+
+        // Act
+        ReservationResponse response = reservationService.release(7L);
+
+        // Assert
+        assertEquals(ReservationStatus.EXPIRED, response.status());
+        verifyNoInteractions(stockEventPublisher);
+    }
+
+    @Test
+    void reserve_ShouldTakeUnitsFromTheLedger_WhenLedgerIsEnabled() {
+        // Arrange
+        StockLedger ledger = startLedger();
+        ReservationService ledgerService = ledgerService(ledger);
+        when(reservationRepository.placeHeld("TEST-SKU", 3, NOW.plus(Duration.ofMinutes(15)))).thenReturn(7L);
+
+        // Act
+        ReservationResponse response = ledgerService.reserve(new InventoryRequest("TEST-SKU", 3));
+
+        // Assert
+        assertEquals(7L, response.reservationId());
+        assertEquals(7, ledger.find("TEST-SKU").orElseThrow().quantity());
+        verify(reservationRepository, never()).reserve(any(), any(), any());
+        verify(stockEventPublisher, times(1)).decreased("TEST-SKU", 7, 3);
+    }
+
+    @Test
+    void reserveAll_ShouldGiveUnitsBackToTheLedger_WhenRecordingAReservationFails() {
+        // Arrange
+        StockLedger ledger = startLedger();
+        ReservationService ledgerService = ledgerService(ledger);
+        when(reservationRepository.placeHeld(eq("TEST-SKU"), eq(4), any())).thenThrow(new IllegalStateException("db down"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> ledgerService.reserveAll(List.of(new InventoryRequest("TEST-SKU", 4))));
+        assertEquals(10, ledger.find("TEST-SKU").orElseThrow().quantity());
+        verifyNoInteractions(stockEventPublisher);
+    }
+
+    @Test
+    void release_ShouldReturnUnitsToTheLedger_WhenLedgerIsEnabled() {
+        // Arrange
+        StockLedger ledger = startLedger();
+        ReservationService ledgerService = ledgerService(ledger);
+        when(reservationRepository.releaseHeld(List.of(7L), "RELEASED")).thenReturn(List.of(stock("TEST-SKU", 3)));
+        when(reservationRepository.findById(7L)).thenReturn(Optional.of(reservation(7L, ReservationStatus.RELEASED)));
+
+        // Act
+        ledgerService.release(7L);
+
+        // Assert
+        assertEquals(13, ledger.find("TEST-SKU").orElseThrow().quantity());
+        verify(reservationRepository, never()).release(anyList(), any());
+        verify(stockEventPublisher, times(1)).changed("TEST-SKU", 13);
+    }
+
+    private StockLedger startLedger() {
+        InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+        when(inventoryRepository.findAll()).thenReturn(List.of(new Inventory(1L, "TEST-SKU", 10)));
+        StockLedger ledger = new StockLedger(inventoryRepository, mock(InventoryBatchRepository.class),
+                journalDirectory, false, 3_600_000);
+        ledger.recover();
+        return ledger;
+    }
+
+    private ReservationService ledgerService(StockLedger ledger) {
+        return new ReservationService(reservationRepository, inventoryService, stockEventPublisher, ledger, null,
+                new SimpleMeterRegistry(), Duration.ofMinutes(15), 1000, 60_000, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static Reservation reservation(Long id, ReservationStatus status) {
+        Reservation reservation = new Reservation();
+        ReflectionTestUtils.setField(reservation, "id", id);
+        ReflectionTestUtils.setField(reservation, "skuCode", "TEST-SKU");
+        ReflectionTestUtils.setField(reservation, "quantity", 3);
+        ReflectionTestUtils.setField(reservation, "status", status);
+        return reservation;
+    }
+
+    private static PlacedReservation placed(Long reservationId, Integer available) {
+        return new PlacedReservation() {
+            @Override
+            public Long getReservationId() {
+                return reservationId;
+            }
+
+            @Override
+            public Long getInventoryId() {
+                return 1L;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return available;
+            }
+        };
+    }
+
+    private static InventoryStock stock(String skuCode, Integer quantity) {
+        return new InventoryStock() {
+            @Override
+            public String getSkuCode() {
+                return skuCode;
+            }
+
+            @Override
+            public Integer getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    private static PendingExpiry pending(Long id, Instant expiresAt) {
+        return new PendingExpiry() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Instant getExpiresAt() {
+                return expiresAt;
+            }
+        };
+    }
+}
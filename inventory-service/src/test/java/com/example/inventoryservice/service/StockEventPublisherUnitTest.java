@@ -0,0 +1,155 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.kafka.InventoryEventProducer;
+import com.example.inventoryservice.repository.InventoryRepository;
+import com.example.inventoryservice.repository.LowStockThreshold;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockEventPublisherUnitTest {
+
+    @Mock
+    private InventoryEventProducer inventoryEventProducer;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    private StockEventPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void decreased_ShouldAlertOnlyWhenThresholdIsCrossed() {
+        // Arrange
+        publisher = publisher(0);
+
+        // Act
+        publisher.decreased("TEST-SKU", 6, 1);
+        publisher.decreased("TEST-SKU", 5, 1);
+        publisher.decreased("TEST-SKU", 4, 1);
+        publisher.decreased("TEST-SKU", 3, 1);
+
+        // Assert
+        verify(inventoryEventProducer, times(1)).sendInventoryLowStockEvent(anyString(), anyInt());
+        verify(inventoryEventProducer, times(1)).sendInventoryLowStockEvent("TEST-SKU", 5);
+        verify(inventoryEventProducer, never()).sendInventoryOutOfStockEvent(anyString());
+    }
+
+    @Test
+    void decreased_ShouldSendBothAlerts_WhenOneDecrementEmptiesTheSku() {
+        // Arrange
+        publisher = publisher(0);
+
+        // Act
+        publisher.decreased("TEST-SKU", 0, 20);
+        publisher.decreased("TEST-SKU", 0, 0);
+
+        // Assert
+        verify(inventoryEventProducer, times(1)).sendInventoryLowStockEvent("TEST-SKU", 0);
+        verify(inventoryEventProducer, times(1)).sendInventoryOutOfStockEvent("TEST-SKU");
+    }
+
+    @Test
+    void decreased_ShouldUsePerSkuThreshold() {
+        // Arrange
+        when(inventoryRepository.findLowStockThresholdsOtherThan(5)).thenReturn(List.of(threshold("HOT-SKU", 100)));
+        publisher = publisher(0);
+
+        // Act
+        publisher.decreased("HOT-SKU", 90, 20);
+        publisher.decreased("TEST-SKU", 90, 20);
+
+        // Assert
+        verify(inventoryEventProducer, times(1)).sendInventoryLowStockEvent("HOT-SKU", 90);
+        verify(inventoryEventProducer, never()).sendInventoryLowStockEvent(eq("TEST-SKU"), anyInt());
+        assertEquals(5, publisher.thresholdOf("TEST-SKU"));
+    }
+
+    @Test
+    void changed_ShouldCoalesceUpdatesWithinWindow() {
+        // Arrange
+        publisher = publisher(60_000);
+
+        // Act
+        for (int quantity = 100; quantity > 90; quantity--) {
+            publisher.changed("TEST-SKU", quantity);
+        }
+        publisher.changed("OTHER-SKU", 7);
+        publisher.flushAll();
+
+        // Assert
+        verify(inventoryEventProducer, times(1)).sendInventoryUpdatedEvent(eq("TEST-SKU"), anyInt());
+        verify(inventoryEventProducer, times(1)).sendInventoryUpdatedEvent("TEST-SKU", 91);
+        verify(inventoryEventProducer, times(1)).sendInventoryUpdatedEvent("OTHER-SKU", 7);
+    }
+
+    @Test
+    void changed_ShouldSendOutOfStockImmediatelyAndDropThePendingUpdate() {
+        // Arrange
+        publisher = publisher(60_000);
+        publisher.changed("TEST-SKU", 2);
+
+        // Act
+        publisher.changed("TEST-SKU", 0);
+
+        // Assert
+        verify(inventoryEventProducer, times(1)).sendInventoryUpdatedEvent("TEST-SKU", 0);
+        publisher.flushAll();
+        verify(inventoryEventProducer, never()).sendInventoryUpdatedEvent("TEST-SKU", 2);
+    }
+
+    @Test
+    void batchChanged_ShouldDropOnlyUpdatesRecordedBeforeTheBulkChange() {
+        // Arrange
+        publisher = publisher(60_000);
+        publisher.changed("OLD-SKU", 3);
+        long mark = publisher.mark();
+        publisher.changed("NEW-SKU", 9);
+
+        // Act
+        publisher.batchChanged(List.of(new InventoryResponse(1L, "OLD-SKU", 5), new InventoryResponse(2L, "NEW-SKU", 8)),
+                mark);
+        publisher.flushAll();
+
+        // Assert
+        verify(inventoryEventProducer, never()).sendInventoryUpdatedEvent(eq("OLD-SKU"), anyInt());
+        verify(inventoryEventProducer, times(1)).sendInventoryUpdatedEvent("NEW-SKU", 9);
+    }
+
+    private StockEventPublisher publisher(long updateWindowMs) {
+        StockEventPublisher publisher = new StockEventPublisher(inventoryEventProducer, inventoryRepository,
+                new SimpleMeterRegistry(), updateWindowMs, 0);
+        publisher.start();
+        return publisher;
+    }
+
+    private static LowStockThreshold threshold(String skuCode, int threshold) {
+        return new LowStockThreshold() {
+            @Override
+            public String getSkuCode() {
+                return skuCode;
+            }
+
+            @Override
+            public Integer getLowStockThreshold() {
+                return threshold;
+            }
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.InventoryUpsertResult;
+import com.example.inventoryservice.exception.InsufficientStockException;
+import com.example.inventoryservice.model.Inventory;
+import com.example.inventoryservice.repository.InventoryBatchRepository;
+import com.example.inventoryservice.repository.InventoryRepository;
+import com.example.inventoryservice.repository.InventoryUpsert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerUnitTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @TempDir
+    Path journalDirectory;
+
+    @BeforeEach
+    void setUp() {
+        when(inventoryRepository.findAll()).thenReturn(List.of(
+                new Inventory(1L, "A-SKU", 10),
+                new Inventory(2L, "B-SKU", 2)));
+    }
+
+    @Test
+    void decrement_ShouldBeServedFromMemory() {
+        // Arrange
+        StockLedger ledger = startLedger();
+
+        // Act
+        Optional<InventoryResponse> taken = ledger.decrement("A-SKU", 4);
+        Optional<InventoryResponse> refused = ledger.decrement("B-SKU", 3);
+
+        // Assert
+        assertEquals(6, taken.orElseThrow().quantity());
+        assertTrue(refused.isEmpty());
+        assertTrue(ledger.isInStock("A-SKU", 6));
+        assertFalse(ledger.isInStock("A-SKU", 7));
+        verify(inventoryRepository, times(1)).findAll();
+        verifyNoMoreInteractions(inventoryRepository);
+    }
+
+    @Test
+    void recover_ShouldReplayJournal_WhenChangesNeverReachedTheDatabase() {
+        // Arrange
+        StockLedger crashed = startLedger();
+        crashed.decrement("A-SKU", 3);
+        crashed.decrement("A-SKU", 2);
+        clearInvocations(inventoryBatchRepository);
+
+        // Act
+        StockLedger recovered = startLedger();
+
+        // Assert
+        assertEquals(5, recovered.find("A-SKU").orElseThrow().quantity());
+        verify(inventoryBatchRepository, times(1)).updateQuantities(Map.of(1L, 5));
+    }
+
+    @Test
+    void flush_ShouldWriteChangedRowsInOneBatchAndDropCoveredSegments() throws Exception {
+        // Arrange
+        StockLedger ledger = startLedger();
+        ledger.decrement("A-SKU", 1);
+        ledger.decrement("B-SKU", 1);
+        clearInvocations(inventoryBatchRepository);
+
+        // Act
+        ledger.flush();
+
+        // Assert
+        verify(inventoryBatchRepository, times(1)).updateQuantities(Map.of(1L, 9, 2L, 1));
+        try (var files = Files.list(journalDirectory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void flush_ShouldKeepRowsDirty_WhenDatabaseWriteFails() {
+        // Arrange
+        StockLedger ledger = startLedger();
+        ledger.decrement("A-SKU", 1);
+        doThrow(new RuntimeException("db down")).doNothing().when(inventoryBatchRepository).updateQuantities(anyMap());
+
+        // Act
+        assertThrows(RuntimeException.class, ledger::flush);
+        ledger.flush();
+
+        // Assert
+        verify(inventoryBatchRepository, times(2)).updateQuantities(Map.of(1L, 9));
+    }
+
+    @Test
+    void reserveAll_ShouldTakeNothing_WhenAnyLineIsShort() {
+        // Arrange
+        StockLedger ledger = startLedger();
+        TreeMap<String, Integer> cart = new TreeMap<>(Map.of("A-SKU", 5, "B-SKU", 3));
+
+        // Act & Assert
+        assertThrows(InsufficientStockException.class, () -> ledger.reserveAll(cart));
+        assertEquals(10, ledger.find("A-SKU").orElseThrow().quantity());
+        assertEquals(2, ledger.find("B-SKU").orElseThrow().quantity());
+    }
+
+    @Test
+    void upsert_ShouldCreateUnknownSkuInDatabaseOnce() {
+        // Arrange
+        StockLedger ledger = startLedger();
+        InventoryUpsert inserted = mock(InventoryUpsert.class);
+        when(inserted.getId()).thenReturn(3L);
+        when(inserted.getQuantity()).thenReturn(4);
+        when(inserted.getInserted()).thenReturn(true);
+
+        // Act
+        InventoryUpsertResult created = ledger.upsert("C-SKU", 4, () -> inserted);
+        InventoryUpsertResult restocked = ledger.upsert("C-SKU", 6, () -> fail("SKU is already known"));
+
+        // Assert
+        assertTrue(created.created());
+        assertFalse(restocked.created());
+        assertEquals(10, restocked.inventory().quantity());
+        assertEquals(3L, restocked.inventory().id());
+    }
+
+    private StockLedger startLedger() {
+        StockLedger ledger = new StockLedger(inventoryRepository, inventoryBatchRepository,
+                journalDirectory, true, 3_600_000);
+        ledger.recover();
+        return ledger;
+    }
+}
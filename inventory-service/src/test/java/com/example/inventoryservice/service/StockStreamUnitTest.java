@@ -0,0 +1,169 @@
+package com.example.inventoryservice.service;
+
+import com.example.inventoryservice.dto.InventoryResponse;
+import com.example.inventoryservice.dto.StockLevel;
+import com.example.inventoryservice.exception.StreamCapacityException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockStreamUnitTest {
+
+    @Mock
+    private InventoryService inventoryService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void register_ShouldSendSnapshotThenOnlySubscribedChanges() {
+        // Arrange
+        when(inventoryService.getInventoryBySkuCodes(any()))
+                .thenReturn(List.of(new InventoryResponse(1L, "SKU-1", 7)));
+        StockStream stream = stream(8, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.register(emitter, List.of("SKU-1", "SKU-2"));
+
+        // Act
+        stream.publish("SKU-2", 3);
+        stream.publish("OTHER-SKU", 1);
+
+        // Assert
+        assertEquals(List.of(new StockLevel("SKU-1", 7), new StockLevel("SKU-2", 3)), emitter.levels());
+        assertEquals(1, stream.connections());
+    }
+
+    @Test
+    void register_ShouldNeverSendSnapshotAfterALiveChange() {
+        // Arrange
+        StockStream stream = stream(8, Runnable::run);
+        when(inventoryService.getInventoryBySkuCodes(any())).thenAnswer(invocation -> {
+            stream.publish("SKU-1", 3);
+            return List.of(new InventoryResponse(1L, "SKU-1", 7));
+        });
+        RecordingEmitter emitter = new RecordingEmitter();
+
+        // Act
+        stream.register(emitter, List.of("SKU-1"));
+        stream.publish("SKU-1", 2);
+
+        // Assert
+        assertEquals(List.of(new StockLevel("SKU-1", 7), new StockLevel("SKU-1", 2)), emitter.levels());
+    }
+
+    @Test
+    void publish_ShouldDisconnectSlowConsumer_WhenItsQueueIsFull() {
+        // Arrange
+        when(inventoryService.getInventoryBySkuCodes(any())).thenReturn(List.of());
+        List<Runnable> pendingWrites = new ArrayList<>();
+        StockStream stream = stream(2, pendingWrites::add);
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.register(emitter, List.of("SKU-1"));
+
+        // Act: the sender never gets to run, as if the client stopped reading
+        for (int i = 0; i < 5; i++) {
+            stream.publish("SKU-1", i);
+        }
+        pendingWrites.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(0, stream.connections());
+        assertTrue(emitter.completed);
+        assertTrue(emitter.levels().isEmpty());
+        assertEquals(1.0, meterRegistry.get("inventory.stream.slow-consumers").counter().count());
+    }
+
+    @Test
+    void evictStalledWrites_ShouldDisconnectClient_WhenAWriteOutlastsTheTimeout() throws Exception {
+        // Arrange
+        when(inventoryService.getInventoryBySkuCodes(any())).thenReturn(List.of());
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        StockStream stream = stream(8, sender);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                writing.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new IOException("write interrupted");
+                }
+            }
+        };
+        stream.register(emitter, List.of("SKU-1"));
+        stream.publish("SKU-1", 1);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        try {
+            // Act
+            stream.evictStalledWrites();
+
+            // Assert
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            assertEquals(0, stream.connections());
+            assertEquals(1.0, meterRegistry.get("inventory.stream.stalled-writes").counter().count());
+        } finally {
+            sender.shutdownNow();
+        }
+    }
+
+    @Test
+    void register_ShouldRefuseConnectionsOverTheLimit() {
+        // Arrange
+        when(inventoryService.getInventoryBySkuCodes(any())).thenReturn(List.of());
+        StockStream stream = stream(8, Runnable::run);
+        stream.register(new RecordingEmitter(), List.of("SKU-1"));
+
+        // Act & Assert
+        assertThrows(StreamCapacityException.class, () -> stream.register(new RecordingEmitter(), List.of("SKU-1")));
+        assertThrows(IllegalArgumentException.class, () -> stream.register(new RecordingEmitter(), List.of()));
+        assertEquals(1, stream.connections());
+    }
+
+    private StockStream stream(int queueCapacity, Executor sender) {
+        return new StockStream(inventoryService, meterRegistry, 1, 10, queueCapacity, 60_000, 0, sender);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Object> sent = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (DataWithMediaType data : builder.build()) {
+                sent.add(data.getData());
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        List<StockLevel> levels() {
+            return sent.stream().filter(StockLevel.class::isInstance).map(StockLevel.class::cast).toList();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.inventoryservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockWriterLockUnitTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement statement;
+
+    @Mock
+    private ResultSet resultSet;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+    }
+
+    @Test
+    void acquire_ShouldHoldLockExclusivelyUntilShutdown_WhenLedgerIsEnabled() throws SQLException {
+        // Arrange
+        when(connection.prepareStatement("SELECT pg_try_advisory_lock(?)")).thenReturn(statement);
+        when(resultSet.getBoolean(1)).thenReturn(true);
+        StockWriterLock lock = new StockWriterLock(dataSource, true);
+
+        // Act
+        lock.acquire();
+
+        // Assert
+        verify(statement).setLong(1, StockWriterLock.LOCK_KEY);
+        verify(connection, never()).close();
+        lock.release();
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void acquire_ShouldFailStartup_WhenLedgerInstanceHoldsTheLock() throws SQLException {
+        // Arrange
+        when(connection.prepareStatement("SELECT pg_try_advisory_lock_shared(?)")).thenReturn(statement);
+        when(resultSet.getBoolean(1)).thenReturn(false);
+        StockWriterLock lock = new StockWriterLock(dataSource, false);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, lock::acquire);
+        verify(connection, times(1)).close();
+    }
+}
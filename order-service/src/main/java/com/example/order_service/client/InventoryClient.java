@@ -2,12 +2,15 @@ package com.example.order_service.client;
 
 import com.example.order_service.external.dto.InventoryRequest;
 import com.example.order_service.external.dto.InventoryResponse;
+import com.example.order_service.external.dto.ReservationResponse;
+import com.example.order_service.external.dto.StockAvailability;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.service.annotation.GetExchange;
@@ -15,6 +18,9 @@ import org.springframework.web.service.annotation.GetExchange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.service.annotation.PostExchange;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.List;
 
 public interface InventoryClient {
 
@@ -30,12 +36,29 @@ public interface InventoryClient {
         return false;
     }
 
+    // One round trip for a whole cart; answers come back in request order.
+    @PostExchange("/api/inventory/availability")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackCheckAvailability")
+    @Retry(name = "inventory")
+    ResponseEntity<List<StockAvailability>> checkAvailability(@RequestBody List<InventoryRequest> requests);
+
+    default ResponseEntity<List<StockAvailability>> fallbackCheckAvailability(List<InventoryRequest> requests,
+                                                                              Throwable throwable) {
+        rethrowClientError(throwable);
+        log.info("Cannot check availability of {} lines, failure reason: {}",
+                requests.size(),
+                throwable != null ? throwable.getMessage() : "Unknown error");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
     @PostExchange("/api/inventory/decrease")
     @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackDecreaseInventory")
     @Retry(name = "inventory")
     ResponseEntity<InventoryResponse> decreaseInventory(@RequestBody InventoryRequest request);
 
     default ResponseEntity<InventoryResponse> fallbackDecreaseInventory(InventoryRequest request, Throwable throwable) {
+        rethrowClientError(throwable);
         log.error("Fallback triggered for decreaseInventory for skuCode: {}. Error: {}", 
                  request.skuCode(), 
                  throwable != null ? throwable.getMessage() : "Unknown error",
@@ -51,4 +74,76 @@ public interface InventoryClient {
                 .status(HttpStatus.SERVICE_UNAVAILABLE)
                 .body(response);
     }
+
+    // No @Retry: a retried reservation after a timeout could take the stock twice.
+    @PostExchange("/api/inventory/reserve")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackReserveInventory")
+    ResponseEntity<InventoryResponse> reserveInventory(@RequestBody InventoryRequest request);
+
+    default ResponseEntity<InventoryResponse> fallbackReserveInventory(InventoryRequest request, Throwable throwable) {
+        rethrowClientError(throwable);
+        log.error("Fallback triggered for reserveInventory for skuCode: {}. Error: {}",
+                request.skuCode(),
+                throwable != null ? throwable.getMessage() : "Unknown error");
+
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(new InventoryResponse(null, request.skuCode(), 0));
+    }
+
+    // Not retried: like reserveInventory, a retry after a timeout could hold the stock twice.
+    @PostExchange("/api/inventory/reservations")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackCreateReservation")
+    ResponseEntity<ReservationResponse> createReservation(@RequestBody InventoryRequest request);
+
+    default ResponseEntity<ReservationResponse> fallbackCreateReservation(InventoryRequest request, Throwable throwable) {
+        rethrowClientError(throwable);
+        log.error("Fallback triggered for createReservation for skuCode: {}. Error: {}",
+                request.skuCode(),
+                throwable != null ? throwable.getMessage() : "Unknown error");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    // One reservation per SKU for a whole cart, all or none; not retried for the same reason as createReservation.
+    @PostExchange("/api/inventory/reservations/batch")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackCreateReservations")
+    ResponseEntity<List<ReservationResponse>> createReservations(@RequestBody List<InventoryRequest> requests);
+
+    default ResponseEntity<List<ReservationResponse>> fallbackCreateReservations(List<InventoryRequest> requests,
+                                                                               Throwable throwable) {
+        rethrowClientError(throwable);
+        log.error("Fallback triggered for createReservations of {} lines. Error: {}",
+                requests.size(),
+                throwable != null ? throwable.getMessage() : "Unknown error");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    // Confirm and release are idempotent on the inventory side, so they are safe to retry.
+    @PostExchange("/api/inventory/reservations/{id}/confirm")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackResolveReservation")
+    @Retry(name = "inventory")
+    ResponseEntity<ReservationResponse> confirmReservation(@PathVariable Long id);
+
+    @PostExchange("/api/inventory/reservations/{id}/release")
+    @CircuitBreaker(name = "inventory", fallbackMethod = "fallbackResolveReservation")
+    @Retry(name = "inventory")
+    ResponseEntity<ReservationResponse> releaseReservation(@PathVariable Long id);
+
+    default ResponseEntity<ReservationResponse> fallbackResolveReservation(Long id, Throwable throwable) {
+        rethrowClientError(throwable);
+        log.error("Fallback triggered for reservation {}. Error: {}",
+                id,
+                throwable != null ? throwable.getMessage() : "Unknown error");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    // A 4xx is inventory's answer, not an outage: callers see it as it is, e.g. 409 for too little stock.
+    private static void rethrowClientError(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException e && e.getStatusCode().is4xxClientError()) {
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,17 @@
+package com.example.order_service.config;
+
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.function.Predicate;
+
+/**
+ * 4xx answers from inventory, such as 409 for too little stock, mean the service is up and said no. The
+ * {@code inventory} circuit breaker ignores them, so a burst of sold-out orders cannot open it.
+ */
+public class ClientErrorPredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        return throwable instanceof WebClientResponseException e && e.getStatusCode().is4xxClientError();
+    }
+}
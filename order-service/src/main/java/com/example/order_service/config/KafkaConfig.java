@@ -24,6 +24,10 @@ public class KafkaConfig {
             kafkaUrl = "localhost:9092";
         }
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaUrl);
+        // The outbox relay sends whole batches at once; let the producer pack them and retry without duplicates
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, 5);
         return new DefaultKafkaProducerFactory<>(
                 configProps,
                 new StringSerializer(),
@@ -1,11 +1,14 @@
 package com.example.order_service.controller;
 
+import com.example.order_service.dto.BatchOrderRequest;
 import com.example.order_service.dto.OrderRequest;
+import com.example.order_service.dto.OrderResponse;
 import com.example.order_service.model.Order;
 import com.example.order_service.repository.OrderRepository;
 import com.example.order_service.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -28,8 +31,26 @@ public class OrderController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<OrderResponse>> placeBatchOrder(@RequestBody BatchOrderRequest batchOrderRequest) {
+        List<Order> orders = orderService.placeBatchOrder(batchOrderRequest);
+        if (orders.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(orders.stream()
+                .map(order -> new OrderResponse(order.getId(), order.getOrderNumber(),
+                        order.getSkuCode(), order.getQuantity(), order.getPrice()))
+                .toList());
+    }
+
     @GetMapping
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleIllegalArgument(IllegalArgumentException e) {
+        return e.getMessage();
+    }
 }
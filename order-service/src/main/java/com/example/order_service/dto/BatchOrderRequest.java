@@ -0,0 +1,8 @@
+package com.example.order_service.dto;
+
+import java.util.List;
+
+public record BatchOrderRequest(List<LineItem> items,
+                                OrderRequest.UserDetails userDetails) {
+    public record LineItem(String skuCode, Integer quantity) {}
+}
@@ -0,0 +1,11 @@
+package com.example.order_service.external.dto;
+
+import java.time.Instant;
+
+public record ReservationResponse(
+        Long reservationId,
+        String skuCode,
+        Integer quantity,
+        String status,
+        Instant expiresAt
+) {}
@@ -0,0 +1,7 @@
+package com.example.order_service.external.dto;
+
+public record StockAvailability(
+        String skuCode,
+        Integer quantity,
+        boolean inStock
+) {}
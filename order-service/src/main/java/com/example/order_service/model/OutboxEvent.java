@@ -0,0 +1,35 @@
+package com.example.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "order_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+    private String topic;
+    private String eventKey;
+    private String payload;
+    private Instant createdAt;
+    private Instant sentAt;
+    private int attempts;
+    private Instant nextAttemptAt;
+
+    public OutboxEvent(String topic, String eventKey, String payload) {
+        this.topic = topic;
+        this.eventKey = eventKey;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+}
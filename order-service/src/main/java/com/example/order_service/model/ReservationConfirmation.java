@@ -0,0 +1,23 @@
+package com.example.order_service.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "reservation_confirmation")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ReservationConfirmation {
+
+    @Id
+    private Long reservationId;
+    private String orderNumber;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private Instant createdAt;
+}
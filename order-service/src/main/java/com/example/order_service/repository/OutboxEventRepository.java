@@ -0,0 +1,39 @@
+package com.example.order_service.repository;
+
+import com.example.order_service.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED lets several relay instances drain the table concurrently without handing out the same row twice.
+    @Query(value = "SELECT * FROM order_outbox WHERE sent_at IS NULL AND (next_attempt_at IS NULL OR next_attempt_at <= now()) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockPendingBatch(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.sentAt = :sentAt WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + :counted, e.nextAttemptAt = :nextAttemptAt WHERE e.id IN :ids")
+    int postpone(@Param("ids") Collection<Long> ids, @Param("counted") int counted,
+                 @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    @Modifying
+    @Query(value = "WITH moved AS (DELETE FROM order_outbox WHERE id IN (:ids) RETURNING *) " +
+            "INSERT INTO order_outbox_dead_letter (id, topic, event_key, payload, created_at, attempts, dead_lettered_at) " +
+            "SELECT id, topic, event_key, payload, created_at, attempts + 1, :now FROM moved", nativeQuery = true)
+    int deadLetter(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_outbox WHERE id IN (" +
+            "SELECT id FROM order_outbox WHERE sent_at < :cutoff ORDER BY sent_at LIMIT :limit)", nativeQuery = true)
+    int purgeSentBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
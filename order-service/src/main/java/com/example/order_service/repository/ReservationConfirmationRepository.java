@@ -0,0 +1,32 @@
+package com.example.order_service.repository;
+
+import com.example.order_service.model.ReservationConfirmation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ReservationConfirmationRepository extends JpaRepository<ReservationConfirmation, Long> {
+
+    // A plain INSERT: save() would look the assigned id up first.
+    @Modifying
+    @Query(value = "INSERT INTO reservation_confirmation (reservation_id, order_number, attempts, next_attempt_at, created_at) " +
+            "VALUES (:reservationId, :orderNumber, 0, :nextAttemptAt, now())", nativeQuery = true)
+    void enqueue(@Param("reservationId") Long reservationId,
+                 @Param("orderNumber") String orderNumber,
+                 @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    // SKIP LOCKED lets several instances retry confirmations without calling inventory twice for the same row.
+    @Query(value = "SELECT * FROM reservation_confirmation WHERE next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ReservationConfirmation> lockDueBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE ReservationConfirmation c SET c.attempts = c.attempts + 1, c.nextAttemptAt = :nextAttemptAt " +
+            "WHERE c.reservationId IN :ids")
+    int postpone(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") Instant nextAttemptAt);
+}
@@ -0,0 +1,9 @@
+package com.example.order_service.service;
+
+/**
+ * Source of order numbers. Selected with {@code order.number.generator}: {@code snowflake} (default) or {@code uuid}.
+ */
+public interface OrderNumberGenerator {
+
+    String nextOrderNumber();
+}
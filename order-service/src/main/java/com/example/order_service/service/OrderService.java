@@ -1,22 +1,26 @@
 package com.example.order_service.service;
 
 import com.example.order_service.client.InventoryClient;
+import com.example.order_service.dto.BatchOrderRequest;
 import com.example.order_service.dto.OrderRequest;
 import com.example.order_service.event.OrderPlacedEvent;
 import com.example.order_service.external.dto.InventoryRequest;
-import com.example.order_service.external.dto.InventoryResponse;
+import com.example.order_service.external.dto.ReservationResponse;
 import com.example.order_service.model.Order;
 import com.example.order_service.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 @Service
@@ -26,37 +30,141 @@ public class OrderService {
     private static final Logger log = LoggerFactory.getLogger(OrderService.class);
     private final OrderRepository orderRepository;
     private final InventoryClient inventoryClient;
-    private final KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final ReservationConfirmer reservationConfirmer;
 
     public boolean placeOrder(OrderRequest orderRequest) {
 
-        boolean isInStock =
-                inventoryClient.isInStock(orderRequest.skuCode(), orderRequest.quantity());
-
-        if (!isInStock) {
+        Long reservationId = reserveStock(orderRequest.skuCode(), orderRequest.quantity());
+        if (reservationId == null) {
             log.warn("Product {} is out of stock", orderRequest.skuCode());
             return false;
         }
 
         Order order = new Order();
-        order.setOrderNumber(UUID.randomUUID().toString());
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
         order.setSkuCode(orderRequest.skuCode());
         order.setQuantity(orderRequest.quantity());
         order.setPrice(BigDecimal.valueOf(0));
 
-        orderRepository.save(order);
+        // The event is written to the outbox in the order's transaction; OutboxRelay publishes it to Kafka.
+        // The confirmation is recorded there too, so it is retried if the call after the commit fails.
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.save(order);
+                outboxService.enqueue(List.of(new OrderPlacedEvent(order.getOrderNumber())));
+                reservationConfirmer.enqueue(reservationId, order.getOrderNumber());
+            });
+        } catch (RuntimeException e) {
+            releaseReservation(reservationId);
+            throw e;
+        }
+        reservationConfirmer.confirmNow(reservationId);
 
-        inventoryClient.decreaseInventory(
-                new InventoryRequest(orderRequest.skuCode(), orderRequest.quantity())
-        );
+        log.info("Order placed successfully {}", order.getOrderNumber());
 
-        OrderPlacedEvent event =
-                new OrderPlacedEvent(order.getOrderNumber());
+        return true;
+    }
 
-        kafkaTemplate.send("order-placed", event);
+    /**
+     * Places one order row per line item. Stock for the whole cart is reserved in a single inventory call, and the
+     * rows, their outbox events and the reservations' confirmations are written together in one batched transaction.
+     * As for a single order, the reservations are released if that transaction fails and confirmed after it commits.
+     * Returns an empty list when the cart could not be reserved.
+     */
+    public List<Order> placeBatchOrder(BatchOrderRequest batchOrderRequest) {
+        List<BatchOrderRequest.LineItem> items = batchOrderRequest.items();
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("A batch order needs at least one line item");
+        }
+        for (BatchOrderRequest.LineItem item : items) {
+            if (item.skuCode() == null || item.skuCode().isBlank() || item.quantity() == null || item.quantity() <= 0) {
+                throw new IllegalArgumentException("Invalid line item for skuCode " + item.skuCode());
+            }
+        }
 
-        log.info("Order placed successfully {}", order.getOrderNumber());
+        List<ReservationResponse> reservations = reserveStock(items);
+        if (reservations == null) {
+            log.warn("Batch order of {} lines could not be reserved", items.size());
+            return List.of();
+        }
 
-        return true;
+        List<Order> orders = items.stream().map(item -> {
+            Order order = new Order();
+            order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+            order.setSkuCode(item.skuCode());
+            order.setQuantity(item.quantity());
+            order.setPrice(BigDecimal.valueOf(0));
+            return order;
+        }).toList();
+
+        // Inventory holds one reservation per SKU; it is confirmed under the first order for that SKU.
+        Map<String, String> orderNumberBySku = new HashMap<>();
+        orders.forEach(order -> orderNumberBySku.putIfAbsent(order.getSkuCode(), order.getOrderNumber()));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.saveAll(orders);
+                outboxService.enqueue(orders.stream()
+                        .map(order -> new OrderPlacedEvent(order.getOrderNumber()))
+                        .toList());
+                reservations.forEach(reservation -> reservationConfirmer.enqueue(
+                        reservation.reservationId(), orderNumberBySku.get(reservation.skuCode())));
+            });
+        } catch (RuntimeException e) {
+            reservations.forEach(reservation -> releaseReservation(reservation.reservationId()));
+            throw e;
+        }
+        reservations.forEach(reservation -> reservationConfirmer.confirmNow(reservation.reservationId()));
+
+        log.info("Batch order placed successfully with {} orders", orders.size());
+
+        return orders;
+    }
+
+    // Holds the stock until the order is stored; if nobody confirms or releases it, inventory releases it after its TTL.
+    private Long reserveStock(String skuCode, Integer quantity) {
+        try {
+            ResponseEntity<ReservationResponse> response =
+                    inventoryClient.createReservation(new InventoryRequest(skuCode, quantity));
+            if (response == null || !response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                return null;
+            }
+            return response.getBody().reservationId();
+        } catch (WebClientResponseException e) {
+            log.warn("Inventory rejected reservation for skuCode {}: {}", skuCode, e.getStatusCode());
+            return null;
+        }
+    }
+
+    // Best effort: a release that does not get through only holds the stock until the reservation's TTL.
+    private void releaseReservation(Long reservationId) {
+        try {
+            ResponseEntity<ReservationResponse> response = inventoryClient.releaseReservation(reservationId);
+            if (response != null && response.getStatusCode().is2xxSuccessful()) {
+                return;
+            }
+            log.error("Could not release reservation {}: {}", reservationId,
+                    response != null ? response.getStatusCode() : "no response");
+        } catch (WebClientResponseException e) {
+            log.error("Could not release reservation {}: {}", reservationId, e.getStatusCode());
+        }
+    }
+
+    // Null when the cart could not be reserved; unresolved reservations are released after their TTL like single ones.
+    private List<ReservationResponse> reserveStock(List<BatchOrderRequest.LineItem> items) {
+        try {
+            ResponseEntity<List<ReservationResponse>> response = inventoryClient.createReservations(items.stream()
+                    .map(item -> new InventoryRequest(item.skuCode(), item.quantity()))
+                    .toList());
+            if (response == null || !response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                return null;
+            }
+            return response.getBody();
+        } catch (WebClientResponseException e) {
+            log.warn("Inventory rejected batch reservation: {}", e.getStatusCode());
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package com.example.order_service.service;
+
+import com.example.order_service.event.OrderPlacedEvent;
+import com.example.order_service.model.OutboxEvent;
+import com.example.order_service.repository.OutboxEventRepository;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains {@code order_outbox} to Kafka. Each batch is locked with SKIP LOCKED, sent without waiting per record,
+ * and marked sent with one UPDATE once the broker acknowledged it. Rows whose send failed are postponed by the retry
+ * delay, so they neither spin nor hold up the rows behind them. Failures the broker reports as retriable, and
+ * acknowledgements that time out, are retried indefinitely; any other failure is the row's own and counts as an
+ * attempt, and a row out of attempts is moved to {@code order_outbox_dead_letter}. Sent rows are purged after
+ * a retention period.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxService outboxService;
+    private final KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+    private final long sentRetentionMs;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxService outboxService,
+                       KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       @Value("${order.outbox.batch-size:200}") int batchSize,
+                       @Value("${order.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${order.outbox.max-attempts:5}") int maxAttempts,
+                       @Value("${order.outbox.retry-ms:10000}") long retryDelayMs,
+                       @Value("${order.outbox.sent-retention-ms:86400000}") long sentRetentionMs) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxService = outboxService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+        this.sentRetentionMs = sentRetentionMs;
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public void relayPending() {
+        Integer locked;
+        do {
+            locked = transactionTemplate.execute(status -> relayBatch());
+        } while (locked != null && locked == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.purge-interval-ms:600000}")
+    public void purgeSent() {
+        Instant cutoff = Instant.now().minusMillis(sentRetentionMs);
+        Integer purged;
+        do {
+            purged = transactionTemplate.execute(status -> outboxEventRepository.purgeSentBefore(cutoff, batchSize));
+        } while (purged != null && purged == batchSize);
+    }
+
+    // Returns how many rows were locked, so relayPending keeps going while batches are full.
+    int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockPendingBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, OrderPlacedEvent>>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            try {
+                sends.add(kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getEventKey(),
+                        outboxService.readPayload(outboxEvent)));
+            } catch (RuntimeException e) {
+                sends.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        List<Long> retryIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        List<Long> deadIds = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent outboxEvent = batch.get(i);
+            try {
+                sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(outboxEvent.getId());
+            } catch (TimeoutException e) {
+                log.warn("Outbox event {} not acknowledged by Kafka in time, will retry", outboxEvent.getId());
+                retryIds.add(outboxEvent.getId());
+            } catch (ExecutionException e) {
+                if (isRetriable(e.getCause())) {
+                    log.warn("Outbox event {} not acknowledged by Kafka, will retry: {}", outboxEvent.getId(), e.getMessage());
+                    retryIds.add(outboxEvent.getId());
+                } else if (outboxEvent.getAttempts() + 1 >= maxAttempts) {
+                    log.error("Outbox event {} failed {} times, moving it to the dead letter table", outboxEvent.getId(),
+                            outboxEvent.getAttempts() + 1, e.getCause());
+                    deadIds.add(outboxEvent.getId());
+                } else {
+                    log.warn("Outbox event {} could not be sent, will retry: {}", outboxEvent.getId(), e.getMessage());
+                    failedIds.add(outboxEvent.getId());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        Instant now = Instant.now();
+        if (!sentIds.isEmpty()) {
+            outboxEventRepository.markSent(sentIds, now);
+        }
+        if (!retryIds.isEmpty()) {
+            outboxEventRepository.postpone(retryIds, 0, now.plusMillis(retryDelayMs));
+        }
+        if (!failedIds.isEmpty()) {
+            outboxEventRepository.postpone(failedIds, 1, now.plusMillis(retryDelayMs));
+        }
+        if (!deadIds.isEmpty()) {
+            outboxEventRepository.deadLetter(deadIds, now);
+        }
+        log.debug("Relayed {} of {} outbox events", sentIds.size(), batch.size());
+        return batch.size();
+    }
+
+    // The broker or the connection to it, not the record: the same send can succeed later.
+    private static boolean isRetriable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.order_service.service;
+
+import com.example.order_service.event.OrderPlacedEvent;
+import com.example.order_service.model.OutboxEvent;
+import com.example.order_service.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    public static final String ORDER_PLACED_TOPIC = "order-placed";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    // Must join the caller's transaction, otherwise the event could outlive a rolled back order.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(List<OrderPlacedEvent> events) {
+        outboxEventRepository.saveAll(events.stream()
+                .map(event -> new OutboxEvent(ORDER_PLACED_TOPIC, event.getOrderNumber(), writePayload(event)))
+                .toList());
+    }
+
+    OrderPlacedEvent readPayload(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), OrderPlacedEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable outbox payload for event " + outboxEvent.getId(), e);
+        }
+    }
+
+    private String writePayload(OrderPlacedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize event for order " + event.getOrderNumber(), e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.order_service.service;
+
+import com.example.order_service.client.InventoryClient;
+import com.example.order_service.external.dto.ReservationResponse;
+import com.example.order_service.model.ReservationConfirmation;
+import com.example.order_service.repository.ReservationConfirmationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes sure every stored order's reservation gets confirmed. The confirmation is recorded in
+ * {@code reservation_confirmation} in the order's transaction and tried once right after the commit; rows that are
+ * still there when they come due, because inventory was unreachable or this instance stopped, are retried by
+ * {@link #confirmPending()} on any instance until inventory answers. Confirming is idempotent on the inventory side,
+ * so a retry of a confirm that did go through is harmless.
+ */
+@Component
+public class ReservationConfirmer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationConfirmer.class);
+
+    enum Outcome { CONFIRMED, REJECTED, FAILED }
+
+    private final ReservationConfirmationRepository confirmationRepository;
+    private final InventoryClient inventoryClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long retryDelayMs;
+
+    public ReservationConfirmer(ReservationConfirmationRepository confirmationRepository,
+                                InventoryClient inventoryClient,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${order.reservation.confirm-batch-size:100}") int batchSize,
+                                @Value("${order.reservation.confirm-retry-ms:10000}") long retryDelayMs) {
+        this.confirmationRepository = confirmationRepository;
+        this.inventoryClient = inventoryClient;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    // Must join the order's transaction: the confirmation has to exist exactly when the order does.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long reservationId, String orderNumber) {
+        confirmationRepository.enqueue(reservationId, orderNumber, Instant.now().plusMillis(retryDelayMs));
+    }
+
+    /** The fast path after the order committed; on failure the row stays for {@link #confirmPending()}. */
+    public void confirmNow(Long reservationId) {
+        if (confirm(reservationId) != Outcome.FAILED) {
+            confirmationRepository.deleteAllByIdInBatch(List.of(reservationId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.reservation.confirm-poll-interval-ms:5000}")
+    public void confirmPending() {
+        Integer locked;
+        do {
+            locked = transactionTemplate.execute(status -> confirmBatch());
+        } while (locked != null && locked == batchSize);
+    }
+
+    int confirmBatch() {
+        List<ReservationConfirmation> batch = confirmationRepository.lockDueBatch(Instant.now(), batchSize);
+        List<Long> done = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        for (ReservationConfirmation confirmation : batch) {
+            Outcome outcome = confirm(confirmation.getReservationId());
+            if (outcome == Outcome.FAILED) {
+                failed.add(confirmation.getReservationId());
+            } else {
+                done.add(confirmation.getReservationId());
+                if (outcome == Outcome.REJECTED) {
+                    log.error("Reservation {} of order {} was rejected after {} attempts; the order has no stock held",
+                            confirmation.getReservationId(), confirmation.getOrderNumber(), confirmation.getAttempts());
+                }
+            }
+        }
+        if (!done.isEmpty()) {
+            confirmationRepository.deleteAllByIdInBatch(done);
+        }
+        if (!failed.isEmpty()) {
+            confirmationRepository.postpone(failed, Instant.now().plusMillis(retryDelayMs));
+        }
+        return batch.size();
+    }
+
+    Outcome confirm(Long reservationId) {
+        try {
+            ResponseEntity<ReservationResponse> response = inventoryClient.confirmReservation(reservationId);
+            if (response != null && response.getStatusCode().is2xxSuccessful()) {
+                return Outcome.CONFIRMED;
+            }
+            log.warn("Could not confirm reservation {}, will retry: {}", reservationId,
+                    response != null ? response.getStatusCode() : "no response");
+            return Outcome.FAILED;
+        } catch (WebClientResponseException e) {
+            if (e.getStatusCode().is4xxClientError()) {
+                // Released, expired or unknown: asking again will not change the answer.
+                return Outcome.REJECTED;
+            }
+            log.warn("Could not confirm reservation {}, will retry: {}", reservationId, e.getStatusCode());
+            return Outcome.FAILED;
+        } catch (RuntimeException e) {
+            log.warn("Could not confirm reservation {}, will retry: {}", reservationId, e.getMessage());
+            return Outcome.FAILED;
+        }
+    }
+}
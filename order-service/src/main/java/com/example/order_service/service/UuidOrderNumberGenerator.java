@@ -0,0 +1,16 @@
+package com.example.order_service.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "order.number.generator", havingValue = "uuid")
+public class UuidOrderNumberGenerator implements OrderNumberGenerator {
+
+    @Override
+    public String nextOrderNumber() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,16 @@
+-- V2__create_order_outbox_table.sql
+
+-- Sequence ids (not IDENTITY) so Hibernate can batch outbox inserts
+CREATE SEQUENCE IF NOT EXISTS order_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id BIGINT PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    event_key VARCHAR(255),
+    payload TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL,
+    sent_at TIMESTAMPTZ
+);
+
+-- The relay only ever scans pending rows, keep that index small
+CREATE INDEX IF NOT EXISTS idx_order_outbox_pending ON order_outbox(id) WHERE sent_at IS NULL;
@@ -0,0 +1,7 @@
+-- V3__orders_id_sequence.sql
+-- Hibernate cannot batch inserts into an IDENTITY column, so ids come from a pooled sequence instead.
+-- Increment matches allocationSize on Order; start past existing ids so pooled blocks never collide.
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+
+SELECT setval('orders_seq', COALESCE((SELECT MAX(id) FROM orders), 0) + 50);
@@ -0,0 +1,14 @@
+-- V4__create_reservation_confirmation_table.sql
+
+-- Confirmations still owed to inventory for stored orders. A row is written in the order's transaction and deleted
+-- once inventory confirmed the reservation, so a confirm that failed right after the commit is retried instead of
+-- letting the reservation run into its TTL and hand the units back.
+CREATE TABLE IF NOT EXISTS reservation_confirmation (
+    reservation_id BIGINT PRIMARY KEY,
+    order_number VARCHAR(255) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMPTZ NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservation_confirmation_next_attempt_at ON reservation_confirmation(next_attempt_at);
@@ -0,0 +1,19 @@
+-- V5__order_outbox_retries.sql
+
+-- A row whose send failed waits until next_attempt_at instead of being retried on every poll. A row failing for
+-- itself rather than for the broker counts attempts and is moved to order_outbox_dead_letter at the limit.
+ALTER TABLE order_outbox ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE order_outbox ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMPTZ;
+
+CREATE TABLE IF NOT EXISTS order_outbox_dead_letter (
+    id BIGINT PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    event_key VARCHAR(255),
+    payload TEXT NOT NULL,
+    created_at TIMESTAMPTZ NOT NULL,
+    attempts INT NOT NULL,
+    dead_lettered_at TIMESTAMPTZ NOT NULL
+);
+
+-- Sent rows are purged after a retention period, oldest first
+CREATE INDEX IF NOT EXISTS idx_order_outbox_sent_at ON order_outbox(sent_at) WHERE sent_at IS NOT NULL;
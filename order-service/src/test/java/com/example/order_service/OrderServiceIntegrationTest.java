@@ -2,6 +2,8 @@ package com.example.order_service;
 
 import com.example.order_service.client.InventoryClient;
 import com.example.order_service.dto.OrderRequest;
+import com.example.order_service.external.dto.InventoryRequest;
+import com.example.order_service.external.dto.ReservationResponse;
 import com.example.order_service.model.Order;
 import com.example.order_service.repository.OrderRepository;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -17,6 +19,8 @@ import org.springframework.http.*;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.time.Instant;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.when;
 
@@ -37,8 +41,13 @@ class OrderServiceIntegrationTest {
     @BeforeEach
     void setUp() {
         orderRepository.deleteAll();
-        // Mock the isInStock method to always return true
-        when(inventoryClient.isInStock("TEST-SKU", 5)).thenReturn(true);
+        // Mock the reservation so stock is always available
+        when(inventoryClient.createReservation(new InventoryRequest("TEST-SKU", 5)))
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(new ReservationResponse(
+                        1L, "TEST-SKU", 5, "PENDING", Instant.now().plusSeconds(900))));
+        when(inventoryClient.confirmReservation(1L))
+                .thenReturn(ResponseEntity.ok(new ReservationResponse(
+                        1L, "TEST-SKU", 5, "CONFIRMED", Instant.now().plusSeconds(900))));
     }
 
     @Test
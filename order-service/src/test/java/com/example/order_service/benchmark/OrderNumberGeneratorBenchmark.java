@@ -0,0 +1,45 @@
+package com.example.order_service.benchmark;
+
+import com.example.order_service.service.SnowflakeOrderNumberGenerator;
+import com.example.order_service.service.UuidOrderNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares order number generation under contention. Not part of the test run; start it from the IDE
+ * or with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=<this class>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class OrderNumberGeneratorBenchmark {
+
+    private final UuidOrderNumberGenerator uuid = new UuidOrderNumberGenerator();
+    private final SnowflakeOrderNumberGenerator snowflake = new SnowflakeOrderNumberGenerator(1);
+
+    @Benchmark
+    public String randomUuid() {
+        return uuid.nextOrderNumber();
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextOrderNumber();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OrderNumberGeneratorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
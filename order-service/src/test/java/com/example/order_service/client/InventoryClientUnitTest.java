@@ -0,0 +1,46 @@
+package com.example.order_service.client;
+
+import com.example.order_service.config.ClientErrorPredicate;
+import com.example.order_service.external.dto.InventoryRequest;
+import com.example.order_service.external.dto.ReservationResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InventoryClientUnitTest {
+
+    private final InventoryClient inventoryClient = mock(InventoryClient.class, CALLS_REAL_METHODS);
+
+    @Test
+    void fallbackCreateReservation_ShouldLetConflictThrough() {
+        // Arrange
+        WebClientResponseException conflict =
+                WebClientResponseException.create(HttpStatus.CONFLICT.value(), "Conflict", null, null, null);
+
+        // Act & Assert
+        assertSame(conflict, assertThrows(WebClientResponseException.class, () ->
+                inventoryClient.fallbackCreateReservation(new InventoryRequest("SKU-A", 2), conflict)));
+        assertTrue(new ClientErrorPredicate().test(conflict));
+    }
+
+    @Test
+    void fallbackCreateReservation_ShouldAnswerUnavailable_WhenInventoryIsUnreachable() {
+        // Arrange
+        WebClientRequestException unreachable = mock(WebClientRequestException.class);
+
+        // Act
+        ResponseEntity<ReservationResponse> response =
+                inventoryClient.fallbackCreateReservation(new InventoryRequest("SKU-A", 2), unreachable);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertFalse(new ClientErrorPredicate().test(unreachable));
+        assertFalse(new ClientErrorPredicate().test(WebClientResponseException.create(
+                HttpStatus.BAD_GATEWAY.value(), "Bad Gateway", null, null, null)));
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.order_service.service;
 
 import com.example.order_service.client.InventoryClient;
+import com.example.order_service.dto.BatchOrderRequest;
 import com.example.order_service.dto.OrderRequest;
 import com.example.order_service.event.OrderPlacedEvent;
 import com.example.order_service.external.dto.InventoryRequest;
+import com.example.order_service.external.dto.ReservationResponse;
 import com.example.order_service.model.Order;
 import com.example.order_service.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,14 +13,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,7 +42,16 @@ class OrderServiceUnitTest {
     private InventoryClient inventoryClient;
 
     @Mock
-    private KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
+    private OutboxService outboxService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private OrderNumberGenerator orderNumberGenerator = new SnowflakeOrderNumberGenerator(1);
+
+    @Mock
+    private ReservationConfirmer reservationConfirmer;
 
     @InjectMocks
     private OrderService orderService;
@@ -48,31 +68,48 @@ class OrderServiceUnitTest {
 
     @Test
     void placeOrder_ShouldReturnFalse_WhenProductOutOfStock() {
-        when(inventoryClient.isInStock(anyString(), anyInt())).thenReturn(false);
+        when(inventoryClient.createReservation(any(InventoryRequest.class)))
+                .thenThrow(WebClientResponseException.create(HttpStatus.CONFLICT.value(), "Conflict", null, null, null));
 
         boolean result = orderService.placeOrder(orderRequest);
 
         assertFalse(result);
         verify(orderRepository, never()).save(any(Order.class));
-        verify(kafkaTemplate, never()).send(anyString(), any(OrderPlacedEvent.class));
+        verify(outboxService, never()).enqueue(anyList());
     }
 
     @Test
     void placeOrder_ShouldReturnTrue_WhenProductInStock() {
-        when(inventoryClient.isInStock(anyString(), anyInt())).thenReturn(true);
+        stubSuccessfulReservation();
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         boolean result = orderService.placeOrder(orderRequest);
 
         assertTrue(result);
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(kafkaTemplate, times(1)).send(anyString(), any(OrderPlacedEvent.class));
-        verify(inventoryClient, times(1)).decreaseInventory(any(InventoryRequest.class));
+        verify(outboxService, times(1)).enqueue(anyList());
+        verify(inventoryClient, times(1)).createReservation(new InventoryRequest("TEST-SKU", 10));
+        verify(reservationConfirmer, times(1)).enqueue(eq(42L), anyString());
+        verify(reservationConfirmer, times(1)).confirmNow(42L);
+        verify(inventoryClient, never()).releaseReservation(anyLong());
+        verify(inventoryClient, never()).isInStock(anyString(), anyInt());
+        verify(inventoryClient, never()).decreaseInventory(any(InventoryRequest.class));
+    }
+
+    @Test
+    void placeOrder_ShouldReturnFalse_WhenReservationFallsBack() {
+        when(inventoryClient.createReservation(any(InventoryRequest.class)))
+                .thenReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+
+        boolean result = orderService.placeOrder(orderRequest);
+
+        assertFalse(result);
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
     void placeOrder_ShouldCreateOrderWithCorrectDetails() {
-        when(inventoryClient.isInStock(anyString(), anyInt())).thenReturn(true);
+        stubSuccessfulReservation();
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         orderService.placeOrder(orderRequest);
@@ -86,14 +123,95 @@ class OrderServiceUnitTest {
     }
 
     @Test
-    void placeOrder_ShouldSendOrderPlacedEvent() {
-        when(inventoryClient.isInStock(anyString(), anyInt())).thenReturn(true);
+    void placeOrder_ShouldWriteOrderPlacedEventToOutboxInOrderTransaction() {
+        stubSuccessfulReservation();
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         orderService.placeOrder(orderRequest);
 
-        verify(kafkaTemplate, times(1)).send(eq("order-placed"), argThat(event ->
-                event.getOrderNumber() != null
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(outboxService, times(1)).enqueue(argThat((List<OrderPlacedEvent> events) ->
+                events.size() == 1 && events.get(0).getOrderNumber() != null
         ));
     }
+
+    @Test
+    void placeBatchOrder_ShouldReserveOnceAndSaveAllLinesTogether() {
+        stubSuccessfulBatchReservation();
+        BatchOrderRequest request = new BatchOrderRequest(List.of(
+                new BatchOrderRequest.LineItem("SKU-A", 2),
+                new BatchOrderRequest.LineItem("SKU-B", 1)), null);
+
+        List<Order> orders = orderService.placeBatchOrder(request);
+
+        assertEquals(2, orders.size());
+        verify(inventoryClient, times(1)).createReservations(List.of(
+                new InventoryRequest("SKU-A", 2), new InventoryRequest("SKU-B", 1)));
+        verify(orderRepository, times(1)).saveAll(orders);
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxService, times(1)).enqueue(argThat((List<OrderPlacedEvent> events) -> events.size() == 2));
+        verify(reservationConfirmer, times(1)).enqueue(51L, orders.get(0).getOrderNumber());
+        verify(reservationConfirmer, times(1)).enqueue(52L, orders.get(1).getOrderNumber());
+        verify(reservationConfirmer, times(1)).confirmNow(51L);
+        verify(reservationConfirmer, times(1)).confirmNow(52L);
+    }
+
+    @Test
+    void placeBatchOrder_ShouldSaveNothing_WhenCartCannotBeReserved() {
+        when(inventoryClient.createReservations(anyList()))
+                .thenThrow(WebClientResponseException.create(HttpStatus.CONFLICT.value(), "Conflict", null, null, null));
+
+        List<Order> orders = orderService.placeBatchOrder(new BatchOrderRequest(
+                List.of(new BatchOrderRequest.LineItem("SKU-A", 2)), null));
+
+        assertTrue(orders.isEmpty());
+        verify(orderRepository, never()).saveAll(anyList());
+        verify(outboxService, never()).enqueue(anyList());
+    }
+
+    @Test
+    void placeBatchOrder_ShouldReleaseReservations_WhenOrdersCannotBeStored() {
+        stubSuccessfulBatchReservation();
+        when(orderRepository.saveAll(anyList())).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> orderService.placeBatchOrder(new BatchOrderRequest(List.of(
+                new BatchOrderRequest.LineItem("SKU-A", 2),
+                new BatchOrderRequest.LineItem("SKU-B", 1)), null)));
+
+        verify(inventoryClient, times(1)).releaseReservation(51L);
+        verify(inventoryClient, times(1)).releaseReservation(52L);
+        verify(reservationConfirmer, never()).confirmNow(anyLong());
+    }
+
+    @Test
+    void placeBatchOrder_ShouldRejectNonPositiveQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.placeBatchOrder(new BatchOrderRequest(
+                List.of(new BatchOrderRequest.LineItem("SKU-A", 0)), null)));
+        verifyNoInteractions(inventoryClient);
+    }
+
+    @Test
+    void placeOrder_ShouldReleaseReservation_WhenOrderCannotBeStored() {
+        stubSuccessfulReservation();
+        when(orderRepository.save(any(Order.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> orderService.placeOrder(orderRequest));
+
+        verify(inventoryClient, times(1)).releaseReservation(42L);
+        verify(reservationConfirmer, never()).confirmNow(anyLong());
+    }
+
+    private void stubSuccessfulBatchReservation() {
+        Instant expiresAt = Instant.now().plusSeconds(900);
+        when(inventoryClient.createReservations(anyList()))
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(List.of(
+                        new ReservationResponse(51L, "SKU-A", 2, "PENDING", expiresAt),
+                        new ReservationResponse(52L, "SKU-B", 1, "PENDING", expiresAt))));
+    }
+
+    private void stubSuccessfulReservation() {
+        when(inventoryClient.createReservation(any(InventoryRequest.class)))
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).body(new ReservationResponse(
+                        42L, "TEST-SKU", 10, "PENDING", Instant.now().plusSeconds(900))));
+    }
 }
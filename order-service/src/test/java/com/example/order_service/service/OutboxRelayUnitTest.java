@@ -0,0 +1,134 @@
+package com.example.order_service.service;
+
+import com.example.order_service.event.OrderPlacedEvent;
+import com.example.order_service.model.OutboxEvent;
+import com.example.order_service.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.errors.NotEnoughReplicasException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayUnitTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private KafkaTemplate<String, OrderPlacedEvent> kafkaTemplate;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxService, kafkaTemplate,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 2, 1000, 3, 5000, 60_000);
+    }
+
+    @Test
+    void relayBatch_ShouldMarkOnlyAcknowledgedEventsSent() {
+        OutboxEvent first = outboxEvent(1L, "ORDER-1");
+        OutboxEvent second = outboxEvent(2L, "ORDER-2");
+        when(outboxEventRepository.lockPendingBatch(2)).thenReturn(List.of(first, second));
+        when(outboxService.readPayload(any())).thenAnswer(invocation ->
+                new OrderPlacedEvent(invocation.<OutboxEvent>getArgument(0).getEventKey()));
+        when(kafkaTemplate.send(eq("order-placed"), eq("ORDER-1"), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(eq("order-placed"), eq("ORDER-2"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("broker down")));
+
+        int locked = outboxRelay.relayBatch();
+
+        assertEquals(2, locked);
+        verify(outboxEventRepository, times(1)).markSent(eq(List.of(1L)), any());
+        verify(outboxEventRepository, times(1)).postpone(eq(List.of(2L)), eq(1), any());
+    }
+
+    @Test
+    void relayBatch_ShouldRetryWithoutCountingAttempts_WhenBrokerFailureIsRetriable() {
+        when(outboxEventRepository.lockPendingBatch(2)).thenReturn(List.of(outboxEvent(1L, "ORDER-1")));
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new KafkaException("send failed",
+                        new NotEnoughReplicasException("not enough replicas"))));
+
+        outboxRelay.relayBatch();
+
+        verify(outboxEventRepository, times(1)).postpone(eq(List.of(1L)), eq(0), any());
+        verify(outboxEventRepository, never()).deadLetter(anyCollection(), any());
+    }
+
+    @Test
+    void relayBatch_ShouldDeadLetterUnreadableEvent_WhenOutOfAttemptsWithoutHoldingUpOthers() {
+        OutboxEvent poison = outboxEvent(1L, "ORDER-1");
+        poison.setAttempts(2);
+        OutboxEvent healthy = outboxEvent(2L, "ORDER-2");
+        when(outboxEventRepository.lockPendingBatch(2)).thenReturn(List.of(poison, healthy));
+        when(outboxService.readPayload(poison)).thenThrow(new IllegalStateException("Unreadable outbox payload"));
+        when(outboxService.readPayload(healthy)).thenReturn(new OrderPlacedEvent("ORDER-2"));
+        when(kafkaTemplate.send(eq("order-placed"), eq("ORDER-2"), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxRelay.relayBatch();
+
+        verify(outboxEventRepository, times(1)).markSent(eq(List.of(2L)), any());
+        verify(outboxEventRepository, times(1)).deadLetter(eq(List.of(1L)), any());
+        verify(outboxEventRepository, never()).postpone(anyCollection(), anyInt(), any());
+    }
+
+    @Test
+    void purgeSent_ShouldDeleteInBatchesUntilNoneAreLeft() {
+        when(outboxEventRepository.purgeSentBefore(any(), eq(2))).thenReturn(2, 1);
+
+        outboxRelay.purgeSent();
+
+        verify(outboxEventRepository, times(2)).purgeSentBefore(
+                argThat(cutoff -> cutoff.isBefore(Instant.now().minusSeconds(59))), eq(2));
+    }
+
+    @Test
+    void relayPending_ShouldKeepDrainingWhileBatchesAreFull() {
+        when(outboxEventRepository.lockPendingBatch(2))
+                .thenReturn(List.of(outboxEvent(1L, "ORDER-1"), outboxEvent(2L, "ORDER-2")))
+                .thenReturn(List.of(outboxEvent(3L, "ORDER-3")));
+        when(kafkaTemplate.send(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        outboxRelay.relayPending();
+
+        verify(outboxEventRepository, times(2)).lockPendingBatch(2);
+        verify(outboxEventRepository, times(1)).markSent(eq(List.of(1L, 2L)), any());
+        verify(outboxEventRepository, times(1)).markSent(eq(List.of(3L)), any());
+    }
+
+    @Test
+    void relayBatch_ShouldDoNothing_WhenOutboxIsEmpty() {
+        when(outboxEventRepository.lockPendingBatch(2)).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.relayBatch());
+        verifyNoInteractions(kafkaTemplate);
+        verify(outboxEventRepository, never()).markSent(anyCollection(), any());
+    }
+
+    private static OutboxEvent outboxEvent(Long id, String orderNumber) {
+        OutboxEvent outboxEvent = new OutboxEvent("order-placed", orderNumber, "{\"orderNumber\":\"" + orderNumber + "\"}");
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.order_service.service;
+
+import com.example.order_service.client.InventoryClient;
+import com.example.order_service.external.dto.ReservationResponse;
+import com.example.order_service.model.ReservationConfirmation;
+import com.example.order_service.repository.ReservationConfirmationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationConfirmerUnitTest {
+
+    @Mock
+    private ReservationConfirmationRepository confirmationRepository;
+
+    @Mock
+    private InventoryClient inventoryClient;
+
+    private ReservationConfirmer reservationConfirmer;
+
+    @BeforeEach
+    void setUp() {
+        reservationConfirmer = new ReservationConfirmer(confirmationRepository, inventoryClient,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 3, 1000);
+    }
+
+    @Test
+    void confirmNow_ShouldKeepTheRecordedConfirmation_WhenInventoryIsUnavailable() {
+        // Arrange
+        when(inventoryClient.confirmReservation(42L))
+                .thenReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+
+        // Act
+        reservationConfirmer.confirmNow(42L);
+
+        // Assert
+        verify(confirmationRepository, never()).deleteAllByIdInBatch(anyIterable());
+    }
+
+    @Test
+    void confirmBatch_ShouldDeleteAnsweredAndPostponeFailedConfirmations() {
+        // Arrange
+        when(confirmationRepository.lockDueBatch(any(), eq(3)))
+                .thenReturn(List.of(confirmation(1L), confirmation(2L), confirmation(3L)));
+        when(inventoryClient.confirmReservation(1L)).thenReturn(ResponseEntity.ok(reservation(1L)));
+        when(inventoryClient.confirmReservation(2L))
+                .thenReturn(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+        when(inventoryClient.confirmReservation(3L))
+                .thenThrow(WebClientResponseException.create(HttpStatus.CONFLICT.value(), "Conflict", null, null, null));
+
+        // Act
+        int locked = reservationConfirmer.confirmBatch();
+
+        // Assert
+        assertEquals(3, locked);
+        verify(confirmationRepository, times(1)).deleteAllByIdInBatch(List.of(1L, 3L));
+        verify(confirmationRepository, times(1)).postpone(eq(List.of(2L)), any());
+    }
+
+    @Test
+    void confirmPending_ShouldStop_WhenNothingIsDue() {
+        // Arrange
+        when(confirmationRepository.lockDueBatch(any(), eq(3))).thenReturn(List.of());
+
+        // Act
+        reservationConfirmer.confirmPending();
+
+        // Assert
+        verify(confirmationRepository, times(1)).lockDueBatch(any(), eq(3));
+        verifyNoInteractions(inventoryClient);
+    }
+
+    private static ReservationConfirmation confirmation(Long reservationId) {
+        ReservationConfirmation confirmation = new ReservationConfirmation();
+        confirmation.setReservationId(reservationId);
+        confirmation.setOrderNumber("ORDER-" + reservationId);
+        return confirmation;
+    }
+
+    private static ReservationResponse reservation(Long id) {
+        return new ReservationResponse(id, "TEST-SKU", 1, "CONFIRMED", Instant.now());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.order_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeOrderNumberGeneratorUnitTest {
+
+    private static final long NOW = SnowflakeOrderNumberGenerator.EPOCH_MILLIS + 123_456_789L;
+
+    @Test
+    void nextId_ShouldEmbedTimestampAndNodeId() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(42, () -> NOW);
+
+        long id = generator.nextId();
+
+        assertEquals(123_456_789L, id >>> 22);
+        assertEquals(42, (id >>> 12) & SnowflakeOrderNumberGenerator.MAX_NODE_ID);
+        assertEquals(0, id & 0xFFF);
+    }
+
+    @Test
+    void nextOrderNumber_ShouldSortInIssueOrder_WhenSequenceOverflowsWithinOneMillisecond() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1, () -> NOW);
+
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            numbers.add(generator.nextOrderNumber());
+        }
+
+        assertEquals(numbers.stream().sorted().toList(), numbers);
+        assertEquals(10_000, Set.copyOf(numbers).size());
+        assertTrue(numbers.stream().allMatch(number -> number.length() == 13));
+    }
+
+    @Test
+    void nextId_ShouldNotRepeat_WhenClockStepsBack() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-5_000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void nextOrderNumber_ShouldBeUniqueAcrossThreads() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    List<String> numbers = new ArrayList<>();
+                    for (int i = 0; i < 20_000; i++) {
+                        numbers.add(generator.nextOrderNumber());
+                    }
+                    return numbers;
+                }));
+            }
+
+            Set<String> unique = ConcurrentHashMap.newKeySet();
+            for (Future<List<String>> future : futures) {
+                unique.addAll(future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(160_000, unique.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void constructor_ShouldRejectNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(1024, () -> NOW));
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.product_service.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Additions to the pooled HttpClient 5 that Spring Cloud OpenFeign builds from
+ * {@code spring.cloud.openfeign.httpclient.*}: idle connections are closed before inventory-service's
+ * keep-alive timeout can drop them under a request, and the pool is published as {@code httpcomponents.httpclient.pool.*}.
+ */
+@Configuration
+public class InventoryClientConfig {
+
+    @Bean
+    public HttpClientBuilderCustomizer idleConnectionEviction(@Value("${inventory.client.max-idle:30s}") Duration maxIdle) {
+        return builder -> builder.evictExpiredConnections().evictIdleConnections(TimeValue.ofMilliseconds(maxIdle.toMillis()));
+    }
+
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(HttpClientConnectionManager connectionManager) {
+        return registry -> {
+            if (connectionManager instanceof PoolingHttpClientConnectionManager pool) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(pool, "feign").bindTo(registry);
+            }
+        };
+    }
+}
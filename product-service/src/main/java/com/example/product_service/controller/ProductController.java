@@ -1,11 +1,23 @@
 package com.example.product_service.controller;
 
+import com.example.product_service.dto.BulkProductResponse;
+import com.example.product_service.dto.ProductChangesResponse;
+import com.example.product_service.dto.ProductPageResponse;
 import com.example.product_service.dto.ProductRequest;
 import com.example.product_service.dto.ProductResponse;
+import com.example.product_service.dto.TaggedResponse;
 import com.example.product_service.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -13,9 +25,11 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ObjectMapper objectMapper;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -24,32 +38,78 @@ public class ProductController {
         return productService.createProduct(productRequest);
     }
 
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.OK)
+    public BulkProductResponse createProducts(@RequestBody List<ProductRequest> productRequests) {
+        return productService.createProducts(productRequests);
+    }
+
     @GetMapping
+    public ResponseEntity<List<ProductResponse>> getAllProducts(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return tagged(productService.getAllProducts(ifNoneMatch));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        StreamingResponseBody body = outputStream -> productService.streamAllProducts(product -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(product));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<ProductPageResponse> getProductsPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return tagged(productService.getProductsPage(after, size, ifNoneMatch));
+    }
+
+    @GetMapping("/changes")
     @ResponseStatus(HttpStatus.OK)
-    public List<ProductResponse> getAllProducts() {
-        return productService.getAllProducts();
+    public ProductChangesResponse getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer limit) {
+        return productService.getChanges(since, limit);
     }
 
-    @GetMapping("/{id}")
+    @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public ProductResponse getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+    public List<ProductResponse> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return productService.searchProducts(q, limit);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ProductResponse> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return tagged(productService.getProductById(id, ifNoneMatch));
     }
 
     @PutMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public ProductResponse updateProduct(
+    public ResponseEntity<ProductResponse> updateProduct(
             @PathVariable Long id,
-            @RequestBody ProductRequest productRequest) {
-        return productService.updateProduct(id, productRequest);
+            @RequestBody ProductRequest productRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return tagged(productService.updateProduct(id, productRequest, ifMatch));
     }
 
     @PatchMapping("/{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public ProductResponse partialUpdateProduct(
+    public ResponseEntity<ProductResponse> partialUpdateProduct(
             @PathVariable Long id,
-            @RequestBody ProductRequest productRequest) {
-        return productService.partialUpdateProduct(id, productRequest);
+            @RequestBody ProductRequest productRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return tagged(productService.partialUpdateProduct(id, productRequest, ifMatch));
     }
 
     @DeleteMapping("/{id}")
@@ -57,5 +117,17 @@ public class ProductController {
     public void deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
     }
-}
 
+    // Another writer committed between this request's read and its write.
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void optimisticLockingFailure() {
+    }
+
+    private static <T> ResponseEntity<T> tagged(TaggedResponse<T> response) {
+        if (response.isNotModified()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(response.etag()).body(response.body());
+    }
+}
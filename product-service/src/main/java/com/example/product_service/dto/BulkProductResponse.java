@@ -0,0 +1,6 @@
+package com.example.product_service.dto;
+
+import java.util.List;
+
+public record BulkProductResponse(int created, int rejected, List<BulkProductResult> results) {
+}
@@ -0,0 +1,14 @@
+package com.example.product_service.dto;
+
+public record BulkProductResult(int index, String skuCode, Outcome outcome, Long id, String error) {
+
+    public enum Outcome { CREATED, DUPLICATE, INVALID }
+
+    public static BulkProductResult created(int index, String skuCode, Long id) {
+        return new BulkProductResult(index, skuCode, Outcome.CREATED, id, null);
+    }
+
+    public static BulkProductResult rejected(int index, String skuCode, Outcome outcome, String error) {
+        return new BulkProductResult(index, skuCode, outcome, null, error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.product_service.dto;
+
+/** One entry of the change feed: the product as it is now, or a tombstone with no product. */
+public record ProductChange(long changeSeq, Type type, Long id, String skuCode, ProductResponse product) {
+
+    public enum Type { UPSERT, DELETE }
+}
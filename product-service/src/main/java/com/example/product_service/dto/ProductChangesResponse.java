@@ -0,0 +1,6 @@
+package com.example.product_service.dto;
+
+import java.util.List;
+
+public record ProductChangesResponse(List<ProductChange> changes, String nextSince, boolean hasMore) {
+}
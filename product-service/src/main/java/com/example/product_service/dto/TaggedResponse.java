@@ -0,0 +1,13 @@
+package com.example.product_service.dto;
+
+/** A response body with its ETag; the body is null when the client's copy is still current. */
+public record TaggedResponse<T>(String etag, T body) {
+
+    public static <T> TaggedResponse<T> notModified(String etag) {
+        return new TaggedResponse<>(etag, null);
+    }
+
+    public boolean isNotModified() {
+        return body == null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.product_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** The cursor is older than the retained tombstones; the reader has to resync by replaying from the start. */
+@ResponseStatus(HttpStatus.GONE)
+public class ChangeFeedExpiredException extends RuntimeException {
+    public ChangeFeedExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.product_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidChangeCursorException extends RuntimeException {
+    public InvalidChangeCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.product_service.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class ProductVersionMismatchException extends RuntimeException {
+    public ProductVersionMismatchException(String message) {
+        super(message);
+    }
+}
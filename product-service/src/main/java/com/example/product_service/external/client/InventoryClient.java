@@ -6,6 +6,8 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @FeignClient(name = "inventory-service", url = "${inventory.service.url}")
 public interface InventoryClient {
 
@@ -14,4 +16,7 @@ public interface InventoryClient {
 
     @GetMapping("/api/inventory/skuCode")
     ResponseEntity<InventoryResponse> getInventoryBySkuCode(@RequestParam("skuCode") String skuCode);
+
+    @PostMapping("/api/inventory/skuCodes")
+    ResponseEntity<List<InventoryResponse>> getInventoryBySkuCodes(@RequestBody List<String> skuCodes);
 }
\ No newline at end of file
@@ -0,0 +1,31 @@
+package com.example.product_service.kafka;
+
+import com.example.events.EventHeaders;
+import com.example.events.EventType;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+// Header access shared by the listeners of this package.
+final class EventRecords {
+
+    private EventRecords() {
+    }
+
+    // Null for records this service cannot read: an unknown schema version, or a type newer than it knows.
+    static EventType readableType(ConsumerRecord<String, byte[]> record) {
+        if (!EventHeaders.isSupportedVersion(header(record, EventHeaders.SCHEMA_VERSION))) {
+            return null;
+        }
+        byte[] type = header(record, EventHeaders.EVENT_TYPE);
+        try {
+            return type == null ? null : EventHeaders.readEventType(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] header(ConsumerRecord<String, byte[]> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : header.value();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.product_service.kafka;
+
+import com.example.events.EventCodec;
+import com.example.events.EventType;
+import com.example.events.InventoryEvent;
+import com.example.product_service.service.InventoryProjection;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps this instance's {@link InventoryProjection} current. The projection's startup catch-up reads a snapshot
+ * from inventory-service once the application is ready, while the group starts at the end of each partition when it
+ * is first assigned, so changes made between the two would be in neither. On first assignment the listener therefore
+ * seeks back to {@code inventory.projection.rewind-ms} before this bean was created, which is before the catch-up.
+ * Replayed events older than the snapshot are overwritten again by the newer events that follow them.
+ */
+@Component
+public class InventoryEventConsumer implements ConsumerSeekAware {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEventConsumer.class);
+
+    private final InventoryProjection inventoryProjection;
+    // Taken before the catch-up; the rewind also covers producers whose clocks run behind this one.
+    private final long rewindTo;
+    private final Set<TopicPartition> rewound = ConcurrentHashMap.newKeySet();
+
+    public InventoryEventConsumer(InventoryProjection inventoryProjection,
+                                  @Value("${inventory.projection.rewind-ms:60000}") long rewindMs) {
+        this.inventoryProjection = inventoryProjection;
+        this.rewindTo = System.currentTimeMillis() - rewindMs;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        List<TopicPartition> first = new ArrayList<>();
+        assignments.keySet().forEach(partition -> {
+            if (rewound.add(partition)) {
+                first.add(partition);
+            }
+        });
+        if (!first.isEmpty()) {
+            callback.seekToTimestamp(first, rewindTo);
+            log.info("Rewound {} partitions to before the inventory catch-up", first.size());
+        }
+    }
+
+    // Each instance keeps its own projection, so each needs its own group.
+    @KafkaListener(topics = "inventory-events",
+            groupId = "product-inventory-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void consume(ConsumerRecord<String, byte[]> record) {
+        EventType type = EventRecords.readableType(record);
+        try {
+            if (type == EventType.INVENTORY_UPDATED) {
+                InventoryEvent event = EventCodec.decodeInventory(type, record.key(), record.value());
+                inventoryProjection.apply(event.skuCode(), event.quantity(), record.timestamp());
+            } else if (type == EventType.INVENTORY_BATCH_UPDATED) {
+                for (InventoryEvent event : EventCodec.decodeInventoryBatch(record.value()).changes()) {
+                    inventoryProjection.apply(event.skuCode(), event.quantity(), record.timestamp());
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Unreadable {} event for {}", type, record.key());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.product_service.kafka;
+
+import com.example.events.EventCodec;
+import com.example.events.EventType;
+import com.example.product_service.service.ProductCache;
+import com.example.product_service.service.ProductSearchIndex;
+import com.example.product_service.service.ProductService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps this instance's product cache and search index honest about changes made by other instances. The index is
+ * built from the table once the application is ready, while the group starts at the end of each partition when it
+ * is first assigned, so a product changed between the two would stay stale in the index. On first assignment the
+ * listener therefore seeks back to {@code product.cache-events.rewind-ms} before this bean was created, which is
+ * before the build. Replaying is harmless: every event only evicts, removes or re-reads the current row.
+ * <p>
+ * A bean of its own, since seeking applies to every listener of a {@link ConsumerSeekAware} bean.
+ */
+@Component
+public class ProductCacheConsumer implements ConsumerSeekAware {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCacheConsumer.class);
+
+    private final ProductCache productCache;
+    private final ProductService productService;
+    private final ProductSearchIndex searchIndex;
+    // Taken before the index build; the rewind also covers producers whose clocks run behind this one.
+    private final long rewindTo;
+    private final Set<TopicPartition> rewound = ConcurrentHashMap.newKeySet();
+
+    public ProductCacheConsumer(ProductCache productCache, ProductService productService, ProductSearchIndex searchIndex,
+                                @Value("${product.cache-events.rewind-ms:60000}") long rewindMs) {
+        this.productCache = productCache;
+        this.productService = productService;
+        this.searchIndex = searchIndex;
+        this.rewindTo = System.currentTimeMillis() - rewindMs;
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        List<TopicPartition> first = new ArrayList<>();
+        assignments.keySet().forEach(partition -> {
+            if (rewound.add(partition)) {
+                first.add(partition);
+            }
+        });
+        if (!first.isEmpty()) {
+            callback.seekToTimestamp(first, rewindTo);
+            log.info("Rewound {} partitions to before the search index build", first.size());
+        }
+    }
+
+    // Every instance needs every event, hence a group per instance.
+    @KafkaListener(topics = "product-events",
+            groupId = "product-cache-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void invalidateCache(ConsumerRecord<String, byte[]> record) {
+        EventType type = EventRecords.readableType(record);
+        if (type != EventType.PRODUCT_CREATED && type != EventType.PRODUCT_UPDATED && type != EventType.PRODUCT_DELETED) {
+            return;
+        }
+        try {
+            Long productId = EventCodec.decodeProduct(type, record.key(), record.value()).productId();
+            if (type != EventType.PRODUCT_CREATED) {
+                productCache.evict(productId);
+            }
+            if (type == EventType.PRODUCT_DELETED) {
+                searchIndex.remove(productId);
+            } else {
+                productService.refreshSearchIndex(productId);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot read product id from {} event for {}", type, record.key());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.product_service.kafka;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -11,7 +12,7 @@ public class ProductEventConsumer {
     private static final Logger log = LoggerFactory.getLogger(ProductEventConsumer.class);
 
     @KafkaListener(topics = "product-events", groupId = "product-group")
-    public void consume(String message) {
-        log.info("Received event: {}", message);
+    public void consume(ConsumerRecord<String, byte[]> record) {
+        log.info("Received event {} for {}", EventRecords.readableType(record), record.key());
     }
 }
@@ -1,28 +1,67 @@
 package com.example.product_service.kafka;
 
+import com.example.events.EventCodec;
+import com.example.events.EventHeaders;
+import com.example.events.ProductEvent;
+import com.example.product_service.model.Product;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class ProductEventProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private static final Logger log = LoggerFactory.getLogger(ProductEventProducer.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
     private static final String TOPIC = "product-events";
 
-    public ProductEventProducer(KafkaTemplate<String, String> kafkaTemplate) {
+    public ProductEventProducer(KafkaTemplate<String, byte[]> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
 
-    public void sendProductCreatedEvent(String skuCode, Integer quantity) {
-        String message = "CREATED:" + skuCode + ":" + (quantity != null ? quantity : 0);
-        kafkaTemplate.send(TOPIC, message);
+    public void sendProductCreatedEvent(String skuCode, Long id, Integer quantity) {
+        send(ProductEvent.created(skuCode, id, quantity != null ? quantity : 0));
+    }
+
+    /**
+     * Hands one created event per product to the producer without waiting for any of them, so they leave in as few
+     * requests as the producer's batching allows. Failures are logged once for the whole call.
+     */
+    public CompletableFuture<Void> sendProductCreatedEvents(List<Product> products) {
+        CompletableFuture<?>[] sends = products.stream()
+                .map(product -> send(ProductEvent.created(product.getSkuCode(), product.getId(),
+                        product.getQuantity() != null ? product.getQuantity() : 0)))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(sends).whenComplete((ignored, e) -> {
+            if (e != null) {
+                long failed = Arrays.stream(sends).filter(CompletableFuture::isCompletedExceptionally).count();
+                log.error("{} of {} product-created events were not sent: {}", failed, sends.length, e.getMessage());
+            }
+        });
+    }
+
+    public void sendProductUpdatedEvent(String skuCode, Long id) {
+        send(ProductEvent.updated(skuCode, id));
     }
 
-    public void sendProductUpdatedEvent(String skuCode) {
-        kafkaTemplate.send(TOPIC, "Product updated: " + skuCode);
+    public void sendProductDeletedEvent(String skuCode, Long id) {
+        send(ProductEvent.deleted(skuCode, id));
     }
 
-    public void sendProductDeletedEvent(String skuCode) {
-        kafkaTemplate.send(TOPIC, "Product deleted: " + skuCode);
+    // Keyed by SKU so every event of one product lands on one partition, in order.
+    private CompletableFuture<?> send(ProductEvent event) {
+        List<Header> headers = List.of(
+                new RecordHeader(EventHeaders.SCHEMA_VERSION, EventHeaders.schemaVersion()),
+                new RecordHeader(EventHeaders.EVENT_TYPE, EventHeaders.eventType(event.type())));
+        return kafkaTemplate.send(new ProducerRecord<>(TOPIC, null, event.skuCode(), EventCodec.encode(event), headers));
     }
 }
@@ -7,8 +7,12 @@ import java.math.BigDecimal;
 @Table(name = "product")
 public class Product {
 
+    // A sequence rather than IDENTITY lets Hibernate batch inserts; allocationSize matches the sequence increment.
+    // Each instance takes its own block of 50, so ids are unique but not in creation order across instances: nothing
+    // may read recency from them. The change feed's positions (changeTxid, changeSeq) are the order of changes.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id_seq")
+    @SequenceGenerator(name = "product_id_seq", sequenceName = "product_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -25,6 +29,18 @@ public class Product {
     @Column(nullable = false)
     private Integer quantity = 0;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Set by a database trigger on every insert and update, with the writing transaction's id; see
+    // V5__product_change_sequence.sql.
+    @Column(insertable = false, updatable = false)
+    private Long changeSeq;
+
+    @Column(insertable = false, updatable = false)
+    private Long changeTxid;
+
     public Product() {}
 
     public Product(String skuCode, String name, String description, BigDecimal price, Integer quantity) {
@@ -78,6 +94,30 @@ public class Product {
         this.quantity = quantity;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    public Long getChangeTxid() {
+        return changeTxid;
+    }
+
+    public void setChangeTxid(Long changeTxid) {
+        this.changeTxid = changeTxid;
+    }
+
     @Override
     public String toString() {
         return "Product{" +
@@ -87,6 +127,7 @@ public class Product {
                 ", description='" + description + '\'' +
                 ", price=" + price +
                 ", quantity=" + quantity +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,58 @@
+package com.example.product_service.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/** Left behind by a database trigger when a product is deleted, so the change feed can report it. */
+@Entity
+@Immutable
+@Table(name = "product_tombstone")
+public class ProductTombstone {
+
+    @Id
+    private Long changeSeq;
+
+    @Column(nullable = false)
+    private Long changeTxid;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private String skuCode;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+
+    protected ProductTombstone() {}
+
+    public ProductTombstone(Long changeSeq, Long changeTxid, Long productId, String skuCode, Instant deletedAt) {
+        this.changeSeq = changeSeq;
+        this.changeTxid = changeTxid;
+        this.productId = productId;
+        this.skuCode = skuCode;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Long getChangeTxid() {
+        return changeTxid;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getSkuCode() {
+        return skuCode;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.product_service.repository;
+
+/**
+ * Cheap summary of the whole catalog for its ETag. Ids are not used: the pooled id sequence hands them out of
+ * order across instances, so an insert need not raise the highest one. Change numbers work instead: an insert adds
+ * a new one, an update replaces the row's with a higher one, and a delete takes one away, so every write moves the
+ * count or the sum.
+ */
+public record CatalogStamp(Long products, Long lastChange, Long changeSum) {
+}
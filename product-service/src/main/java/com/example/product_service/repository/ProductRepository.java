@@ -1,9 +1,51 @@
 package com.example.product_service.repository;
 
 import com.example.product_service.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findBySkuCode(String skuCode);
+
+    @Query("SELECT p.skuCode FROM Product p")
+    List<String> findAllSkuCodes();
+
+    @Query("SELECT p.skuCode FROM Product p WHERE p.skuCode IN :skuCodes")
+    List<String> findExistingSkuCodes(Collection<String> skuCodes);
+
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /** Changes after the cursor made by transactions older than {@code horizon}, in feed order. */
+    @Query("SELECT p FROM Product p WHERE p.changeTxid < :horizon AND (p.changeTxid > :txid " +
+            "OR (p.changeTxid = :txid AND p.changeSeq > :seq)) ORDER BY p.changeTxid, p.changeSeq")
+    List<Product> findChangesAfter(long txid, long seq, long horizon, Limit limit);
+
+    /** The oldest transaction still running; every change made by an older one is committed or rolled back. */
+    @Query(value = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", nativeQuery = true)
+    long changeHorizon();
+
+    @Query("SELECT new com.example.product_service.repository.CatalogStamp(COUNT(p), COALESCE(MAX(p.changeSeq), 0L), " +
+            "COALESCE(SUM(p.changeSeq), 0L)) FROM Product p")
+    CatalogStamp stampCatalog();
+
+    @Query("SELECT new com.example.product_service.repository.ProductStamp(p.id, p.skuCode, p.version, p.quantity) " +
+            "FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductStamp> findStampsAfter(Long afterId, Limit limit);
+
+    // Fetch size makes the PostgreSQL driver use a server-side cursor instead of buffering the whole result.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Product p ORDER BY p.id")
+    Stream<Product> streamAllOrderById();
 }
@@ -0,0 +1,5 @@
+package com.example.product_service.repository;
+
+/** What a product's ETag is derived from, without loading the whole row. */
+public record ProductStamp(Long id, String skuCode, Long version, Integer quantity) {
+}
@@ -0,0 +1,34 @@
+package com.example.product_service.repository;
+
+import com.example.product_service.model.ProductTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ProductTombstoneRepository extends JpaRepository<ProductTombstone, Long> {
+
+    @Query("SELECT t FROM ProductTombstone t WHERE t.changeTxid < :horizon AND (t.changeTxid > :txid " +
+            "OR (t.changeTxid = :txid AND t.changeSeq > :seq)) ORDER BY t.changeTxid, t.changeSeq")
+    List<ProductTombstone> findChangesAfter(long txid, long seq, long horizon, Limit limit);
+
+    /** Whether tombstones after the cursor have been pruned, so it may have missed deletes. */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM product_change_horizon WHERE (txid, seq) > (:txid, :seq))",
+            nativeQuery = true)
+    boolean isPrunedAfter(long txid, long seq);
+
+    /**
+     * Deletes up to {@code limit} of the oldest tombstones from before {@code cutoff} and moves the horizon to the
+     * last of them. Returns how many were deleted.
+     */
+    @Query(value = "WITH pruned AS (DELETE FROM product_tombstone WHERE change_seq IN (" +
+            "SELECT change_seq FROM product_tombstone WHERE deleted_at < :cutoff " +
+            "ORDER BY change_txid, change_seq LIMIT :limit) RETURNING change_txid, change_seq), " +
+            "newest AS (SELECT change_txid, change_seq FROM pruned ORDER BY change_txid DESC, change_seq DESC LIMIT 1), " +
+            "horizon AS (UPDATE product_change_horizon h SET txid = n.change_txid, seq = n.change_seq FROM newest n " +
+            "WHERE (n.change_txid, n.change_seq) > (h.txid, h.seq)) " +
+            "SELECT COUNT(*) FROM pruned", nativeQuery = true)
+    long pruneBefore(Instant cutoff, int limit);
+}
@@ -0,0 +1,32 @@
+package com.example.product_service.service;
+
+import com.example.product_service.exception.InvalidChangeCursorException;
+
+/**
+ * Position in the change feed: the writing transaction, then the change number within it. Clients get it as
+ * {@code nextSince} and pass it back unchanged.
+ */
+record ChangeCursor(long txid, long seq) {
+
+    static final ChangeCursor START = new ChangeCursor(0, 0);
+
+    static ChangeCursor parse(String since) {
+        if (since == null || since.isBlank() || since.equals("0")) {
+            return START;
+        }
+        int dot = since.indexOf('.');
+        try {
+            if (dot > 0) {
+                return new ChangeCursor(Long.parseLong(since.substring(0, dot)), Long.parseLong(since.substring(dot + 1)));
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new InvalidChangeCursorException("Not a change feed cursor: " + since);
+    }
+
+    @Override
+    public String toString() {
+        return txid + "." + seq;
+    }
+}
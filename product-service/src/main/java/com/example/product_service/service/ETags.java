@@ -0,0 +1,82 @@
+package com.example.product_service.service;
+
+import com.example.product_service.repository.CatalogStamp;
+
+/**
+ * Strong ETags for product reads and the If-None-Match / If-Match comparison. Tags cover the product version and
+ * the quantity from the {@link InventoryProjection}, since both end up in the response.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String ofProduct(Long version, int quantity) {
+        return "\"" + (version != null ? version : 0L) + "-" + quantity + "\"";
+    }
+
+    static String ofCatalog(CatalogStamp stamp, long inventoryFingerprint) {
+        return "\"all-" + stamp.products() + "-" + stamp.lastChange() + "-" + stamp.changeSum() + "-"
+                + Long.toHexString(inventoryFingerprint) + "\"";
+    }
+
+    /** Accumulates a page tag; exact, since any change to the page's rows, versions or quantities changes it. */
+    static final class PageTag {
+
+        private long hash;
+        private int rows;
+
+        PageTag(Long afterId) {
+            this.hash = afterId != null ? afterId : 0L;
+        }
+
+        PageTag add(Long id, Long version, int quantity) {
+            hash = 31 * (31 * (31 * hash + id) + (version != null ? version : 0L)) + quantity;
+            rows++;
+            return this;
+        }
+
+        String etag() {
+            return "\"page-" + rows + "-" + Long.toHexString(hash) + "\"";
+        }
+    }
+
+    /**
+     * Whether an If-Match header names a tag of product {@code version}. Only the version part counts: a write
+     * replaces product fields, so a stock change since the client's read must not fail it. The comparison is
+     * strong (RFC 9110, 13.1.1), so weak tags never match.
+     */
+    static boolean matchesVersion(String header, Long version) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        String prefix = "\"" + (version != null ? version : 0L) + "-";
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith(prefix) && tag.endsWith("\""))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an If-None-Match header names {@code etag}. The comparison is weak, as RFC 9110 asks for this header,
+     * so weak tags compare by value; {@code *} matches anything.
+     */
+    static boolean matches(String header, String etag) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.product_service.service;
+
+import com.example.product_service.external.client.InventoryClient;
+import com.example.product_service.external.dto.InventoryResponse;
+import com.example.product_service.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local copy of inventory quantities by SKU, kept current from {@code inventory-events}, so product reads
+ * never wait on inventory-service. On startup the SKUs of the catalog are fetched once in bulk, several batches at a
+ * time over the pooled inventory client.
+ * Unknown SKUs fall back to the quantity stored with the product.
+ */
+@Component
+@Slf4j
+public class InventoryProjection {
+
+    // Upper bound on SKUs per bulk inventory request, keeps request bodies and IN lists reasonable.
+    static final int CATCH_UP_BATCH_SIZE = 500;
+
+    private final ConcurrentHashMap<String, Integer> quantities = new ConcurrentHashMap<>();
+    // Order-independent digest of the (SKU, quantity) pairs held, so whole-catalog ETags can cover quantities without
+    // reading them all. It depends only on the quantities, so instances that have applied the same changes agree.
+    private final AtomicLong fingerprint = new AtomicLong();
+    private final InventoryClient inventoryClient;
+    private final ProductRepository productRepository;
+    private final Timer eventLag;
+    private final int catchUpParallelism;
+
+    public InventoryProjection(InventoryClient inventoryClient, ProductRepository productRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventory.projection.catch-up-parallelism:4}") int catchUpParallelism) {
+        this.inventoryClient = inventoryClient;
+        this.productRepository = productRepository;
+        this.catchUpParallelism = Math.max(1, catchUpParallelism);
+        this.eventLag = Timer.builder("inventory.projection.lag")
+                .description("Time from an inventory event being produced to it being applied locally")
+                .register(meterRegistry);
+        meterRegistry.gaugeMapSize("inventory.projection.size", List.of(), quantities);
+    }
+
+    public int quantityOf(String skuCode, Integer fallback) {
+        Integer quantity = quantities.get(skuCode);
+        if (quantity != null) {
+            return quantity;
+        }
+        return fallback != null ? fallback : 0;
+    }
+
+    public long fingerprint() {
+        return fingerprint.get();
+    }
+
+    public void apply(String skuCode, int quantity, long producedAtMillis) {
+        quantities.compute(skuCode, (sku, previous) -> {
+            fingerprint.addAndGet(term(sku, quantity) - (previous != null ? term(sku, previous) : 0L));
+            return quantity;
+        });
+        eventLag.record(Duration.ofMillis(Math.max(0, System.currentTimeMillis() - producedAtMillis)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void catchUp() {
+        catchUp(productRepository.findAllSkuCodes());
+    }
+
+    // If absent: an event applied while the snapshot was in flight is at least as new as the snapshot.
+    int catchUp(List<String> skuCodes) {
+        ExecutorService executor = Executors.newFixedThreadPool(catchUpParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "inventory-catch-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<CompletableFuture<Integer>> batches = new ArrayList<>();
+            for (int from = 0; from < skuCodes.size(); from += CATCH_UP_BATCH_SIZE) {
+                List<String> chunk = new ArrayList<>(
+                        skuCodes.subList(from, Math.min(from + CATCH_UP_BATCH_SIZE, skuCodes.size())));
+                batches.add(CompletableFuture.supplyAsync(() -> loadBatch(chunk), executor));
+            }
+            int loaded = batches.stream().mapToInt(CompletableFuture::join).sum();
+            log.info("Inventory projection caught up with {} of {} SKUs", loaded, skuCodes.size());
+            return loaded;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int loadBatch(List<String> chunk) {
+        try {
+            var response = inventoryClient.getInventoryBySkuCodes(chunk);
+            if (response.getBody() == null) {
+                return 0;
+            }
+            int loaded = 0;
+            for (InventoryResponse inventory : response.getBody()) {
+                quantities.computeIfAbsent(inventory.skuCode(), sku -> {
+                    fingerprint.addAndGet(term(sku, inventory.quantity()));
+                    return inventory.quantity();
+                });
+                loaded++;
+            }
+            return loaded;
+        } catch (Exception e) {
+            log.error("Could not load inventory for {} SKUs: {}. Waiting for inventory events instead.",
+                    chunk.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    // String.hashCode is fixed by the language spec, so every instance computes the same term.
+    private static long term(String skuCode, int quantity) {
+        long h = ((long) skuCode.hashCode() << 32) ^ (quantity & 0xffffffffL);
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
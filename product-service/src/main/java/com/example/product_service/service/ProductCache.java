@@ -0,0 +1,76 @@
+package com.example.product_service.service;
+
+import com.example.product_service.model.Product;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of products by id. Entries are detached copies, never the managed entity,
+ * so a later change in some persistence context cannot leak into the cache.
+ * <p>
+ * Writes only reach the cache after the surrounding transaction commits; other instances drop their copy
+ * when the matching product event arrives (see {@link com.example.product_service.kafka.ProductEventConsumer}).
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<Long, Product> cache;
+
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${product.cache.max-size:10000}") long maxSize,
+                        @Value("${product.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+    }
+
+    public Product get(Long id, Function<Long, Product> loader) {
+        return cache.get(id, key -> copyOf(loader.apply(key)));
+    }
+
+    public void putAfterCommit(Product product) {
+        Product copy = copyOf(product);
+        afterCommit(() -> cache.put(copy.getId(), copy));
+    }
+
+    public void evictAfterCommit(Long id) {
+        afterCommit(() -> cache.invalidate(id));
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Product copyOf(Product product) {
+        Product copy = new Product(product.getSkuCode(), product.getName(), product.getDescription(),
+                product.getPrice(), product.getQuantity());
+        copy.setId(product.getId());
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+}
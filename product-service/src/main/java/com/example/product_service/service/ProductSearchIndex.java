@@ -0,0 +1,321 @@
+package com.example.product_service.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process inverted index over product names and descriptions. Every query token matches as a prefix, all of
+ * them have to match, and hits are ranked by field-weighted term frequency times inverse document frequency,
+ * exact terms above completions.
+ * <p>
+ * Terms sit in a skip list, so a prefix is a sub-map; each term's postings are id-sorted arrays that readers use
+ * without locking. Writers are serialised, and appending a new, highest id needs no copy. A token completes to at
+ * most {@code product.search.max-expansions} terms and at most {@code product.search.max-candidates} documents
+ * are scored, which bounds the cost of very broad prefixes at the price of ranking only among those.
+ * <p>
+ * Built from the table at startup (see {@link ProductService#buildSearchIndex()}) and kept current by this
+ * instance's writes and by product-events for the others.
+ */
+@Component
+public class ProductSearchIndex {
+
+    static final float NAME_WEIGHT = 3f;
+    static final float DESCRIPTION_WEIGHT = 1f;
+    // A completion scores this fraction of an exact term.
+    static final float PREFIX_FACTOR = 0.5f;
+    static final int MAX_QUERY_TOKENS = 8;
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private final ConcurrentSkipListMap<String, Postings> terms = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<Long, String[]> termsById = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final int maxExpansions;
+    private final int maxCandidates;
+    private final Timer queries;
+
+    public ProductSearchIndex(MeterRegistry meterRegistry,
+                              @Value("${product.search.max-expansions:16}") int maxExpansions,
+                              @Value("${product.search.max-candidates:20000}") int maxCandidates) {
+        this.maxExpansions = maxExpansions;
+        this.maxCandidates = maxCandidates;
+        this.queries = Timer.builder("product.search.latency")
+                .description("Time to find and rank search hits in the in-process index")
+                .register(meterRegistry);
+        Gauge.builder("product.search.documents", termsById, Map::size)
+                .description("Products in the search index")
+                .register(meterRegistry);
+        Gauge.builder("product.search.terms", terms, Map::size)
+                .description("Distinct terms in the search index")
+                .register(meterRegistry);
+    }
+
+    public record Hit(long productId, float score) {}
+
+    /** Indexes or re-indexes a product. */
+    public void put(long productId, String name, String description) {
+        Map<String, Float> weights = new LinkedHashMap<>();
+        tokenize(name).forEach(token -> weights.merge(token, NAME_WEIGHT, Float::sum));
+        tokenize(description).forEach(token -> weights.merge(token, DESCRIPTION_WEIGHT, Float::sum));
+
+        synchronized (writeLock) {
+            String[] previous = termsById.get(productId);
+            if (previous != null) {
+                for (String term : previous) {
+                    if (!weights.containsKey(term)) {
+                        removePosting(term, productId);
+                    }
+                }
+            }
+            String[] indexed = new String[weights.size()];
+            int n = 0;
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                Postings postings = terms.computeIfAbsent(entry.getKey(), key -> new Postings());
+                postings.put(productId, entry.getValue());
+                // Keep the map's own key, so the reverse index does not hold a second copy of every term.
+                indexed[n++] = terms.ceilingKey(entry.getKey());
+            }
+            termsById.put(productId, indexed);
+        }
+    }
+
+    public void remove(long productId) {
+        synchronized (writeLock) {
+            String[] previous = termsById.remove(productId);
+            if (previous != null) {
+                for (String term : previous) {
+                    removePosting(term, productId);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return termsById.size();
+    }
+
+    /** Best {@code limit} hits for {@code query}, best first. */
+    public List<Hit> search(String query, int limit) {
+        return queries.record(() -> rank(query, limit));
+    }
+
+    private List<Hit> rank(String query, int limit) {
+        List<String> tokens = tokenize(query).stream().distinct().limit(MAX_QUERY_TOKENS).toList();
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        int documents = Math.max(1, termsById.size());
+        List<List<Expansion>> expansions = new ArrayList<>(tokens.size());
+        int driver = 0;
+        long driverSize = Long.MAX_VALUE;
+        for (String token : tokens) {
+            List<Expansion> matches = expand(token, documents);
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+            long size = matches.stream().mapToLong(match -> match.postings.length).sum();
+            if (size < driverSize) {
+                driverSize = size;
+                driver = expansions.size();
+            }
+            expansions.add(matches);
+        }
+
+        // Candidates come from the most selective token; the others only filter and add to the score.
+        List<Expansion> driving = expansions.get(driver);
+        int capacity = (int) Math.min(driverSize, maxCandidates);
+        long[] candidateIds = new long[capacity];
+        float[] candidateScores = new float[capacity];
+        int candidates = mergeCandidates(driving, candidateIds, candidateScores);
+
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Hit::score));
+        for (int c = 0; c < candidates; c++) {
+            float score = candidateScores[c];
+            for (int t = 0; t < expansions.size() && score > 0; t++) {
+                if (t != driver) {
+                    float contribution = bestContribution(expansions.get(t), candidateIds[c]);
+                    score = contribution > 0 ? score + contribution : 0;
+                }
+            }
+            if (score > 0 && (best.size() < limit || score > best.peek().score())) {
+                best.add(new Hit(candidateIds[c], score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparingLong(Hit::productId));
+        return hits;
+    }
+
+    private List<Expansion> expand(String token, int documents) {
+        NavigableMap<String, Postings> completions = terms.subMap(token, true, token + Character.MAX_VALUE, false);
+        List<Expansion> matches = new ArrayList<>(Math.min(maxExpansions, 16));
+        for (Map.Entry<String, Postings> completion : completions.entrySet()) {
+            Slice postings = completion.getValue().slice;
+            if (postings.length == 0) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (double) documents / postings.length);
+            float factor = completion.getKey().equals(token) ? idf : idf * PREFIX_FACTOR;
+            matches.add(new Expansion(postings, factor));
+            if (matches.size() == maxExpansions) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Merges the id-sorted postings of one token's completions into distinct ids, keeping each id's best weight,
+     * until the arrays are full. Returns how many were filled.
+     */
+    private static int mergeCandidates(List<Expansion> expansions, long[] ids, float[] scores) {
+        int[] cursors = new int[expansions.size()];
+        int filled = 0;
+        while (filled < ids.length) {
+            int next = -1;
+            long nextId = Long.MAX_VALUE;
+            for (int e = 0; e < cursors.length; e++) {
+                Slice postings = expansions.get(e).postings;
+                if (cursors[e] < postings.length && postings.ids[cursors[e]] < nextId) {
+                    next = e;
+                    nextId = postings.ids[cursors[e]];
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            Expansion expansion = expansions.get(next);
+            float score = expansion.postings.weights[cursors[next]++] * expansion.factor;
+            if (filled > 0 && ids[filled - 1] == nextId) {
+                scores[filled - 1] = Math.max(scores[filled - 1], score);
+            } else {
+                ids[filled] = nextId;
+                scores[filled++] = score;
+            }
+        }
+        return filled;
+    }
+
+    private static float bestContribution(List<Expansion> expansions, long productId) {
+        float best = 0;
+        for (Expansion expansion : expansions) {
+            int i = Arrays.binarySearch(expansion.postings.ids, 0, expansion.postings.length, productId);
+            if (i >= 0) {
+                best = Math.max(best, expansion.postings.weights[i] * expansion.factor);
+            }
+        }
+        return best;
+    }
+
+    private void removePosting(String term, long productId) {
+        Postings postings = terms.get(term);
+        if (postings != null && postings.remove(productId) && postings.slice.length == 0) {
+            terms.remove(term);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private record Expansion(Slice postings, float factor) {}
+
+    // Readers take the current slice and look only at its first length entries.
+    private record Slice(long[] ids, float[] weights, int length) {}
+
+    private static final class Postings {
+
+        private volatile Slice slice = new Slice(new long[2], new float[2], 0);
+
+        // Callers hold the index's write lock.
+        void put(long productId, float weight) {
+            Slice current = slice;
+            int length = current.length;
+            if (length == 0 || current.ids[length - 1] < productId) {
+                // New products mostly have the highest ids, so most puts append; ids from another instance's block of
+                // the pooled sequence can be lower and take the insert path below. Slots past length are invisible to
+                // readers, so they can be filled in place before the longer slice is published.
+                long[] ids = current.ids;
+                float[] weights = current.weights;
+                if (length == ids.length) {
+                    ids = Arrays.copyOf(ids, Math.max(2, length * 2));
+                    weights = Arrays.copyOf(weights, Math.max(2, length * 2));
+                }
+                ids[length] = productId;
+                weights[length] = weight;
+                slice = new Slice(ids, weights, length + 1);
+                return;
+            }
+            int i = Arrays.binarySearch(current.ids, 0, length, productId);
+            long[] ids;
+            float[] weights;
+            if (i >= 0) {
+                ids = Arrays.copyOf(current.ids, length);
+                weights = Arrays.copyOf(current.weights, length);
+                weights[i] = weight;
+            } else {
+                int at = -i - 1;
+                ids = new long[length + 1];
+                weights = new float[length + 1];
+                System.arraycopy(current.ids, 0, ids, 0, at);
+                System.arraycopy(current.weights, 0, weights, 0, at);
+                ids[at] = productId;
+                weights[at] = weight;
+                System.arraycopy(current.ids, at, ids, at + 1, length - at);
+                System.arraycopy(current.weights, at, weights, at + 1, length - at);
+            }
+            slice = new Slice(ids, weights, ids.length);
+        }
+
+        // Callers hold the index's write lock.
+        boolean remove(long productId) {
+            Slice current = slice;
+            int i = Arrays.binarySearch(current.ids, 0, current.length, productId);
+            if (i < 0) {
+                return false;
+            }
+            long[] ids = new long[current.length - 1];
+            float[] weights = new float[current.length - 1];
+            System.arraycopy(current.ids, 0, ids, 0, i);
+            System.arraycopy(current.weights, 0, weights, 0, i);
+            System.arraycopy(current.ids, i + 1, ids, i, current.length - i - 1);
+            System.arraycopy(current.weights, i + 1, weights, i, current.length - i - 1);
+            slice = new Slice(ids, weights, ids.length);
+            return true;
+        }
+    }
+}
@@ -1,31 +1,78 @@
 package com.example.product_service.service;
 
+import com.example.product_service.dto.BulkProductResponse;
+import com.example.product_service.dto.BulkProductResult;
+import com.example.product_service.dto.ProductChange;
+import com.example.product_service.dto.ProductChangesResponse;
+import com.example.product_service.dto.ProductPageResponse;
 import com.example.product_service.dto.ProductRequest;
 import com.example.product_service.dto.ProductResponse;
+import com.example.product_service.dto.TaggedResponse;
+import com.example.product_service.exception.ChangeFeedExpiredException;
+import com.example.product_service.exception.ProductVersionMismatchException;
 import com.example.product_service.model.Product;
+import com.example.product_service.model.ProductTombstone;
 import com.example.product_service.repository.ProductRepository;
+import com.example.product_service.repository.ProductStamp;
+import com.example.product_service.repository.ProductTombstoneRepository;
 import com.example.product_service.kafka.ProductEventProducer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
-import com.example.product_service.external.client.InventoryClient;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 @Slf4j
 public class ProductService {
 
+    static final int STREAM_CHUNK_SIZE = 500;
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int DEFAULT_SEARCH_LIMIT = 20;
+    static final int MAX_SEARCH_LIMIT = 100;
+    // Keeps the duplicate check's IN list well inside PostgreSQL's bind parameter limit.
+    static final int MAX_BULK_SIZE = 5000;
+    static final int DEFAULT_CHANGES_LIMIT = 500;
+    static final int MAX_CHANGES_LIMIT = 1000;
+
     private final ProductRepository productRepository;
     private final ProductEventProducer producer;
-    private final InventoryClient inventoryClient;
+    private final ProductCache productCache;
+    private final InventoryProjection inventoryProjection;
+    private final ProductSearchIndex searchIndex;
+    private final ProductTombstoneRepository tombstoneRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public ProductService(ProductRepository productRepository, ProductEventProducer producer, InventoryClient inventoryClient) {
+    public ProductService(ProductRepository productRepository, ProductEventProducer producer,
+                          ProductCache productCache, InventoryProjection inventoryProjection,
+                          ProductSearchIndex searchIndex, ProductTombstoneRepository tombstoneRepository) {
         this.productRepository = productRepository;
         this.producer = producer;
-        this.inventoryClient = inventoryClient;
+        this.productCache = productCache;
+        this.inventoryProjection = inventoryProjection;
+        this.searchIndex = searchIndex;
+        this.tombstoneRepository = tombstoneRepository;
     }
 
 
@@ -43,55 +90,355 @@ public class ProductService {
         product.setQuantity(productRequest.quantity() != null ? productRequest.quantity() : 0);
 
         Product savedProduct = productRepository.save(product);
-        producer.sendProductCreatedEvent(savedProduct.getSkuCode(), savedProduct.getQuantity());
+        productCache.putAfterCommit(savedProduct);
+        indexAfterCommit(savedProduct);
+        String skuCode = savedProduct.getSkuCode();
+        Long id = savedProduct.getId();
+        Integer quantity = savedProduct.getQuantity();
+        // After the commit, so consumers reading the product back find it.
+        ProductCache.afterCommit(() -> producer.sendProductCreatedEvent(skuCode, id, quantity));
 
         return mapToResponse(savedProduct);
     }
 
+    /**
+     * Creates many products in one transaction: one query finds the SKUs that already exist, inserts go out in
+     * JDBC batches, and the created events are sent together once the transaction commits. Rows that are invalid
+     * or whose SKU is taken are reported and skipped. A SKU another request inserts concurrently still fails the
+     * whole call on the unique constraint.
+     */
+    public BulkProductResponse createProducts(List<ProductRequest> requests) {
+        if (requests.size() > MAX_BULK_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_SIZE + " products per bulk request, got " + requests.size());
+        }
+
+        BulkProductResult[] results = new BulkProductResult[requests.size()];
+        Set<String> requested = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ProductRequest request = requests.get(i);
+            String problem = validate(request);
+            if (problem != null) {
+                results[i] = BulkProductResult.rejected(i, request == null ? null : request.skuCode(),
+                        BulkProductResult.Outcome.INVALID, problem);
+            } else if (!requested.add(request.skuCode())) {
+                results[i] = BulkProductResult.rejected(i, request.skuCode(),
+                        BulkProductResult.Outcome.DUPLICATE, "SKU code repeated in request: " + request.skuCode());
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        Set<String> existing = requested.isEmpty() ? Set.of() : new HashSet<>(productRepository.findExistingSkuCodes(requested));
+        List<Product> products = new ArrayList<>(candidates.size());
+        List<Integer> indexes = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            ProductRequest request = requests.get(i);
+            if (existing.contains(request.skuCode())) {
+                results[i] = BulkProductResult.rejected(i, request.skuCode(),
+                        BulkProductResult.Outcome.DUPLICATE, "SKU code already exists: " + request.skuCode());
+            } else {
+                products.add(new Product(request.skuCode(), request.name(), request.description(),
+                        request.price(), request.quantity()));
+                indexes.add(i);
+            }
+        }
+
+        List<Product> saved = productRepository.saveAll(products);
+        for (int n = 0; n < saved.size(); n++) {
+            Product product = saved.get(n);
+            results[indexes.get(n)] = BulkProductResult.created(indexes.get(n), product.getSkuCode(), product.getId());
+            indexAfterCommit(product);
+        }
+        ProductCache.afterCommit(() -> producer.sendProductCreatedEvents(saved));
+
+        return new BulkProductResponse(saved.size(), requests.size() - saved.size(), List.of(results));
+    }
+
+    private static String validate(ProductRequest request) {
+        if (request == null) {
+            return "Product is missing";
+        }
+        if (request.skuCode() == null || request.skuCode().isBlank()) {
+            return "SKU code is required";
+        }
+        if (request.name() == null || request.name().isBlank()) {
+            return "Name is required";
+        }
+        if (request.price() == null) {
+            return "Price is required";
+        }
+        if (request.price().compareTo(BigDecimal.ZERO) < 0) {
+            return "Price must not be negative";
+        }
+        if (request.quantity() != null && request.quantity() < 0) {
+            return "Quantity must not be negative";
+        }
+        return null;
+    }
+
     public List<ProductResponse> getAllProducts() {
         return productRepository.findAll().stream()
                 .map(this::mapToResponse)
                 .toList();
     }
 
+    /**
+     * The catalog with an ETag from its {@link com.example.product_service.repository.CatalogStamp}, or only the
+     * ETag when {@code ifNoneMatch} names it. Repeatable read keeps the stamp and the rows from one snapshot.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TaggedResponse<List<ProductResponse>> getAllProducts(String ifNoneMatch) {
+        String etag = ETags.ofCatalog(productRepository.stampCatalog(), inventoryProjection.fingerprint());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return TaggedResponse.notModified(etag);
+        }
+        return new TaggedResponse<>(etag, getAllProducts());
+    }
+
+    @Transactional(readOnly = true)
+    public ProductPageResponse getProductsPage(Long afterId, Integer size) {
+        return getProductsPage(afterId, size, null).body();
+    }
+
+    /**
+     * A page with an ETag over its rows; only the ETag when {@code ifNoneMatch} names it. Pages walk the catalog in
+     * id order, which is not creation order (see {@link Product}), so a product created during a walk can land behind
+     * the cursor and is not listed. Clients that keep up with new products follow {@link #getChanges} instead.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public TaggedResponse<ProductPageResponse> getProductsPage(Long afterId, Integer size, String ifNoneMatch) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        String etag = null;
+        if (ifNoneMatch != null) {
+            ETags.PageTag tag = new ETags.PageTag(afterId);
+            for (ProductStamp stamp : productRepository.findStampsAfter(
+                    afterId != null ? afterId : 0L, Limit.of(pageSize + 1))) {
+                tag.add(stamp.id(), stamp.version(), inventoryProjection.quantityOf(stamp.skuCode(), stamp.quantity()));
+            }
+            etag = tag.etag();
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return TaggedResponse.notModified(etag);
+            }
+        }
+
+        // One extra row tells us whether another page exists without a follow-up query.
+        List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, Limit.of(pageSize + 1));
+        // Tagged over the extra row too, so the tag matches the one computed from stamps alone above.
+        if (etag == null) {
+            ETags.PageTag tag = new ETags.PageTag(afterId);
+            for (Product product : products) {
+                tag.add(product.getId(), product.getVersion(),
+                        inventoryProjection.quantityOf(product.getSkuCode(), product.getQuantity()));
+            }
+            etag = tag.etag();
+        }
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+
+        List<ProductResponse> items = products.stream()
+                .map(this::mapToResponse)
+                .toList();
+
+        Long nextCursor = hasMore ? products.get(products.size() - 1).getId() : null;
+        return new TaggedResponse<>(etag, new ProductPageResponse(items, nextCursor));
+    }
+
+    /**
+     * Products created, updated or deleted after cursor {@code since}, oldest first, each once in its latest state.
+     * Clients pass {@code nextSince} back until {@code hasMore} is false; starting without one replays the catalog.
+     * Only transactions older than every running one are read, so a change still being committed is never skipped,
+     * it only waits for the next poll. A cursor older than the retained tombstones is refused with
+     * {@link ChangeFeedExpiredException}; its reader replays from the start. Quantities are read from the inventory
+     * projection and are not themselves changes.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ProductChangesResponse getChanges(String since, Integer limit) {
+        ChangeCursor after = ChangeCursor.parse(since);
+        // A replay from the start needs no tombstones: it lists every product that still exists.
+        if (!after.equals(ChangeCursor.START) && tombstoneRepository.isPrunedAfter(after.txid(), after.seq())) {
+            throw new ChangeFeedExpiredException("Changes after " + since + " are no longer kept, resync from the start");
+        }
+        int pageSize = limit == null ? DEFAULT_CHANGES_LIMIT : Math.max(1, Math.min(limit, MAX_CHANGES_LIMIT));
+        long horizon = productRepository.changeHorizon();
+
+        // Each side comes in feed order; their first pageSize + 1 rows hold the merged page and tell if more follow.
+        List<Product> products = productRepository.findChangesAfter(
+                after.txid(), after.seq(), horizon, Limit.of(pageSize + 1));
+        List<ProductTombstone> tombstones = tombstoneRepository.findChangesAfter(
+                after.txid(), after.seq(), horizon, Limit.of(pageSize + 1));
+        List<ProductChange> page = new ArrayList<>(Math.min(pageSize, products.size() + tombstones.size()));
+        ChangeCursor last = after;
+        int p = 0;
+        int t = 0;
+        while (page.size() < pageSize && (p < products.size() || t < tombstones.size())) {
+            if (t == tombstones.size() || (p < products.size() && isBefore(products.get(p), tombstones.get(t)))) {
+                Product product = products.get(p++);
+                page.add(new ProductChange(product.getChangeSeq(), ProductChange.Type.UPSERT,
+                        product.getId(), product.getSkuCode(), mapToResponse(product)));
+                last = new ChangeCursor(product.getChangeTxid(), product.getChangeSeq());
+            } else {
+                ProductTombstone tombstone = tombstones.get(t++);
+                page.add(new ProductChange(tombstone.getChangeSeq(), ProductChange.Type.DELETE,
+                        tombstone.getProductId(), tombstone.getSkuCode(), null));
+                last = new ChangeCursor(tombstone.getChangeTxid(), tombstone.getChangeSeq());
+            }
+        }
+        boolean hasMore = p < products.size() || t < tombstones.size();
+        return new ProductChangesResponse(page, last.toString(), hasMore);
+    }
+
+    private static boolean isBefore(Product product, ProductTombstone tombstone) {
+        int byTransaction = Long.compare(product.getChangeTxid(), tombstone.getChangeTxid());
+        return byTransaction != 0 ? byTransaction < 0 : product.getChangeSeq() < tombstone.getChangeSeq();
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllProducts(Consumer<ProductResponse> sink) {
+        List<Product> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            products.forEach(product -> {
+                chunk.add(product);
+                if (chunk.size() == STREAM_CHUNK_SIZE) {
+                    emitChunk(chunk, sink);
+                }
+            });
+        }
+        if (!chunk.isEmpty()) {
+            emitChunk(chunk, sink);
+        }
+    }
+
+    private void emitChunk(List<Product> chunk, Consumer<ProductResponse> sink) {
+        for (Product product : chunk) {
+            sink.accept(mapToResponse(product));
+        }
+        chunk.clear();
+        // Emitted rows are not needed anymore, drop them so the persistence context does not grow with the catalog.
+        entityManager.clear();
+    }
+
+    /** Ranked matches for {@code query} from the in-process {@link ProductSearchIndex}. */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> searchProducts(String query, Integer limit) {
+        int size = limit == null ? DEFAULT_SEARCH_LIMIT : Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        List<Long> ids = searchIndex.search(query, size).stream()
+                .map(ProductSearchIndex.Hit::productId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        // One query for all hits, then back into rank order; rows deleted since they were indexed are skipped.
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    /** Loads the whole catalog into the search index before the instance takes traffic. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildSearchIndex() {
+        long started = System.nanoTime();
+        int[] indexed = new int[1];
+        try (Stream<Product> products = productRepository.streamAllOrderById()) {
+            products.forEach(product -> {
+                searchIndex.put(product.getId(), product.getName(), product.getDescription());
+                if (++indexed[0] % STREAM_CHUNK_SIZE == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+        log.info("Search index built with {} products in {} ms", indexed[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Re-reads one product into the search index after another instance created or changed it. A row that is not
+     * there leaves the index alone; only a delete event takes a product out.
+     */
+    @Transactional(readOnly = true)
+    public void refreshSearchIndex(Long id) {
+        productRepository.findById(id)
+                .ifPresent(product -> searchIndex.put(product.getId(), product.getName(), product.getDescription()));
+    }
+
+    @Transactional(readOnly = true)
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
-        return mapToResponse(product);
+        return getProductById(id, null).body();
+    }
+
+    /**
+     * The product with its ETag, or only the ETag when {@code ifNoneMatch} names it. A cached product is answered
+     * without touching the database.
+     */
+    @Transactional(readOnly = true)
+    public TaggedResponse<ProductResponse> getProductById(Long id, String ifNoneMatch) {
+        Product product = productCache.get(id, key -> productRepository.findById(key)
+                .orElseThrow(() -> new RuntimeException("Product not found with id: " + key)));
+        String etag = etagOf(product);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return TaggedResponse.notModified(etag);
+        }
+        return new TaggedResponse<>(etag, mapToResponse(product));
     }
 
 
-    private ProductResponse mapToResponse(Product product) {
-        Integer actualQuantity = getActualQuantityFromInventory(product.getSkuCode());
+    private String etagOf(Product product) {
+        return ETags.ofProduct(product.getVersion(),
+                inventoryProjection.quantityOf(product.getSkuCode(), product.getQuantity()));
+    }
+
+    /** Rejects a write whose If-Match no longer names the product's current version. */
+    private void checkIfMatch(Product product, String ifMatch) {
+        if (ifMatch != null && !ETags.matchesVersion(ifMatch, product.getVersion())) {
+            throw new ProductVersionMismatchException("Product " + product.getId() + " has changed since " + ifMatch);
+        }
+    }
+
+    private void indexAfterCommit(Product product) {
+        long id = product.getId();
+        String name = product.getName();
+        String description = product.getDescription();
+        ProductCache.afterCommit(() -> searchIndex.put(id, name, description));
+    }
 
+    private void sendUpdatedAfterCommit(Product product) {
+        String skuCode = product.getSkuCode();
+        Long id = product.getId();
+        ProductCache.afterCommit(() -> producer.sendProductUpdatedEvent(skuCode, id));
+    }
+
+    private ProductResponse mapToResponse(Product product) {
         return new ProductResponse(
                 product.getId(),
                 product.getSkuCode(),
                 product.getName(),
                 product.getDescription(),
                 product.getPrice(),
-                actualQuantity
+                inventoryProjection.quantityOf(product.getSkuCode(), product.getQuantity())
         );
     }
 
 
-    private Integer getActualQuantityFromInventory(String skuCode) {
-        try {
-            log.info("Fetching actual quantity for SKU: {}", skuCode);
-            var response = inventoryClient.getInventoryBySkuCode(skuCode);
-            if (response.getBody() != null) {
-                return response.getBody().quantity();
-            }
-        } catch (Exception e) {
-            log.error("Could not fetch inventory for SKU {}: {}. Using DB fallback.", skuCode, e.getMessage());
-        }
-        return 0;
+    public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
+        return updateProduct(id, productRequest, null).body();
     }
 
-
-    public ProductResponse updateProduct(Long id, ProductRequest productRequest) {
+    /**
+     * Replaces a product. With {@code ifMatch} the write only goes ahead while the product still has that version,
+     * and the version column catches writers that commit in between.
+     */
+    public TaggedResponse<ProductResponse> updateProduct(Long id, ProductRequest productRequest, String ifMatch) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        checkIfMatch(existingProduct, ifMatch);
 
         if (!existingProduct.getSkuCode().equals(productRequest.skuCode())) {
             productRepository.findBySkuCode(productRequest.skuCode())
@@ -110,14 +457,23 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(existingProduct);
-        producer.sendProductUpdatedEvent(updatedProduct.getSkuCode());
+        // Flushing bumps the version now, so the cached copy and the returned ETag carry the new one.
+        productRepository.flush();
+        productCache.putAfterCommit(updatedProduct);
+        indexAfterCommit(updatedProduct);
+        sendUpdatedAfterCommit(updatedProduct);
 
-        return mapToResponse(updatedProduct);
+        return new TaggedResponse<>(etagOf(updatedProduct), mapToResponse(updatedProduct));
     }
 
     public ProductResponse partialUpdateProduct(Long id, ProductRequest productRequest) {
+        return partialUpdateProduct(id, productRequest, null).body();
+    }
+
+    public TaggedResponse<ProductResponse> partialUpdateProduct(Long id, ProductRequest productRequest, String ifMatch) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        checkIfMatch(existingProduct, ifMatch);
 
         if (productRequest.skuCode() != null && !productRequest.skuCode().equals(existingProduct.getSkuCode())) {
             productRepository.findBySkuCode(productRequest.skuCode())
@@ -144,9 +500,13 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(existingProduct);
-        producer.sendProductUpdatedEvent(updatedProduct.getSkuCode());
+        // Flushing bumps the version now, so the cached copy and the returned ETag carry the new one.
+        productRepository.flush();
+        productCache.putAfterCommit(updatedProduct);
+        indexAfterCommit(updatedProduct);
+        sendUpdatedAfterCommit(updatedProduct);
 
-        return mapToResponse(updatedProduct);
+        return new TaggedResponse<>(etagOf(updatedProduct), mapToResponse(updatedProduct));
     }
 
     public void deleteProduct(Long id) {
@@ -155,6 +515,8 @@ public class ProductService {
 
         String skuCode = product.getSkuCode();
         productRepository.delete(product);
-        producer.sendProductDeletedEvent(skuCode);
+        productCache.evictAfterCommit(id);
+        ProductCache.afterCommit(() -> searchIndex.remove(id));
+        ProductCache.afterCommit(() -> producer.sendProductDeletedEvent(skuCode, id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.product_service.service;
+
+import com.example.product_service.repository.ProductTombstoneRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes tombstones older than {@code product.changes.tombstone-retention}, a batch per transaction, and moves
+ * the feed's horizon past them (see {@link ProductService#getChanges(String, Integer)}). Every instance runs it;
+ * concurrent runs only wait on each other's deletes.
+ */
+@Component
+@Slf4j
+public class TombstonePruner {
+
+    static final int PRUNE_BATCH_SIZE = 1000;
+
+    private final ProductTombstoneRepository tombstoneRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Duration retention;
+    private final long pruneMs;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tombstone-pruner");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TombstonePruner(ProductTombstoneRepository tombstoneRepository, PlatformTransactionManager transactionManager,
+                           @Value("${product.changes.tombstone-retention:7d}") Duration retention,
+                           @Value("${product.changes.prune-ms:3600000}") long pruneMs) {
+        this(tombstoneRepository, new TransactionTemplate(transactionManager), Clock.systemUTC(), retention, pruneMs);
+    }
+
+    TombstonePruner(ProductTombstoneRepository tombstoneRepository, TransactionTemplate transactionTemplate,
+                    Clock clock, Duration retention, long pruneMs) {
+        this.tombstoneRepository = tombstoneRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.retention = retention;
+        this.pruneMs = pruneMs;
+    }
+
+    @PostConstruct
+    void start() {
+        if (pruneMs > 0) {
+            scheduler.scheduleWithFixedDelay(this::pruneQuietly, pruneMs, pruneMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    long prune() {
+        Instant cutoff = clock.instant().minus(retention);
+        long pruned = 0;
+        long batch;
+        do {
+            batch = transactionTemplate.execute(status -> tombstoneRepository.pruneBefore(cutoff, PRUNE_BATCH_SIZE));
+            pruned += batch;
+        } while (batch == PRUNE_BATCH_SIZE);
+        return pruned;
+    }
+
+    private void pruneQuietly() {
+        try {
+            long pruned = prune();
+            if (pruned > 0) {
+                log.info("Pruned {} tombstones older than {}", pruned, retention);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not prune tombstones: {}", e.getMessage());
+        }
+    }
+}
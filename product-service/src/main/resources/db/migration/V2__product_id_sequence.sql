@@ -0,0 +1,6 @@
+-- V2__product_id_sequence.sql
+
+-- Product ids now come from Hibernate's pooled sequence optimizer, which takes 50 ids per call so inserts can be
+-- batched. The increment must match the entity's allocationSize. The column default keeps working for other
+-- writers, it only skips further ahead.
+ALTER SEQUENCE product_id_seq INCREMENT BY 50;
@@ -0,0 +1,4 @@
+-- V3__product_version.sql
+
+-- Optimistic locking version, also the source of product ETags.
+ALTER TABLE product ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,47 @@
+-- V4__product_change_feed.sql
+
+-- Change feed: every insert and update stamps the row with the next change_seq, every delete leaves a tombstone
+-- with one. Numbers come from a single counter row, which the writing transaction keeps locked until it ends, so
+-- they are handed out in commit order and a reader that has seen change N never sees a lower one appear later.
+CREATE TABLE IF NOT EXISTS product_change_counter (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    seq BIGINT NOT NULL
+    );
+
+INSERT INTO product_change_counter (seq) SELECT COALESCE(MAX(id), 0) FROM product;
+
+ALTER TABLE product ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+UPDATE product SET change_seq = id;
+ALTER TABLE product ALTER COLUMN change_seq SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_product_change_seq ON product(change_seq);
+
+CREATE TABLE IF NOT EXISTS product_tombstone (
+    change_seq BIGINT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    sku_code VARCHAR(255) NOT NULL,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT now()
+    );
+
+CREATE OR REPLACE FUNCTION next_product_change() RETURNS BIGINT AS $$
+    UPDATE product_change_counter SET seq = seq + 1 RETURNING seq
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION stamp_product_change() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.change_seq := next_product_change();
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_product_tombstone() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO product_tombstone (change_seq, product_id, sku_code) VALUES (next_product_change(), OLD.id, OLD.sku_code);
+    RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER product_change BEFORE INSERT OR UPDATE ON product
+    FOR EACH ROW EXECUTE FUNCTION stamp_product_change();
+
+CREATE TRIGGER product_tombstone AFTER DELETE ON product
+    FOR EACH ROW EXECUTE FUNCTION record_product_tombstone();
@@ -0,0 +1,44 @@
+-- V5__product_change_sequence.sql
+
+-- Change numbers come from a sequence instead of the counter row, which every writing transaction kept locked
+-- until it ended. A sequence hands numbers out in call order, not commit order, so every change also records its
+-- transaction id. The feed reads in (transaction, change) order and only from transactions older than the oldest
+-- one still running, the snapshot's xmin: those can no longer add a change behind a reader's cursor.
+CREATE SEQUENCE IF NOT EXISTS product_change_seq;
+SELECT setval('product_change_seq', (SELECT seq FROM product_change_counter) + 1, false);
+
+-- Changes made before this migration sort first; real transaction ids start at 3.
+ALTER TABLE product DISABLE TRIGGER product_change;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS change_txid BIGINT;
+UPDATE product SET change_txid = 1;
+ALTER TABLE product ALTER COLUMN change_txid SET NOT NULL;
+ALTER TABLE product ENABLE TRIGGER product_change;
+
+ALTER TABLE product_tombstone ADD COLUMN IF NOT EXISTS change_txid BIGINT;
+UPDATE product_tombstone SET change_txid = 1;
+ALTER TABLE product_tombstone ALTER COLUMN change_txid SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_product_change_position ON product(change_txid, change_seq);
+CREATE INDEX IF NOT EXISTS idx_product_tombstone_position ON product_tombstone(change_txid, change_seq);
+
+CREATE OR REPLACE FUNCTION next_product_change() RETURNS BIGINT AS $$
+    SELECT nextval('product_change_seq')
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION stamp_product_change() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.change_seq := next_product_change();
+    NEW.change_txid := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_product_tombstone() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO product_tombstone (change_seq, change_txid, product_id, sku_code)
+        VALUES (next_product_change(), pg_current_xact_id()::text::bigint, OLD.id, OLD.sku_code);
+    RETURN OLD;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TABLE IF EXISTS product_change_counter;
@@ -0,0 +1,13 @@
+-- V6__product_tombstone_retention.sql
+
+-- Tombstones are pruned after a retention period. The feed position of the newest pruned one is kept here: a
+-- cursor before it may have missed a delete, so its reader has to replay the feed from the start.
+CREATE TABLE IF NOT EXISTS product_change_horizon (
+    id BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (id),
+    txid BIGINT NOT NULL,
+    seq BIGINT NOT NULL
+    );
+
+INSERT INTO product_change_horizon (txid, seq) VALUES (0, 0);
+
+CREATE INDEX IF NOT EXISTS idx_product_tombstone_deleted_at ON product_tombstone(deleted_at);
@@ -9,7 +9,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -94,4 +98,28 @@ class ProductServiceIntegrationTest {
         assertNotNull(response.getBody());
         assertEquals(2, response.getBody().length);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProductController_ShouldStreamAllProductsAsNdjson() {
+        Product product1 = new Product("SKU-1", "Product 1", "Desc 1", new BigDecimal("10.0"), 5);
+        Product product2 = new Product("SKU-2", "Product 2", "Desc 2", new BigDecimal("20.0"), 10);
+
+        productRepository.saveAll(List.of(product1, product2));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> response = restTemplate.exchange(
+                "/api/product",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                String.class
+        );
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        String[] lines = response.getBody().trim().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("SKU-1"));
+        assertTrue(lines[1].contains("SKU-2"));
+    }
+}
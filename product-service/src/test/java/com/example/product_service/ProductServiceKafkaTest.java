@@ -1,12 +1,16 @@
 package com.example.product_service;
 
+import com.example.events.EventCodec;
+import com.example.events.EventHeaders;
+import com.example.events.EventType;
 import com.example.product_service.dto.ProductRequest;
 import com.example.product_service.dto.ProductResponse;
-import com.example.product_service.external.client.InventoryClient;
-import com.example.product_service.external.dto.InventoryRequest;
-import com.example.product_service.external.dto.InventoryResponse;
 import com.example.product_service.kafka.ProductEventProducer;
 import com.example.product_service.repository.ProductRepository;
+import com.example.product_service.repository.ProductTombstoneRepository;
+import com.example.product_service.service.InventoryProjection;
+import com.example.product_service.service.ProductCache;
+import com.example.product_service.service.ProductSearchIndex;
 import com.example.product_service.service.ProductService;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -16,7 +20,6 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.test.EmbeddedKafkaBroker;
 import org.springframework.kafka.test.context.EmbeddedKafka;
@@ -31,6 +34,7 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -68,7 +72,19 @@ class ProductServiceKafkaTest {
     @Autowired
     private ProductEventProducer productEventProducer; // Используем настоящий продюсер
 
-    private Consumer<String, String> consumer;
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private InventoryProjection inventoryProjection;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductTombstoneRepository tombstoneRepository;
+
+    private Consumer<String, byte[]> consumer;
 
     @BeforeEach
     void setUp() {
@@ -76,9 +92,9 @@ class ProductServiceKafkaTest {
 
         Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("testGroup", "true", embeddedKafka);
         consumerProps.put("key.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
-        consumerProps.put("value.deserializer", "org.apache.kafka.common.serialization.StringDeserializer");
+        consumerProps.put("value.deserializer", "org.apache.kafka.common.serialization.ByteArrayDeserializer");
 
-        consumer = new DefaultKafkaConsumerFactory<String, String>(consumerProps).createConsumer();
+        consumer = new DefaultKafkaConsumerFactory<String, byte[]>(consumerProps).createConsumer();
         embeddedKafka.consumeFromAnEmbeddedTopic(consumer, "product-events");
     }
 
@@ -100,31 +116,21 @@ class ProductServiceKafkaTest {
                 10
         );
 
-        InventoryClient inventoryClient = new InventoryClient() {
-            @Override
-            public ResponseEntity<InventoryResponse> getInventoryBySkuCode(String skuCode) {
-                return ResponseEntity.ok(new InventoryResponse(1L, skuCode, 10));
-            }
-
-            @Override
-            public ResponseEntity<InventoryResponse> upsertInventory(InventoryRequest request) {
-                return ResponseEntity.ok(new InventoryResponse(1L, request.skuCode(), request.quantity()));
-            }
-        };
-
-        ProductService productService = new ProductService(productRepository, productEventProducer, inventoryClient);
+        ProductService productService = new ProductService(productRepository, productEventProducer, productCache, inventoryProjection, searchIndex, tombstoneRepository);
 
         ProductResponse response = productService.createProduct(request);
 
-        ConsumerRecords<String, String> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10));
+        ConsumerRecords<String, byte[]> records = KafkaTestUtils.getRecords(consumer, Duration.ofSeconds(10));
 
         assertNotNull(response);
         assertEquals("NEW-SKU", response.skuCode());
         assertTrue(records.count() > 0, "No messages received from Kafka!");
 
         boolean productCreatedFound = false;
-        for (ConsumerRecord<String, String> record : records) {
-            if (record.value().contains("CREATED:NEW-SKU:10")) {
+        for (ConsumerRecord<String, byte[]> record : records) {
+            EventType type = EventHeaders.readEventType(record.headers().lastHeader(EventHeaders.EVENT_TYPE).value());
+            if (type == EventType.PRODUCT_CREATED && "NEW-SKU".equals(record.key())
+                    && EventCodec.decodeProduct(type, record.key(), record.value()).quantity() == 10) {
                 productCreatedFound = true;
                 break;
             }
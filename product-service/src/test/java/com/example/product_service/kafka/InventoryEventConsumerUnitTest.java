@@ -0,0 +1,45 @@
+package com.example.product_service.kafka;
+
+import com.example.product_service.service.InventoryProjection;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryEventConsumerUnitTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("inventory-events", 0);
+    private static final TopicPartition OTHER_PARTITION = new TopicPartition("inventory-events", 1);
+
+    @Mock
+    private InventoryProjection inventoryProjection;
+
+    @Mock
+    private ConsumerSeekCallback callback;
+
+    @Test
+    void onPartitionsAssigned_ShouldRewindEachPartitionToBeforeCatchUpOnlyOnce() {
+        // Arrange
+        long before = System.currentTimeMillis() - 60_000;
+        InventoryEventConsumer consumer = new InventoryEventConsumer(inventoryProjection, 60_000);
+        long after = System.currentTimeMillis() - 60_000;
+
+        // Act
+        consumer.onPartitionsAssigned(Map.of(PARTITION, 10L), callback);
+        consumer.onPartitionsAssigned(Map.of(PARTITION, 12L, OTHER_PARTITION, 3L), callback);
+
+        // Assert
+        verify(callback, times(1)).seekToTimestamp(eq(List.of(PARTITION)),
+                longThat(timestamp -> timestamp >= before && timestamp <= after));
+        verify(callback, times(1)).seekToTimestamp(eq(List.of(OTHER_PARTITION)), anyLong());
+    }
+}
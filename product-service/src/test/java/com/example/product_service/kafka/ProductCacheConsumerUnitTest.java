@@ -0,0 +1,78 @@
+package com.example.product_service.kafka;
+
+import com.example.events.EventCodec;
+import com.example.events.EventHeaders;
+import com.example.events.EventType;
+import com.example.events.ProductEvent;
+import com.example.product_service.service.ProductCache;
+import com.example.product_service.service.ProductSearchIndex;
+import com.example.product_service.service.ProductService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerSeekAware.ConsumerSeekCallback;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheConsumerUnitTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("product-events", 0);
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private ConsumerSeekCallback callback;
+
+    @Test
+    void onPartitionsAssigned_ShouldRewindToBeforeIndexBuildOnlyOnce() {
+        // Arrange
+        long before = System.currentTimeMillis() - 60_000;
+        ProductCacheConsumer consumer = new ProductCacheConsumer(productCache, productService, searchIndex, 60_000);
+        long after = System.currentTimeMillis() - 60_000;
+
+        // Act
+        consumer.onPartitionsAssigned(Map.of(PARTITION, 10L), callback);
+        consumer.onPartitionsAssigned(Map.of(PARTITION, 12L), callback);
+
+        // Assert
+        verify(callback, times(1)).seekToTimestamp(eq(List.of(PARTITION)),
+                longThat(timestamp -> timestamp >= before && timestamp <= after));
+    }
+
+    @Test
+    void invalidateCache_ShouldEvictAndReindex_WhenProductIsUpdated() {
+        // Arrange
+        ProductCacheConsumer consumer = new ProductCacheConsumer(productCache, productService, searchIndex, 60_000);
+
+        // Act
+        consumer.invalidateCache(record(ProductEvent.updated("TEST-SKU", 7L), EventType.PRODUCT_UPDATED));
+
+        // Assert
+        verify(productCache).evict(7L);
+        verify(productService).refreshSearchIndex(7L);
+        verifyNoInteractions(searchIndex);
+    }
+
+    private static ConsumerRecord<String, byte[]> record(ProductEvent event, EventType type) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), 0L,
+                "TEST-SKU", EventCodec.encode(event));
+        record.headers().add(EventHeaders.SCHEMA_VERSION, EventHeaders.schemaVersion());
+        record.headers().add(EventHeaders.EVENT_TYPE, EventHeaders.eventType(type));
+        return record;
+    }
+}
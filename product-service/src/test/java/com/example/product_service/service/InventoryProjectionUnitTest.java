@@ -0,0 +1,154 @@
+package com.example.product_service.service;
+
+import com.example.product_service.external.client.InventoryClient;
+import com.example.product_service.external.dto.InventoryResponse;
+import com.example.product_service.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryProjectionUnitTest {
+
+    @Mock
+    private InventoryClient inventoryClient;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryProjection inventoryProjection;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        inventoryProjection = new InventoryProjection(inventoryClient, productRepository, meterRegistry, 2);
+    }
+
+    @Test
+    void quantityOf_ShouldFallBackToProductQuantity_WhenSkuIsUnknown() {
+        // Act & Assert
+        assertEquals(12, inventoryProjection.quantityOf("UNKNOWN-SKU", 12));
+        assertEquals(0, inventoryProjection.quantityOf("UNKNOWN-SKU", null));
+        verifyNoInteractions(inventoryClient);
+    }
+
+    @Test
+    void apply_ShouldUpdateQuantityAndRecordLag() {
+        // Act
+        inventoryProjection.apply("TEST-SKU", 4, System.currentTimeMillis() - 50);
+
+        // Assert
+        assertEquals(4, inventoryProjection.quantityOf("TEST-SKU", 10));
+        assertEquals(1, meterRegistry.get("inventory.projection.lag").timer().count());
+        assertEquals(1.0, meterRegistry.get("inventory.projection.size").gauge().value());
+    }
+
+    @Test
+    void fingerprint_ShouldDependOnlyOnHeldQuantities() {
+        // Arrange
+        InventoryProjection other = new InventoryProjection(inventoryClient, productRepository, meterRegistry, 2);
+        long now = System.currentTimeMillis();
+
+        // Act
+        inventoryProjection.apply("SKU-1", 5, now);
+        inventoryProjection.apply("SKU-2", 3, now);
+        inventoryProjection.apply("SKU-1", 4, now);
+        other.apply("SKU-2", 3, now);
+        other.apply("SKU-1", 4, now);
+
+        // Assert
+        assertEquals(other.fingerprint(), inventoryProjection.fingerprint());
+        other.apply("SKU-2", 2, now);
+        assertNotEquals(other.fingerprint(), inventoryProjection.fingerprint());
+    }
+
+    @Test
+    void catchUp_ShouldLoadSkusInChunks() {
+        // Arrange
+        List<String> skuCodes = new ArrayList<>();
+        for (int i = 0; i < InventoryProjection.CATCH_UP_BATCH_SIZE * 2 + 1; i++) {
+            skuCodes.add("SKU-" + i);
+        }
+        when(inventoryClient.getInventoryBySkuCodes(anyList()))
+                .thenAnswer(invocation -> {
+                    List<String> chunk = invocation.getArgument(0);
+                    return ResponseEntity.ok(chunk.stream()
+                            .map(sku -> new InventoryResponse(null, sku, 7))
+                            .toList());
+                });
+
+        // Act
+        int loaded = inventoryProjection.catchUp(skuCodes);
+
+        // Assert
+        assertEquals(skuCodes.size(), loaded);
+        assertEquals(7, inventoryProjection.quantityOf("SKU-1000", 0));
+        verify(inventoryClient, times(3)).getInventoryBySkuCodes(anyList());
+    }
+
+    @Test
+    void catchUp_ShouldNotOverwriteNewerEventValue() {
+        // Arrange
+        inventoryProjection.apply("TEST-SKU", 2, System.currentTimeMillis());
+        when(inventoryClient.getInventoryBySkuCodes(List.of("TEST-SKU")))
+                .thenReturn(ResponseEntity.ok(List.of(new InventoryResponse(1L, "TEST-SKU", 9))));
+
+        // Act
+        inventoryProjection.catchUp(List.of("TEST-SKU"));
+
+        // Assert
+        assertEquals(2, inventoryProjection.quantityOf("TEST-SKU", 0));
+    }
+
+    @Test
+    void catchUp_ShouldKeepGoing_WhenInventoryServiceIsDown() {
+        // Arrange
+        when(inventoryClient.getInventoryBySkuCodes(anyList()))
+                .thenThrow(new RuntimeException("inventory-service unavailable"));
+
+        // Act
+        int loaded = inventoryProjection.catchUp(List.of("TEST-SKU"));
+
+        // Assert
+        assertEquals(0, loaded);
+        assertEquals(5, inventoryProjection.quantityOf("TEST-SKU", 5));
+    }
+
+    @Test
+    void catchUp_ShouldRequestBatchesConcurrently() {
+        // Arrange: each batch waits for another one to be in flight, which only a parallel catch-up can satisfy
+        CyclicBarrier inFlight = new CyclicBarrier(2);
+        List<String> skuCodes = new ArrayList<>();
+        for (int i = 0; i < InventoryProjection.CATCH_UP_BATCH_SIZE * 2; i++) {
+            skuCodes.add("SKU-" + i);
+        }
+        when(inventoryClient.getInventoryBySkuCodes(anyList()))
+                .thenAnswer(invocation -> {
+                    inFlight.await(5, TimeUnit.SECONDS);
+                    List<String> chunk = invocation.getArgument(0);
+                    return ResponseEntity.ok(chunk.stream()
+                            .map(sku -> new InventoryResponse(null, sku, 3))
+                            .toList());
+                });
+
+        // Act
+        int loaded = inventoryProjection.catchUp(skuCodes);
+
+        // Assert
+        assertEquals(skuCodes.size(), loaded);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.product_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexUnitTest {
+
+    private final ProductSearchIndex index = new ProductSearchIndex(new SimpleMeterRegistry(), 16, 1000);
+
+    @Test
+    void search_ShouldMatchEveryTokenAsPrefix() {
+        // Arrange
+        index.put(1L, "Wireless Mouse", "Ergonomic, 2.4GHz");
+        index.put(2L, "Wired Keyboard", "Mechanical switches");
+        index.put(3L, "Wireless Keyboard", "Low-profile keys");
+
+        // Act & Assert
+        assertEquals(List.of(1L, 3L), ids(index.search("wireles", 10)));
+        assertEquals(List.of(3L), ids(index.search("WIRELESS key", 10)));
+        assertEquals(List.of(2L, 3L), ids(index.search("keyb", 10)));
+        assertTrue(index.search("wireless trackpad", 10).isEmpty());
+        assertTrue(index.search("  ,. ", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesFirstAndKeepTopK() {
+        // Arrange
+        index.put(1L, "Cable organiser", "Keeps a phone charger tidy");
+        index.put(2L, "Phone case", "Slim");
+        index.put(3L, "Phonebook", "Paper");
+        index.put(4L, "Charger", "Fast charger for any phone");
+
+        // Act
+        List<ProductSearchIndex.Hit> hits = index.search("phone", 2);
+
+        // Assert: an exact name match, then a completion in a name, above matches in descriptions only
+        assertEquals(List.of(2L, 3L), ids(hits));
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals(List.of(4L, 1L), ids(index.search("charger", 10)));
+    }
+
+    @Test
+    void putAndRemove_ShouldKeepIndexCurrent() {
+        // Arrange
+        index.put(5L, "Desk lamp", "LED");
+        index.put(2L, "Floor lamp", "Halogen");
+
+        // Act
+        index.put(5L, "Desk light", "LED");
+        index.remove(2L);
+
+        // Assert
+        assertTrue(index.search("lamp", 10).isEmpty());
+        assertEquals(List.of(5L), ids(index.search("light led", 10)));
+        assertEquals(1, index.size());
+    }
+
+    private static List<Long> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::productId).toList();
+    }
+}
@@ -1,23 +1,39 @@
 package com.example.product_service.service;
 
+import com.example.product_service.dto.BulkProductResponse;
+import com.example.product_service.dto.BulkProductResult;
+import com.example.product_service.dto.ProductChange;
+import com.example.product_service.dto.ProductChangesResponse;
+import com.example.product_service.dto.ProductPageResponse;
 import com.example.product_service.dto.ProductRequest;
 import com.example.product_service.dto.ProductResponse;
-import com.example.product_service.external.client.InventoryClient;
-import com.example.product_service.external.dto.InventoryResponse;
+import com.example.product_service.dto.TaggedResponse;
+import com.example.product_service.exception.ChangeFeedExpiredException;
+import com.example.product_service.exception.InvalidChangeCursorException;
+import com.example.product_service.exception.ProductVersionMismatchException;
 import com.example.product_service.kafka.ProductEventProducer;
 import com.example.product_service.model.Product;
+import com.example.product_service.model.ProductTombstone;
+import com.example.product_service.repository.CatalogStamp;
 import com.example.product_service.repository.ProductRepository;
+import com.example.product_service.repository.ProductTombstoneRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.http.ResponseEntity;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -39,7 +55,16 @@ class ProductServiceUnitTest {
     private ProductEventProducer producer;
 
     @Mock
-    private InventoryClient inventoryClient;
+    private InventoryProjection inventoryProjection;
+
+    @Mock
+    private ProductTombstoneRepository tombstoneRepository;
+
+    @Spy
+    private ProductCache productCache = new ProductCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+
+    @Spy
+    private ProductSearchIndex searchIndex = new ProductSearchIndex(new SimpleMeterRegistry(), 16, 1000);
 
     @InjectMocks
     private ProductService productService;
@@ -73,8 +98,7 @@ class ProductServiceUnitTest {
                 .thenReturn(Optional.empty());
         when(productRepository.save(any(Product.class)))
                 .thenReturn(product);
-        when(inventoryClient.getInventoryBySkuCode(anyString()))
-                .thenReturn(ResponseEntity.ok(new InventoryResponse(1L, "TEST-SKU", 10)));
+        when(inventoryProjection.quantityOf("TEST-SKU", 10)).thenReturn(10);
 
         // Act
         ProductResponse response = productService.createProduct(productRequest);
@@ -87,7 +111,25 @@ class ProductServiceUnitTest {
         assertEquals(10, response.quantity());
         verify(productRepository, times(1)).findBySkuCode("TEST-SKU");
         verify(productRepository, times(1)).save(any(Product.class));
-        verify(producer, times(1)).sendProductCreatedEvent("TEST-SKU", 10);
+        verify(producer, times(1)).sendProductCreatedEvent("TEST-SKU", 1L, 10);
+    }
+
+    @Test
+    void deleteProduct_ShouldPublishOnlyAfterCommit() {
+        // Arrange
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            productService.deleteProduct(1L);
+
+            // Assert
+            verify(producer, never()).sendProductDeletedEvent(anyString(), anyLong());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(producer, times(1)).sendProductDeletedEvent("TEST-SKU", 1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -104,7 +146,7 @@ class ProductServiceUnitTest {
         assertEquals("SKU code already exists: TEST-SKU", exception.getMessage());
         verify(productRepository, times(1)).findBySkuCode("TEST-SKU");
         verify(productRepository, never()).save(any(Product.class));
-        verify(producer, never()).sendProductCreatedEvent(anyString(), anyInt());
+        verify(producer, never()).sendProductCreatedEvent(anyString(), anyLong(), anyInt());
     }
 
     @Test
@@ -128,10 +170,8 @@ class ProductServiceUnitTest {
 
         when(productRepository.findAll())
                 .thenReturn(Arrays.asList(product1, product2));
-        when(inventoryClient.getInventoryBySkuCode("SKU-1"))
-                .thenReturn(ResponseEntity.ok(new InventoryResponse(1L, "SKU-1", 5)));
-        when(inventoryClient.getInventoryBySkuCode("SKU-2"))
-                .thenReturn(ResponseEntity.ok(new InventoryResponse(2L, "SKU-2", 10)));
+        when(inventoryProjection.quantityOf("SKU-1", 5)).thenReturn(5);
+        when(inventoryProjection.quantityOf("SKU-2", 10)).thenReturn(10);
 
         // Act
         List<ProductResponse> responses = productService.getAllProducts();
@@ -141,16 +181,31 @@ class ProductServiceUnitTest {
         assertEquals(2, responses.size());
         assertEquals("SKU-1", responses.get(0).skuCode());
         assertEquals("SKU-2", responses.get(1).skuCode());
+        assertEquals(5, responses.get(0).quantity());
+        assertEquals(10, responses.get(1).quantity());
         verify(productRepository, times(1)).findAll();
     }
 
+    @Test
+    void getAllProducts_ShouldTakeQuantitiesFromLocalProjection() {
+        // Arrange
+        when(productRepository.findAll()).thenReturn(List.of(product));
+        when(inventoryProjection.quantityOf("TEST-SKU", 10)).thenReturn(3);
+
+        // Act
+        List<ProductResponse> responses = productService.getAllProducts();
+
+        // Assert
+        assertEquals(1, responses.size());
+        assertEquals(3, responses.get(0).quantity());
+        verify(inventoryProjection, times(1)).quantityOf("TEST-SKU", 10);
+    }
+
     @Test
     void getProductById_ShouldReturnProduct_WhenProductExists() {
         // Arrange
         when(productRepository.findById(anyLong()))
                 .thenReturn(Optional.of(product));
-        when(inventoryClient.getInventoryBySkuCode(anyString()))
-                .thenReturn(ResponseEntity.ok(new InventoryResponse(1L, "TEST-SKU", 10)));
 
         // Act
         ProductResponse response = productService.getProductById(1L);
@@ -162,4 +217,254 @@ class ProductServiceUnitTest {
         assertEquals("Test Product", response.name());
         verify(productRepository, times(1)).findById(1L);
     }
+
+    @Test
+    void getProductById_ShouldServeRepeatedReadsFromCache() {
+        // Arrange
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        // Act
+        productService.getProductById(1L);
+        product.setName("Changed Behind The Cache");
+        ProductResponse response = productService.getProductById(1L);
+
+        // Assert
+        assertEquals("Test Product", response.name());
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void updateProduct_ShouldRefreshCacheAndPublishIdInEvent() {
+        // Arrange
+        ProductRequest rename = new ProductRequest("TEST-SKU", "Renamed", null, BigDecimal.ONE, null);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        productService.updateProduct(1L, rename);
+        ProductResponse response = productService.getProductById(1L);
+
+        // Assert
+        assertEquals("Renamed", response.name());
+        verify(productRepository, times(1)).findById(1L);
+        verify(producer, times(1)).sendProductUpdatedEvent("TEST-SKU", 1L);
+    }
+
+    @Test
+    void getProductsPage_ShouldReturnNextCursor_WhenMoreRowsExist() {
+        // Arrange
+        Product second = new Product("SKU-2", "Product 2", null, BigDecimal.TEN, 0);
+        second.setId(2L);
+        Product third = new Product("SKU-3", "Product 3", null, BigDecimal.TEN, 0);
+        third.setId(3L);
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(3)))
+                .thenReturn(List.of(product, second, third));
+        when(inventoryProjection.quantityOf("TEST-SKU", 10)).thenReturn(4);
+        when(inventoryProjection.quantityOf("SKU-2", 0)).thenReturn(0);
+
+        // Act
+        ProductPageResponse page = productService.getProductsPage(1L, 2);
+
+        // Assert
+        assertEquals(2, page.items().size());
+        assertEquals(4, page.items().get(0).quantity());
+        assertEquals(0, page.items().get(1).quantity());
+        assertEquals(2L, page.nextCursor());
+    }
+
+    @Test
+    void getProductsPage_ShouldClampPageSizeAndEndWithoutCursor() {
+        // Arrange
+        when(productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(ProductService.MAX_PAGE_SIZE + 1)))
+                .thenReturn(List.of(product));
+
+        // Act
+        ProductPageResponse page = productService.getProductsPage(null, 100_000);
+
+        // Assert
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void searchProducts_ShouldReturnIndexedProductsInRankOrder() {
+        // Arrange
+        Product other = new Product("OTHER-SKU", "Test Kit", "Test product test bundle", BigDecimal.ONE, 1);
+        other.setId(2L);
+        when(productRepository.findBySkuCode(anyString())).thenReturn(Optional.empty());
+        when(productRepository.save(any(Product.class))).thenReturn(product, other);
+        productService.createProduct(productRequest);
+        productService.createProduct(productRequest);
+        when(productRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(product, other));
+
+        // Act
+        List<ProductResponse> hits = productService.searchProducts("test", null);
+
+        // Assert
+        assertEquals(List.of(2L, 1L), hits.stream().map(ProductResponse::id).toList());
+        assertTrue(productService.searchProducts("nothing", null).isEmpty());
+    }
+
+    @Test
+    void refreshSearchIndex_ShouldKeepIndexedProduct_WhenRowIsNotVisibleYet() {
+        // Arrange
+        searchIndex.put(1L, "Test Product", "Test Description");
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act
+        productService.refreshSearchIndex(1L);
+
+        // Assert
+        assertEquals(1, searchIndex.size());
+        verify(searchIndex, never()).remove(anyLong());
+    }
+
+    @Test
+    void createProducts_ShouldCheckDuplicatesOnceAndReportEveryRow() {
+        // Arrange
+        List<ProductRequest> requests = List.of(
+                new ProductRequest("NEW-1", "First", null, BigDecimal.TEN, 5),
+                new ProductRequest("TEST-SKU", "Taken", null, BigDecimal.TEN, 1),
+                new ProductRequest("NEW-1", "Repeated", null, BigDecimal.TEN, 1),
+                new ProductRequest("NEW-2", "No price", null, null, 1),
+                new ProductRequest("NEW-3", "Third", "Desc", BigDecimal.ONE, null));
+        when(productRepository.findExistingSkuCodes(anySet())).thenReturn(List.of("TEST-SKU"));
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            for (int i = 0; i < products.size(); i++) {
+                products.get(i).setId(100L + i);
+            }
+            return products;
+        });
+
+        // Act
+        BulkProductResponse response = productService.createProducts(requests);
+
+        // Assert
+        assertEquals(2, response.created());
+        assertEquals(3, response.rejected());
+        assertEquals(List.of(BulkProductResult.Outcome.CREATED, BulkProductResult.Outcome.DUPLICATE,
+                        BulkProductResult.Outcome.DUPLICATE, BulkProductResult.Outcome.INVALID,
+                        BulkProductResult.Outcome.CREATED),
+                response.results().stream().map(BulkProductResult::outcome).toList());
+        assertEquals(101L, response.results().get(4).id());
+        verify(productRepository, times(1)).findExistingSkuCodes(anySet());
+        verify(productRepository, never()).findBySkuCode(anyString());
+        verify(producer, times(1)).sendProductCreatedEvents(argThat(products -> products.size() == 2));
+        verify(searchIndex).put(101L, "Third", "Desc");
+    }
+
+    @Test
+    void getProductById_ShouldAnswerNotModified_WhenETagStillMatches() {
+        // Arrange
+        product.setVersion(3L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(inventoryProjection.quantityOf("TEST-SKU", 10)).thenReturn(10);
+        String etag = productService.getProductById(1L, null).etag();
+
+        // Act
+        TaggedResponse<ProductResponse> response = productService.getProductById(1L, "W/" + etag);
+
+        // Assert
+        assertTrue(response.isNotModified());
+        assertEquals(etag, response.etag());
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getAllProducts_ShouldNotLoadRows_WhenCatalogETagMatches() {
+        // Arrange
+        when(productRepository.stampCatalog()).thenReturn(new CatalogStamp(1L, 1L, 0L));
+        when(productRepository.findAll()).thenReturn(List.of(product));
+        String etag = productService.getAllProducts(null).etag();
+
+        // Act
+        TaggedResponse<List<ProductResponse>> response = productService.getAllProducts(etag);
+
+        // Assert
+        assertTrue(response.isNotModified());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void updateProduct_ShouldRejectStaleIfMatch() {
+        // Arrange
+        product.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        // Act & Assert
+        assertThrows(ProductVersionMismatchException.class, () ->
+                productService.updateProduct(1L, productRequest, "\"3-10\""));
+        verify(productRepository, never()).save(any(Product.class));
+        verify(producer, never()).sendProductUpdatedEvent(anyString(), anyLong());
+    }
+
+    @Test
+    void updateProduct_ShouldRejectWeakIfMatch() {
+        // Arrange
+        product.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+
+        // Act & Assert
+        assertThrows(ProductVersionMismatchException.class, () ->
+                productService.updateProduct(1L, productRequest, "W/\"4-10\""));
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void updateProduct_ShouldAcceptIfMatch_WhenOnlyStockChangedSinceRead() {
+        // Arrange
+        product.setVersion(4L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        productService.updateProduct(1L, productRequest, "\"4-7\"");
+
+        // Assert
+        verify(productRepository, times(1)).save(product);
+    }
+
+    @Test
+    void getChanges_ShouldMergeUpdatesAndTombstonesInFeedOrder() {
+        // Arrange: change 9 was numbered first but its transaction (40) committed after change 11's (30)
+        product.setChangeTxid(30L);
+        product.setChangeSeq(12L);
+        Product later = new Product("LATER-SKU", "Later", null, BigDecimal.ONE, 1);
+        later.setId(2L);
+        later.setChangeTxid(40L);
+        later.setChangeSeq(9L);
+        when(productRepository.changeHorizon()).thenReturn(50L);
+        when(productRepository.findChangesAfter(20L, 5L, 50L, Limit.of(3))).thenReturn(List.of(product, later));
+        when(tombstoneRepository.findChangesAfter(20L, 5L, 50L, Limit.of(3)))
+                .thenReturn(List.of(new ProductTombstone(11L, 30L, 7L, "GONE-SKU", Instant.now())));
+
+        // Act
+        ProductChangesResponse response = productService.getChanges("20.5", 2);
+
+        // Assert
+        assertEquals(List.of(11L, 12L), response.changes().stream().map(ProductChange::changeSeq).toList());
+        assertEquals(ProductChange.Type.DELETE, response.changes().get(0).type());
+        assertNull(response.changes().get(0).product());
+        assertEquals("TEST-SKU", response.changes().get(1).product().skuCode());
+        assertEquals("30.12", response.nextSince());
+        assertTrue(response.hasMore());
+    }
+
+    @Test
+    void getChanges_ShouldRequireResync_WhenCursorIsOlderThanPrunedTombstones() {
+        // Arrange
+        when(tombstoneRepository.isPrunedAfter(20L, 5L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(ChangeFeedExpiredException.class, () -> productService.getChanges("20.5", 2));
+        verify(productRepository, never()).findChangesAfter(anyLong(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void getChanges_ShouldRejectMalformedCursor() {
+        // Act & Assert
+        assertThrows(InvalidChangeCursorException.class, () -> productService.getChanges("12", 2));
+        verify(productRepository, never()).changeHorizon();
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.product_service.service;
+
+import com.example.product_service.repository.ProductTombstoneRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TombstonePrunerUnitTest {
+
+    @Mock
+    private ProductTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void prune_ShouldDeleteInBatchesUntilNothingIsPastRetention() {
+        // Arrange
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        Instant now = Instant.parse("2026-03-10T12:00:00Z");
+        Instant cutoff = Instant.parse("2026-03-03T12:00:00Z");
+        when(tombstoneRepository.pruneBefore(cutoff, TombstonePruner.PRUNE_BATCH_SIZE))
+                .thenReturn((long) TombstonePruner.PRUNE_BATCH_SIZE, 7L);
+        TombstonePruner pruner = new TombstonePruner(tombstoneRepository, new TransactionTemplate(transactionManager),
+                Clock.fixed(now, ZoneOffset.UTC), Duration.ofDays(7), 0);
+
+        // Act
+        long pruned = pruner.prune();
+
+        // Assert
+        assertEquals(TombstonePruner.PRUNE_BATCH_SIZE + 7L, pruned);
+        verify(tombstoneRepository, times(2)).pruneBefore(cutoff, TombstonePruner.PRUNE_BATCH_SIZE);
+        verify(transactionManager, times(2)).commit(any());
+    }
+}